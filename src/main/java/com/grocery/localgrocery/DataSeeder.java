@@ -2,6 +2,7 @@ package com.grocery.localgrocery;
 
 import com.grocery.localgrocery.entity.*;
 import com.grocery.localgrocery.repository.*;
+import com.grocery.localgrocery.service.CatalogService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -13,13 +14,16 @@ public class DataSeeder implements CommandLineRunner {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final StoreRepository storeRepository;
+    private final CatalogService catalogService;
 
     public DataSeeder(CategoryRepository categoryRepository,
                       ProductRepository productRepository,
-                      StoreRepository storeRepository) {
+                      StoreRepository storeRepository,
+                      CatalogService catalogService) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
         this.storeRepository = storeRepository;
+        this.catalogService = catalogService;
     }
 
     @Override
@@ -106,7 +110,8 @@ public class DataSeeder implements CommandLineRunner {
         add("Shampoo 180ml", 220, 60, personal, bb);
         add("Toothpaste 150g", 170, 75, personal, salesberry);
 
-        // done
+        // Seeding bypasses the controllers, so rebuild the catalog snapshot once at the end
+        catalogService.refresh();
     }
 
     private void add(String name, double price, int stock, Category category, Store store) {
@@ -2,24 +2,11 @@ package com.grocery.localgrocery;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+// /uploads/** is served by controller.UploadController
 @SpringBootApplication
 public class LocalgroceryApplication {
     public static void main(String[] args) {
         SpringApplication.run(LocalgroceryApplication.class, args);
     }
-
-    @Bean
-    public WebMvcConfigurer webMvcConfigurer() {
-        return new WebMvcConfigurer() {
-            @Override
-            public void addResourceHandlers(ResourceHandlerRegistry registry) {
-                registry.addResourceHandler("/uploads/**")
-                        .addResourceLocations("file:uploads/");
-            }
-        };
-    }
 }
\ No newline at end of file
@@ -2,27 +2,47 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.*;
 import com.grocery.localgrocery.repository.*;
+import com.grocery.localgrocery.service.BestSellerTracker;
+import com.grocery.localgrocery.service.CatalogBulkService;
+import com.grocery.localgrocery.service.CatalogService;
+import com.grocery.localgrocery.service.CatalogSnapshot;
+import com.grocery.localgrocery.service.CustomerSketchService;
+import com.grocery.localgrocery.service.DashboardService;
+import com.grocery.localgrocery.service.FlashSaleService;
+import com.grocery.localgrocery.service.ImageVariantService;
+import com.grocery.localgrocery.service.OrderEventService;
+import com.grocery.localgrocery.service.OrderStatusCounters;
+import com.grocery.localgrocery.service.PostCheckoutPipeline;
+import com.grocery.localgrocery.service.ReturnService;
+import com.grocery.localgrocery.service.SalesRollupService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    static final List<String> RETURN_STATUSES = List.of("REQUESTED", "APPROVED", "REJECTED", "REFUNDED");
+
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
@@ -31,6 +51,18 @@ public class AdminController {
     private final StoreRepository storeRepository;
     private final NotificationRepository notificationRepository;
     private final NotificationLogRepository notificationLogRepository;
+    private final CatalogService catalogService;
+    private final ImageVariantService imageVariantService;
+    private final CatalogBulkService catalogBulkService;
+    private final FlashSaleService flashSaleService;
+    private final OrderEventService orderEventService;
+    private final ReturnService returnService;
+    private final PostCheckoutPipeline postCheckoutPipeline;
+    private final SalesRollupService salesRollupService;
+    private final DashboardService dashboardService;
+    private final BestSellerTracker bestSellerTracker;
+    private final OrderStatusCounters orderStatusCounters;
+    private final CustomerSketchService customerSketchService;
 
     public AdminController(UserRepository userRepository,
                            OrderRepository orderRepository,
@@ -39,7 +71,19 @@ public class AdminController {
                            CategoryRepository categoryRepository,
                            StoreRepository storeRepository,
                            NotificationRepository notificationRepository,
-                           NotificationLogRepository notificationLogRepository) {
+                           NotificationLogRepository notificationLogRepository,
+                           CatalogService catalogService,
+                           ImageVariantService imageVariantService,
+                           CatalogBulkService catalogBulkService,
+                           FlashSaleService flashSaleService,
+                           OrderEventService orderEventService,
+                           ReturnService returnService,
+                           PostCheckoutPipeline postCheckoutPipeline,
+                           SalesRollupService salesRollupService,
+                           DashboardService dashboardService,
+                           BestSellerTracker bestSellerTracker,
+                           OrderStatusCounters orderStatusCounters,
+                           CustomerSketchService customerSketchService) {
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
@@ -48,131 +92,160 @@ public class AdminController {
         this.storeRepository = storeRepository;
         this.notificationRepository = notificationRepository;
         this.notificationLogRepository = notificationLogRepository;
+        this.catalogService = catalogService;
+        this.imageVariantService = imageVariantService;
+        this.catalogBulkService = catalogBulkService;
+        this.flashSaleService = flashSaleService;
+        this.orderEventService = orderEventService;
+        this.returnService = returnService;
+        this.postCheckoutPipeline = postCheckoutPipeline;
+        this.salesRollupService = salesRollupService;
+        this.dashboardService = dashboardService;
+        this.bestSellerTracker = bestSellerTracker;
+        this.orderStatusCounters = orderStatusCounters;
+        this.customerSketchService = customerSketchService;
     }
 
-    // Dashboard stats
+    // Dashboard stats: a shared snapshot, refreshed at most every app.dashboard.ttl-seconds
     @GetMapping("/dashboard")
-    public Map<String, Object> getDashboardStats() {
-        Map<String, Object> stats = new HashMap<>();
+    public DashboardService.Stats getDashboardStats() {
+        return dashboardService.stats();
+    }
 
-        // Get total revenue (sum of all order totals)
-        BigDecimal totalRevenue = orderRepository.findAll().stream()
-                .map(Order::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.put("totalRevenue", totalRevenue);
-
-        // Get total orders
-        long totalOrders = orderRepository.count();
-        stats.put("totalOrders", totalOrders);
-
-        // Get total customers
-        long totalCustomers = userRepository.countByRole("CUSTOMER");
-        stats.put("totalCustomers", totalCustomers);
-
-        // Get pending returns
-        List<OrderItem> allItems = orderItemRepository.findAll();
-        long pendingReturns = allItems.stream()
-                .filter(item -> item.getReturnStatus() != null && item.getReturnStatus().equals("REQUESTED"))
-                .count();
-        stats.put("pendingReturns", pendingReturns);
-
-        // Get today's stats
-        LocalDateTime startOfDay = LocalDateTime.now().with(LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.now().with(LocalTime.MAX);
-
-        List<Order> todayOrders = orderRepository.findAll().stream()
-                .filter(order -> order.getCreatedAt() != null &&
-                        !order.getCreatedAt().isBefore(startOfDay) &&
-                        !order.getCreatedAt().isAfter(endOfDay))
-                .toList();
+    // Latest orders for the dashboard, newest first
+    @GetMapping("/orders/recent")
+    public OrderSearchPage getRecentOrders(@RequestParam(required = false) Long before,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        return ordersPage(Specification.where(null), before, limit);
+    }
 
-        BigDecimal todayRevenue = todayOrders.stream()
-                .map(Order::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public static class OrderSearchPage {
+        public List<AdminOrderSummary> orders;
+        public Long nextBefore; // pass as ?before= for the next page; null on the last page
+    }
 
-        Map<String, Object> todayStats = new HashMap<>();
-        todayStats.put("sales", todayRevenue);
-        todayStats.put("orders", todayOrders.size());
-        todayStats.put("customers", todayOrders.stream()
-                .map(Order::getUser)
-                .distinct()
-                .count());
-        stats.put("todayStats", todayStats);
+    // Order search for the admin orders table, newest first. All filters are optional and run in
+    // the database; `status` takes a comma-separated list, from/to are inclusive dates, `q` is an
+    // order number or the start of a customer's email or name.
+    @GetMapping("/orders/search")
+    public OrderSearchPage searchOrders(@RequestParam(required = false) List<String> status,
+                                        @RequestParam(required = false) LocalDate from,
+                                        @RequestParam(required = false) LocalDate to,
+                                        @RequestParam(required = false) Long storeId,
+                                        @RequestParam(required = false) Long deliveryPersonId,
+                                        @RequestParam(required = false) String paymentMethod,
+                                        @RequestParam(required = false) String q,
+                                        @RequestParam(required = false) Long before,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        List<String> statuses = status == null ? null
+                : status.stream().map(s -> s.trim().toUpperCase()).filter(s -> !s.isEmpty()).toList();
+
+        Specification<Order> filters = Specification.where(OrderSpecifications.hasStatus(statuses))
+                .and(OrderSpecifications.createdFrom(from != null ? from.atStartOfDay() : null))
+                .and(OrderSpecifications.createdBefore(to != null ? to.plusDays(1).atStartOfDay() : null))
+                .and(OrderSpecifications.fromStore(storeId))
+                .and(OrderSpecifications.deliveredBy(deliveryPersonId))
+                .and(OrderSpecifications.paidWith(paymentMethod))
+                .and(OrderSpecifications.customerMatches(q));
+        return ordersPage(filters, before, limit);
+    }
 
-        // Calculate growth percentages (simplified - you can add actual calculations)
-        stats.put("revenueGrowth", 12.5);
-        stats.put("orderGrowth", 8.3);
-        stats.put("customerGrowth", 5.7);
-        stats.put("returnRate", 2.1);
+    // One page of the orders matching `filters`, newest first, older than `before` if given
+    private OrderSearchPage ordersPage(Specification<Order> filters, Long before, int limit) {
+        if (limit < 1 || limit > 200) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 200");
+        }
+        Specification<Order> spec = filters.and(OrderSpecifications.before(before))
+                .and(OrderSpecifications.fetchUsers());
+
+        // One extra row tells us whether another page exists
+        List<Order> rows = orderRepository.findBy(spec,
+                query -> query.sortBy(OrderSpecifications.NEWEST_FIRST).limit(limit + 1).all());
+        List<Order> orders = rows.size() > limit ? rows.subList(0, limit) : rows;
+
+        Map<Long, Long> itemCounts = new HashMap<>();
+        if (!orders.isEmpty()) {
+            for (Object[] row : orderItemRepository.countByOrderIds(orders.stream().map(Order::getId).toList())) {
+                itemCounts.put((Long) row[0], (Long) row[1]);
+            }
+        }
 
-        return stats;
+        OrderSearchPage page = new OrderSearchPage();
+        page.orders = orders.stream().map(o -> AdminOrderSummary.of(o, itemCounts.getOrDefault(o.getId(), 0L))).toList();
+        page.nextBefore = rows.size() > limit ? orders.get(limit - 1).getId() : null;
+        return page;
     }
 
-    // Get recent orders
-    // In AdminController, change getRecentOrders method:
-    @GetMapping("/orders/recent")
-    public List<Order> getRecentOrders(@RequestParam(defaultValue = "10") int limit) {
-        return orderRepository.findAll().stream()
-                .sorted((o1, o2) -> o2.getCreatedAt().compareTo(o1.getCreatedAt()))
-                .limit(limit)
-                .collect(Collectors.toList());
+    public static class ReturnQueuePage {
+        public List<ReturnSummary> returns;
+        // pass back as ?afterRequestedAt=&afterId= for the next page (afterRequestedAt is null when the
+        // last row had no request time); nextAfterId is null on the last page
+        public LocalDateTime nextAfterRequestedAt;
+        public Long nextAfterId;
     }
 
-    // Get returns for admin
+    // Return queue for admin, oldest request first. `status` takes a comma-separated list and
+    // defaults to every return status; from/to are inclusive request dates; a customer is picked
+    // by id or by the start of their email or name.
     @GetMapping("/returns")
-    public List<Map<String, Object>> getReturns() {
-        List<OrderItem> allItems = orderItemRepository.findAll();
-        List<Map<String, Object>> returns = new ArrayList<>();
-
-        for (OrderItem item : allItems) {
-            if (item.getReturnStatus() != null && !item.getReturnStatus().equals("NONE")) {
-                Map<String, Object> returnItem = new HashMap<>();
-                returnItem.put("id", item.getId());
-                returnItem.put("orderId", item.getOrder().getId());
-                returnItem.put("customerName", item.getOrder().getUser().getName());
-                returnItem.put("customerEmail", item.getOrder().getUser().getEmail());
-                returnItem.put("productName", item.getProduct().getName());
-                returnItem.put("quantity", item.getQuantity());
-                returnItem.put("priceAtPurchase", item.getPriceAtPurchase());
-                returnItem.put("returnStatus", item.getReturnStatus());
-                returnItem.put("returnReason", item.getReturnReason());
-                returnItem.put("returnRequestedAt", item.getReturnRequestedAt());
-                returnItem.put("refundAmount", item.getRefundAmount());
-                returns.add(returnItem);
-            }
+    public ReturnQueuePage getReturns(@RequestParam(required = false) List<String> status,
+                                      @RequestParam(required = false) LocalDate from,
+                                      @RequestParam(required = false) LocalDate to,
+                                      @RequestParam(required = false) Long customerId,
+                                      @RequestParam(required = false) String q,
+                                      @RequestParam(required = false) LocalDateTime afterRequestedAt,
+                                      @RequestParam(required = false) Long afterId,
+                                      @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > 200) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 200");
         }
-
-        return returns;
+        // afterId alone continues among the lines that have no request time
+        if (afterRequestedAt != null && afterId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "afterRequestedAt needs afterId");
+        }
+        List<String> statuses = status == null ? List.of()
+                : status.stream().map(s -> s.trim().toUpperCase()).filter(s -> !s.isEmpty()).toList();
+        if (statuses.isEmpty()) statuses = RETURN_STATUSES;
+        String prefix = q == null || q.isBlank() ? null
+                : q.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+
+        // One extra row tells us whether another page exists
+        List<ReturnSummary> rows = orderItemRepository.findReturnQueue(statuses,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                customerId, prefix, afterRequestedAt, afterId, Limit.of(limit + 1));
+
+        ReturnQueuePage page = new ReturnQueuePage();
+        page.returns = rows.size() > limit ? rows.subList(0, limit) : rows;
+        if (rows.size() > limit) {
+            ReturnSummary last = page.returns.get(limit - 1);
+            page.nextAfterRequestedAt = last.returnRequestedAt();
+            page.nextAfterId = last.id();
+        }
+        return page;
     }
 
     // Process return
     @PostMapping("/returns/{id}/process")
     public ResponseEntity<?> processReturn(@PathVariable Long id, @RequestBody Map<String, String> request) {
-        String action = request.get("action");
-
-        OrderItem item = orderItemRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Return not found"));
-
-        if (!Arrays.asList("APPROVED", "REJECTED", "REFUNDED").contains(action)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid action");
-        }
-
-        item.setReturnStatus(action);
-        item.setReturnProcessedAt(LocalDateTime.now());
-
-        if ("REFUNDED".equals(action)) {
-            // Update order payment status
-            Order order = item.getOrder();
-            order.setPaymentStatus("REFUNDED");
-            orderRepository.save(order);
-        }
+        returnService.process(List.of(id), request.get("action"));
+        return ResponseEntity.ok().build();
+    }
 
-        orderItemRepository.save(item);
+    // Approve, reject or refund many returns at once; all of them change or none do
+    @PostMapping("/returns/process")
+    public Map<String, Object> processReturns(@RequestBody BulkReturnRequest req) {
+        if (req.ids == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids required");
+        int processed = returnService.process(req.ids, req.action);
+        return Map.of("processed", processed, "action", req.action);
+    }
 
-        return ResponseEntity.ok().build();
+    public static class BulkReturnRequest {
+        public List<Long> ids;
+        public String action; // APPROVED, REJECTED, REFUNDED
     }
 
-    // Get charts data - Sales over time
+    // Get charts data - Sales over time (net of cancellations and refunds, from sales_daily)
     @GetMapping("/charts/sales")
     public Map<String, Object> getSalesChartData(@RequestParam(defaultValue = "7") int days) {
         Map<String, Object> chartData = new HashMap<>();
@@ -180,25 +253,15 @@ public class AdminController {
         List<Double> values = new ArrayList<>();
 
         LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(days - 1);
-
-        // Get all orders
-        List<Order> allOrders = orderRepository.findAll();
+        LocalDate startDate = endDate.minusDays(chartDays(days) - 1);
 
+        Map<LocalDate, BigDecimal> revenue = new HashMap<>();
+        for (SalesRollupService.DayTotals day : salesRollupService.daily(startDate, endDate)) {
+            revenue.put(day.day(), day.revenue());
+        }
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
             labels.add(date.toString());
-
-            LocalDateTime startOfDay = date.atStartOfDay();
-            LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-
-            double dayTotal = allOrders.stream()
-                    .filter(order -> order.getCreatedAt() != null &&
-                            !order.getCreatedAt().isBefore(startOfDay) &&
-                            !order.getCreatedAt().isAfter(endOfDay))
-                    .mapToDouble(order -> order.getTotal().doubleValue())
-                    .sum();
-
-            values.add(dayTotal);
+            values.add(revenue.getOrDefault(date, BigDecimal.ZERO).doubleValue());
         }
 
         chartData.put("labels", labels);
@@ -207,28 +270,89 @@ public class AdminController {
         return chartData;
     }
 
-    // Get orders by status for chart
-    @GetMapping("/charts/orders-by-status")
-    public Map<String, Object> getOrdersByStatus() {
-        Map<String, Object> chartData = new HashMap<>();
+    @GetMapping("/charts/sales-by-store")
+    public List<SalesRollupService.Share> getSalesByStore(@RequestParam(defaultValue = "30") int days) {
+        LocalDate endDate = LocalDate.now();
+        return salesRollupService.byStore(endDate.minusDays(chartDays(days) - 1), endDate);
+    }
 
-        List<String> statuses = Arrays.asList("PLACED", "ASSIGNED", "PICKED_UP", "DELIVERED", "CANCELLED");
-        List<Long> counts = new ArrayList<>();
+    @GetMapping("/charts/sales-by-category")
+    public List<SalesRollupService.Share> getSalesByCategory(@RequestParam(defaultValue = "30") int days) {
+        LocalDate endDate = LocalDate.now();
+        return salesRollupService.byCategory(endDate.minusDays(chartDays(days) - 1), endDate);
+    }
 
-        List<Order> allOrders = orderRepository.findAll();
-        for (String status : statuses) {
-            long count = allOrders.stream()
-                    .filter(order -> status.equals(order.getStatus()))
-                    .count();
-            counts.add(count);
+    // Recompute the sales rollup from orders; both dates inclusive, whole history by default
+    @PostMapping("/sales-rollup/rebuild")
+    public Map<String, Object> rebuildSalesRollup(@RequestParam(required = false) LocalDate from,
+                                                  @RequestParam(required = false) LocalDate to) {
+        if (from == null && to == null) return Map.of("days", salesRollupService.rebuild());
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to must both be given, from <= to");
         }
+        return Map.of("days", salesRollupService.rebuild(from, to));
+    }
 
-        chartData.put("labels", statuses);
-        chartData.put("values", counts);
+    // Distinct customers today, over the last 7 days and over the last 30 days
+    @GetMapping("/customers/active")
+    public CustomerSketchService.Active getActiveCustomers() {
+        return customerSketchService.active();
+    }
+
+    public static class UniqueCustomers {
+        public long total;
+        public List<CustomerSketchService.Share> byStore;
+        public List<CustomerSketchService.Share> byCategory;
+    }
+
+    // Distinct customers over the last `days` days, overall and per store and category; estimates
+    @GetMapping("/customers/unique")
+    public UniqueCustomers getUniqueCustomers(@RequestParam(defaultValue = "30") int days) {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(chartDays(days) - 1);
+        UniqueCustomers result = new UniqueCustomers();
+        result.total = customerSketchService.uniqueCustomers(startDate, endDate);
+        result.byStore = customerSketchService.byStore(startDate, endDate);
+        result.byCategory = customerSketchService.byCategory(startDate, endDate);
+        return result;
+    }
+
+    // Recompute the customer sketches from orders; both dates inclusive, whole history by default
+    @PostMapping("/customer-sketches/rebuild")
+    public Map<String, Object> rebuildCustomerSketches(@RequestParam(required = false) LocalDate from,
+                                                       @RequestParam(required = false) LocalDate to) {
+        if (from == null && to == null) return Map.of("days", customerSketchService.rebuild());
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to must both be given, from <= to");
+        }
+        return Map.of("days", customerSketchService.rebuild(from, to));
+    }
+
+    private static int chartDays(int days) {
+        if (days < 1 || days > 366) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "days must be between 1 and 366");
+        }
+        return days;
+    }
+
+    // Get orders by status for chart, from the live counters
+    @GetMapping("/charts/orders-by-status")
+    public Map<String, Object> getOrdersByStatus() {
+        Map<String, Object> chartData = new HashMap<>();
+        // Every status with orders, so the slices add up to the order count
+        Map<String, Long> counts = orderStatusCounters.counts();
+        chartData.put("labels", List.copyOf(counts.keySet()));
+        chartData.put("values", List.copyOf(counts.values()));
 
         return chartData;
     }
 
+    // Compare the status counters with the orders table now
+    @PostMapping("/charts/orders-by-status/check")
+    public OrderStatusCounters.Check checkOrderStatusCounters() {
+        return orderStatusCounters.check();
+    }
+
     // Get notifications
     @GetMapping("/notifications")
     public List<Notification> getNotifications() {
@@ -326,6 +450,7 @@ public class AdminController {
     ) {
         // Save image and get URL (store in local folder)
         String imageUrl = null;
+        Path imagePath = null;
         if (image != null && !image.isEmpty()) {
             try {
                 String uploadDir = "uploads/products/";
@@ -342,6 +467,7 @@ public class AdminController {
                 Files.copy(image.getInputStream(), filePath); // optionally add REPLACE_EXISTING
 
                 imageUrl = "/" + uploadDir + fileName;
+                imagePath = filePath;
             } catch (IOException e) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Failed to upload image: " + e.getMessage());
@@ -373,7 +499,11 @@ public class AdminController {
                 product.setWeightKg(weightKg);
             }
 
-            productRepository.save(product);
+            product = productRepository.save(product);
+            catalogService.productSaved(product);
+            if (imagePath != null) {
+                imageVariantService.generateAsync(product.getId(), imagePath, imageUrl);
+            }
             return ResponseEntity.ok(product);
 
         } catch (Exception e) {
@@ -382,20 +512,76 @@ public class AdminController {
         }
     }
 
+    // Bulk import: the request body is the raw CSV (with header) or JSON Lines file, read as it arrives
+    @PostMapping("/products/import")
+    public CatalogBulkService.ImportResult importProducts(@RequestParam(defaultValue = "csv") String format,
+                                                         HttpServletRequest request) throws IOException {
+        try {
+            return catalogBulkService.importProducts(request.getInputStream(), bulkFormat(format));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format) {
+        CatalogBulkService.Format f = bulkFormat(format);
+        String fileName = f == CatalogBulkService.Format.CSV ? "products.csv" : "products.jsonl";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(f == CatalogBulkService.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .body(out -> catalogBulkService.exportProducts(out, f));
+    }
+
+    private static CatalogBulkService.Format bulkFormat(String format) {
+        try {
+            return CatalogBulkService.Format.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or jsonl");
+        }
+    }
+
+    // Flash-sale mode: product id -> units left, for every product currently in it
+    @GetMapping("/flash-sale")
+    public Map<Long, Integer> getFlashSale() {
+        return flashSaleService.active();
+    }
+
+    @PostMapping("/flash-sale/{productId}")
+    public Map<String, Object> startFlashSale(@PathVariable Long productId) {
+        int available = flashSaleService.enable(productId);
+        return Map.of("productId", productId, "available", available);
+    }
+
+    @DeleteMapping("/flash-sale/{productId}")
+    public ResponseEntity<Void> stopFlashSale(@PathVariable Long productId) {
+        flashSaleService.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Post-checkout pipeline health: per-task counters and timings, queue depth, stored tasks
+    @GetMapping("/post-checkout")
+    public Map<String, Object> getPostCheckoutStats() {
+        return Map.of(
+                "tasks", postCheckoutPipeline.stats(),
+                "queued", postCheckoutPipeline.queued(),
+                "stored", postCheckoutPipeline.stored());
+    }
+
     // Get all delivery persons
     @GetMapping("/delivery-persons")
     public List<User> getAllDeliveryPersons() {
         return userRepository.findByRole("DELIVERY");
     }
 
-    // Get unassigned orders
+    // Open orders waiting for a delivery person, newest first
     @GetMapping("/orders/unassigned")
-    public List<Order> getUnassignedOrders() {
-        return orderRepository.findAll().stream()
-                .filter(order -> order.getDeliveryPerson() == null &&
-                        !"DELIVERED".equals(order.getStatus()) &&
-                        !"CANCELLED".equals(order.getStatus()))
-                .toList();
+    public OrderSearchPage getUnassignedOrders(@RequestParam(required = false) Long before,
+                                               @RequestParam(defaultValue = "50") int limit) {
+        return ordersPage(Specification.where(OrderSpecifications.assigned(false))
+                .and(OrderSpecifications.notInStatus(List.of("DELIVERED", "CANCELLED"))), before, limit);
     }
 
     // Assign order to delivery person
@@ -414,22 +600,24 @@ public class AdminController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User is not a delivery person");
         }
 
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
         order.setDeliveryPerson(deliveryPerson);
         order.setStatus("ASSIGNED");
         order.setAssignedAt(LocalDateTime.now());
 
-        orderRepository.save(order);
+        orderEventService.save(order, before);
 
         return ResponseEntity.ok(order);
     }
 
-    // Get assigned orders
+    // Orders out with a delivery person (optionally one of them), newest first
     @GetMapping("/orders/assigned")
-    public List<Order> getAssignedOrders() {
-        return orderRepository.findAll().stream()
-                .filter(order -> order.getDeliveryPerson() != null &&
-                        !"DELIVERED".equals(order.getStatus()))
-                .toList();
+    public OrderSearchPage getAssignedOrders(@RequestParam(required = false) Long deliveryPersonId,
+                                             @RequestParam(required = false) Long before,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        return ordersPage(Specification.where(OrderSpecifications.assigned(true))
+                .and(OrderSpecifications.deliveredBy(deliveryPersonId))
+                .and(OrderSpecifications.notInStatus(List.of("DELIVERED"))), before, limit);
     }
 
     // Get all users with statistics
@@ -466,29 +654,37 @@ public class AdminController {
         return ResponseEntity.ok(savedUser);
     }
 
-    // Get top products
+    public static class TopProduct {
+        public Product product;
+        public int salesCount; // units, net of cancellations and refunds
+    }
+
+    // Get top products from the in-memory tracker; window is today, 7d, 30d or all
     @GetMapping("/products/top")
-    public List<Map<String, Object>> getTopProducts(@RequestParam(defaultValue = "10") int limit) {
-        // Get all order items and count product occurrences
-        Map<Product, Long> productCount = new HashMap<>();
-        List<OrderItem> allItems = orderItemRepository.findAll();
-
-        for (OrderItem item : allItems) {
-            Product product = item.getProduct();
-            productCount.put(product, productCount.getOrDefault(product, 0L) + item.getQuantity());
+    public List<TopProduct> getTopProducts(@RequestParam(defaultValue = "10") int limit,
+                                           @RequestParam(defaultValue = "all") String window) {
+        BestSellerTracker.Window w = switch (window) {
+            case "today" -> BestSellerTracker.Window.TODAY;
+            case "7d" -> BestSellerTracker.Window.WEEK;
+            case "30d" -> BestSellerTracker.Window.MONTH;
+            case "all" -> BestSellerTracker.Window.ALL_TIME;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "window must be today, 7d, 30d or all");
+        };
+        if (limit < 1 || limit > BestSellerTracker.TRACKED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + BestSellerTracker.TRACKED);
         }
-
-        // Sort by count and return top products
-        return productCount.entrySet().stream()
-                .sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> productInfo = new HashMap<>();
-                    productInfo.put("product", entry.getKey());
-                    productInfo.put("salesCount", entry.getValue());
-                    return productInfo;
-                })
-                .toList();
+        CatalogSnapshot catalog = catalogService.snapshot();
+        List<TopProduct> result = new ArrayList<>(limit);
+        for (BestSellerTracker.Entry e : bestSellerTracker.top(w, limit)) {
+            Product p = catalog.get(e.productId());
+            if (p == null) continue; // deleted since it sold
+            TopProduct top = new TopProduct();
+            top.product = p;
+            top.salesCount = e.units();
+            result.add(top);
+        }
+        return result;
     }
 
 // AdminController.java - Add these methods
@@ -2,8 +2,11 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Category;
 import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.service.CatalogVersion;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -13,15 +16,17 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryRepository categoryRepository;
+    private final CatalogVersion catalogVersion;
 
-    public CategoryController(CategoryRepository categoryRepository) {
+    public CategoryController(CategoryRepository categoryRepository, CatalogVersion catalogVersion) {
         this.categoryRepository = categoryRepository;
+        this.catalogVersion = catalogVersion;
     }
 
-    // List categories
+    // List categories (304 when unchanged since the client's copy)
     @GetMapping
-    public List<Category> getAll() {
-        return categoryRepository.findAll();
+    public ResponseEntity<List<Category>> getAll(WebRequest request) {
+        return catalogVersion.conditional(request, categoryRepository::findAll);
     }
 
     // Add a category
@@ -37,6 +42,8 @@ public class CategoryController {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Category already exists");
         }
 
-        return categoryRepository.save(new Category(name));
+        Category saved = categoryRepository.save(new Category(name));
+        catalogVersion.bump();
+        return saved;
     }
 }
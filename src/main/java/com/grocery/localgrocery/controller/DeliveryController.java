@@ -12,6 +12,7 @@ import com.grocery.localgrocery.entity.DeliveryIssue;
 import com.grocery.localgrocery.entity.DeliverySession;
 import com.grocery.localgrocery.repository.DeliveryIssueRepository;
 import com.grocery.localgrocery.repository.DeliverySessionRepository;
+import com.grocery.localgrocery.service.OrderEventService;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -33,15 +34,18 @@ public class DeliveryController {
     private final UserRepository userRepository;
     private final DeliveryIssueRepository issueRepository;
     private final DeliverySessionRepository sessionRepository;
+    private final OrderEventService orderEventService;
 
     public DeliveryController(OrderRepository orderRepository,
                               UserRepository userRepository,
                               DeliveryIssueRepository issueRepository,
-                              DeliverySessionRepository sessionRepository) {
+                              DeliverySessionRepository sessionRepository,
+                              OrderEventService orderEventService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.issueRepository = issueRepository;
         this.sessionRepository = sessionRepository;
+        this.orderEventService = orderEventService;
     }
 
     // Test endpoint
@@ -76,11 +80,12 @@ public class DeliveryController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User is not a delivery person");
         }
 
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
         order.setDeliveryPerson(deliveryPerson);
         order.setStatus("ASSIGNED");
         order.setAssignedAt(LocalDateTime.now());
 
-        return orderRepository.save(order);
+        return orderEventService.save(order, before);
     }
 
     // Update order status (modified to handle PAYMENT_RECEIVED and COD)
@@ -105,6 +110,7 @@ public class DeliveryController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Payment must be received before delivery");
         }
 
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
         order.setStatus(newStatus);
 
         // Set timestamps and COD flag
@@ -128,7 +134,7 @@ public class DeliveryController {
             userRepository.save(deliveryPerson);
         }
 
-        return orderRepository.save(order);
+        return orderEventService.save(order, before);
     }
 
     // New endpoint: upload delivery proof photo
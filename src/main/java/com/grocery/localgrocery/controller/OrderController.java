@@ -2,6 +2,12 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.*;
 import com.grocery.localgrocery.repository.*;
+import com.grocery.localgrocery.service.IdempotencyService;
+import com.grocery.localgrocery.service.OrderEventService;
+import com.grocery.localgrocery.service.OrderService;
+import com.grocery.localgrocery.service.QuoteService;
+import com.grocery.localgrocery.service.ReturnService;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +15,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,25 +23,24 @@ import java.util.Map;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    static final int MAX_HISTORY_PAGE = 50;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final OrderService orderService;
+    private final OrderEventService orderEventService;
+    private final ReturnService returnService;
 
     public OrderController(OrderRepository orderRepository,
                            OrderItemRepository orderItemRepository,
-                           UserRepository userRepository,
-                           ProductRepository productRepository) {
+                           OrderService orderService,
+                           OrderEventService orderEventService,
+                           ReturnService returnService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
-        this.userRepository = userRepository;
-        this.productRepository = productRepository;
-    }
-
-    // Get all orders
-    @GetMapping
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+        this.orderService = orderService;
+        this.orderEventService = orderEventService;
+        this.returnService = returnService;
     }
 
     // Get orders by user ID
@@ -43,21 +49,45 @@ public class OrderController {
         return orderRepository.findByUserId(userId);
     }
 
-    // Get specific order by ID
+    public static class OrderHistoryPage {
+        public List<OrderSummary> orders;
+        public Long nextBefore; // pass as ?before= for the next page; null on the last page
+    }
+
+    // Order history for the list view, newest first, `limit` orders per page. Two selects per page
+    // (orders, then their lines) no matter how long the customer's history is.
+    @GetMapping("/user/{userId}/history")
+    public OrderHistoryPage getOrderHistory(@PathVariable Long userId,
+                                            @RequestParam(required = false) Long before,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE));
+        List<OrderSummary> orders = orderRepository.findHistoryPage(userId,
+                before != null ? before : Long.MAX_VALUE, Limit.of(size + 1));
+
+        OrderHistoryPage page = new OrderHistoryPage();
+        page.orders = orders.size() > size ? orders.subList(0, size) : orders;
+        page.nextBefore = orders.size() > size ? page.orders.get(size - 1).id() : null;
+        if (!page.orders.isEmpty()) {
+            Map<Long, OrderSummary> byId = new HashMap<>();
+            page.orders.forEach(o -> byId.put(o.id(), o));
+            for (OrderLineSummary line : orderItemRepository.findLinesByOrderIds(byId.keySet())) {
+                byId.get(line.orderId()).items().add(line);
+            }
+        }
+        return page;
+    }
+
+    // Get specific order by ID, with its user, delivery person and items in one select
     @GetMapping("/{id}")
     public Order getOrderById(@PathVariable Long id) {
-        return orderRepository.findById(id)
+        return orderRepository.findDetailById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
     }
 
     public static class PlaceOrderRequest {
         public Long userId;
         public String deliveryAddress;
-        public List<Item> items;
-        public Double subtotal;
-        public Double tax;
-        public Double shippingFee;
-        public Double total;
+        public List<Item> items; // totals are priced server-side; see POST /api/orders/quote
         public String promoCode;
         public String paymentMethod;
 
@@ -67,69 +97,31 @@ public class OrderController {
         }
     }
 
+    public static class QuoteRequest {
+        public List<PlaceOrderRequest.Item> items;
+        public String promoCode;
+    }
+
+    // Prices a cart with current catalog prices, shipping, tax and promo code
+    @PostMapping("/quote")
+    public QuoteService.Quote quote(@RequestBody QuoteRequest req) {
+        if (req.items == null || req.items.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "items required");
+        return orderService.quote(req.items, req.promoCode);
+    }
+
     @PostMapping
-    public Order placeOrder(@RequestBody PlaceOrderRequest req) {
+    public Order placeOrder(@RequestBody PlaceOrderRequest req,
+                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1-100 characters");
         if (req.userId == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId required");
         if (req.deliveryAddress == null || req.deliveryAddress.trim().isEmpty())
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "deliveryAddress required");
         if (req.items == null || req.items.isEmpty())
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "items required");
 
-        User user = userRepository.findById(req.userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        Order order = new Order();
-        order.setUser(user);
-        order.setDeliveryAddress(req.deliveryAddress.trim());
-
-        // Calculate totals for validation
-        double calculatedSubtotal = 0;
-        double totalWeight = 0;
-        for (PlaceOrderRequest.Item i : req.items) {
-            Product p = productRepository.findById(i.productId)
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-            calculatedSubtotal += p.getPrice() * i.quantity;
-            totalWeight += p.getWeightKg() * i.quantity;
-        }
-
-        // Use frontend-calculated values, but validate they're reasonable
-        double subtotal = req.subtotal != null ? req.subtotal : calculatedSubtotal;
-        double shippingFee = req.shippingFee != null ? req.shippingFee : calculateShippingFee(totalWeight);
-        double tax = req.tax != null ? req.tax : subtotal * 0.13;
-        double total = req.total != null ? req.total : subtotal + tax + shippingFee;
-
-        order.setSubtotal(java.math.BigDecimal.valueOf(subtotal));
-        order.setTax(java.math.BigDecimal.valueOf(tax));
-        order.setShippingFee(java.math.BigDecimal.valueOf(shippingFee));
-        order.setTotal(java.math.BigDecimal.valueOf(total));
-
-        order = orderRepository.save(order);
-
-        for (PlaceOrderRequest.Item i : req.items) {
-            if (i.quantity <= 0) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be > 0");
-            }
-
-            Product p = productRepository.findById(i.productId)
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
-
-            if (p.getStock() < i.quantity) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for: " + p.getName());
-            }
-
-            // reduce stock
-            p.setStock(p.getStock() - i.quantity);
-            productRepository.save(p);
-
-            OrderItem oi = new OrderItem();
-            oi.setOrder(order);
-            oi.setProduct(p);
-            oi.setQuantity(i.quantity);
-            oi.setPriceAtPurchase(p.getPrice());
-            orderItemRepository.save(oi);
-        }
-
-        return order;
+        return orderService.placeOrder(req, idempotencyKey);
     }
 
     // Add delivery notes endpoint
@@ -177,6 +169,7 @@ public class OrderController {
         }
 
         // Update return status
+        String returnStatusBefore = item.getReturnStatus();
         item.setReturnStatus("REQUESTED");
         item.setReturnReason(req.reason);
         item.setReturnDescription(req.description + " | Policy: " + req.policy);
@@ -185,7 +178,7 @@ public class OrderController {
         // Calculate refund amount (full amount for now)
         item.setRefundAmount(item.getPriceAtPurchase() * item.getQuantity());
 
-        orderItemRepository.save(item);
+        orderEventService.saveItem(item, returnStatusBefore, null);
 
         // You can add notification logic here for admin
         // notifyAdminAboutReturn(orderId, itemId, req.reason);
@@ -202,30 +195,24 @@ public class OrderController {
         return orderItemRepository.findByReturnStatusNot("NONE");
     }
 
-    // Update return status (for admin)
+    // Update return status (for admin). Same rules as the admin return queue.
     @PostMapping("/{orderId}/items/{itemId}/return-status")
-    public OrderItem updateReturnStatus(@PathVariable Long orderId,
-                                        @PathVariable Long itemId,
-                                        @RequestBody ReturnStatusRequest req) {
+    public ResponseEntity<?> updateReturnStatus(@PathVariable Long orderId,
+                                                @PathVariable Long itemId,
+                                                @RequestBody ReturnStatusRequest req) {
 
-        OrderItem item = orderItemRepository.findById(itemId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order item not found"));
+        List<Object[]> state = orderItemRepository.findReturnStates(List.of(itemId));
+        if (state.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order item not found");
+        }
 
         // Verify item belongs to order
-        if (!item.getOrder().getId().equals(orderId)) {
+        if (!orderId.equals(state.get(0)[2])) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Item does not belong to this order");
         }
 
-        item.setReturnStatus(req.status);
-        item.setReturnProcessedAt(LocalDateTime.now());
-
-        // If refunded, update payment status
-        if ("REFUNDED".equals(req.status)) {
-            item.getOrder().setPaymentStatus("REFUND_PROCESSED");
-            orderRepository.save(item.getOrder());
-        }
-
-        return orderItemRepository.save(item);
+        returnService.process(List.of(itemId), req.status);
+        return ResponseEntity.ok().build();
     }
 
     // Request classes
@@ -266,6 +253,7 @@ public class OrderController {
         }
 
         // Update order
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
         order.setStatus("CANCELLED");
         order.setCancelledAt(LocalDateTime.now());
         order.setCancelledBy(userId);
@@ -274,20 +262,11 @@ public class OrderController {
         // If payment was made, you might want to mark as refund_pending, but for now keep as is
         order.setPaymentStatus("CANCELLED"); // optional
 
-        orderRepository.save(order);
+        orderEventService.save(order, before);
 
         return ResponseEntity.ok(Map.of(
                 "message", "Order cancelled successfully",
                 "orderId", orderId
         ));
     }
-
-    private double calculateShippingFee(double totalWeight) {
-        // Shipping fee calculation: 100 base + 50 per additional kg
-        // 1kg = 100, 2kg = 150, 3kg = 200, 4kg = 250, etc.
-        if (totalWeight <= 0) return 0;
-        if (totalWeight <= 1) return 100;
-        return 100 + (Math.ceil(totalWeight - 1) * 50);
-    }
 }
-
@@ -0,0 +1,86 @@
+package com.grocery.localgrocery.controller;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.repository.OrderEventRepository;
+import com.grocery.localgrocery.service.OrderEventService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+// Change feed of order, payment and return status transitions. A consumer reads a page after its
+// offset, processes it and then commits `next`; until it commits, polling returns the same page.
+@RestController
+@RequestMapping("/api/order-events")
+public class OrderEventController {
+
+    static final int MAX_FEED_PAGE = 1000;
+
+    private final OrderEventService orderEventService;
+    private final OrderEventRepository orderEventRepository;
+
+    public OrderEventController(OrderEventService orderEventService,
+                                OrderEventRepository orderEventRepository) {
+        this.orderEventService = orderEventService;
+        this.orderEventRepository = orderEventRepository;
+    }
+
+    // Events with id > after, oldest first
+    @GetMapping
+    public FeedPage read(@RequestParam(defaultValue = "0") long after,
+                         @RequestParam(defaultValue = "100") int limit) {
+        if (after < 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after must not be negative");
+        if (limit < 1 || limit > MAX_FEED_PAGE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_FEED_PAGE);
+        return FeedPage.of(orderEventService.read(after, limit), after);
+    }
+
+    // Full transition history of one order
+    @GetMapping("/orders/{orderId}")
+    public List<OrderEvent> forOrder(@PathVariable Long orderId) {
+        return orderEventRepository.findByOrderIdOrderByIdAsc(orderId);
+    }
+
+    // The next page for a named consumer, starting after its committed offset
+    @GetMapping("/consumers/{consumer}/poll")
+    public FeedPage poll(@PathVariable String consumer,
+                         @RequestParam(defaultValue = "100") int limit) {
+        return read(orderEventService.offset(checkName(consumer)), limit);
+    }
+
+    @GetMapping("/consumers/{consumer}/offset")
+    public Map<String, Object> getOffset(@PathVariable String consumer) {
+        return Map.of("consumer", consumer, "offset", orderEventService.offset(checkName(consumer)));
+    }
+
+    @PostMapping("/consumers/{consumer}/offset")
+    public Map<String, Object> commitOffset(@PathVariable String consumer, @RequestBody OffsetRequest req) {
+        if (req.offset == null || req.offset < 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset required");
+        return Map.of("consumer", consumer, "offset", orderEventService.commit(checkName(consumer), req.offset));
+    }
+
+    private static String checkName(String consumer) {
+        if (consumer.isBlank() || consumer.length() > 100)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "consumer must be 1-100 characters");
+        return consumer;
+    }
+
+    public static class FeedPage {
+        public List<OrderEvent> events;
+        public long next; // commit this, or pass it as `after`, once the events are processed
+
+        static FeedPage of(List<OrderEvent> events, long after) {
+            FeedPage page = new FeedPage();
+            page.events = events;
+            page.next = events.isEmpty() ? after : events.get(events.size() - 1).getId();
+            return page;
+        }
+    }
+
+    public static class OffsetRequest {
+        public Long offset;
+    }
+}
@@ -5,11 +5,24 @@ import com.grocery.localgrocery.entity.Product;
 import com.grocery.localgrocery.entity.Store;
 import com.grocery.localgrocery.repository.CategoryRepository;
 import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.ProductSpecifications;
+import com.grocery.localgrocery.repository.ProductSpecifications.SortKey;
+import com.grocery.localgrocery.repository.ProductSummary;
 import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.service.CatalogService;
+import com.grocery.localgrocery.service.CatalogVersion;
+import com.grocery.localgrocery.service.ImageVariantService;
+import com.grocery.localgrocery.service.RecommendationService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 @RestController
@@ -19,40 +32,144 @@ public class ProductController {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final StoreRepository storeRepository;
+    private final CatalogService catalogService;
+    private final CatalogVersion catalogVersion;
+    private final RecommendationService recommendationService;
+    private final ImageVariantService imageVariantService;
 
     public ProductController(ProductRepository productRepository,
                              CategoryRepository categoryRepository,
-                             StoreRepository storeRepository) {
+                             StoreRepository storeRepository,
+                             CatalogService catalogService,
+                             CatalogVersion catalogVersion,
+                             RecommendationService recommendationService,
+                             ImageVariantService imageVariantService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.storeRepository = storeRepository;
+        this.catalogService = catalogService;
+        this.catalogVersion = catalogVersion;
+        this.recommendationService = recommendationService;
+        this.imageVariantService = imageVariantService;
     }
 
-    // Single GET with optional filters
+    // Single GET with optional filters, served from the in-memory catalog snapshot.
+    // Answers 304 when the client already holds the current catalog version.
     @GetMapping
-    public List<Product> getAll(@RequestParam(required = false) Long categoryId,
+    public ResponseEntity<List<Product>> getAll(@RequestParam(required = false) Long categoryId,
+                                                @RequestParam(required = false) Long storeId,
+                                                @RequestParam(required = false) String q,
+                                                WebRequest request) {
+        return catalogVersion.conditional(request, () -> catalogService.list(categoryId, storeId, q));
+    }
+
+    public static class CatalogResponse {
+        public long version; // pass to /changes?since= to sync from here
+        public List<ProductSummary> products;
+        public List<Category> categories;
+        public List<Store> stores;
+    }
+
+    // Whole catalog for the shop page in one compact payload: slim product rows plus
+    // each category and store sent once, instead of nested in every product
+    @GetMapping("/catalog")
+    public ResponseEntity<CatalogResponse> getCatalog(WebRequest request) {
+        return catalogVersion.conditional(request, () -> {
+            CatalogResponse catalog = new CatalogResponse();
+            // Read before the rows: a write in between is then re-sent, never missed
+            catalog.version = catalogService.syncVersion();
+            catalog.products = productRepository.findAllSummaries();
+            catalog.categories = categoryRepository.findAll();
+            catalog.stores = storeRepository.findAll();
+            return catalog;
+        });
+    }
+
+    public static class CatalogChanges {
+        public long version;
+        public boolean reset; // true: reload /catalog instead of applying a delta
+        public List<ProductSummary> products; // created or updated, current state
+        public List<Long> deleted;
+    }
+
+    // Delta sync for clients holding a copy of /catalog
+    @GetMapping("/changes")
+    public CatalogChanges getChanges(@RequestParam long since) {
+        CatalogService.Changes changes = catalogService.changesSince(since);
+        CatalogChanges response = new CatalogChanges();
+        response.version = changes.version;
+        response.reset = changes.reset;
+        response.products = changes.updated.stream().map(ProductSummary::of).toList();
+        response.deleted = changes.deleted;
+        return response;
+    }
+
+    // Ranked keyword search (prefix, typo-tolerant and romanization-aware)
+    @GetMapping("/search")
+    public List<Product> search(@RequestParam String q,
+                                @RequestParam(required = false) Long categoryId,
                                 @RequestParam(required = false) Long storeId,
-                                @RequestParam(required = false) String q) {
+                                @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 100");
+        }
+        return catalogService.search(q, categoryId, storeId, limit);
+    }
 
-        List<Product> all = productRepository.findAll();
+    public static class ProductPage {
+        public List<Product> items;
+        public String nextCursor; // null when there are no more rows
+    }
 
-        if (categoryId != null) {
-            all = all.stream()
-                    .filter(p -> p.getCategory() != null && categoryId.equals(p.getCategory().getId()))
-                    .toList();
+    // Keyset-paginated listing; filters and ordering run in the database
+    @GetMapping("/page")
+    public ProductPage getPage(@RequestParam(required = false) Long categoryId,
+                               @RequestParam(required = false) Long storeId,
+                               @RequestParam(required = false) Double minPrice,
+                               @RequestParam(required = false) Double maxPrice,
+                               @RequestParam(defaultValue = "name") String sort,
+                               @RequestParam(defaultValue = "20") int limit,
+                               @RequestParam(required = false) String after) {
+        if (limit < 1 || limit > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 100");
         }
-        if (storeId != null) {
-            all = all.stream()
-                    .filter(p -> p.getStore() != null && storeId.equals(p.getStore().getId()))
-                    .toList();
+        SortKey key;
+        try {
+            key = SortKey.valueOf(sort.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be price, name or popularity");
         }
-        if (q != null && !q.trim().isEmpty()) {
-            String s = q.trim().toLowerCase();
-            all = all.stream()
-                    .filter(p -> p.getName() != null && p.getName().toLowerCase().contains(s))
-                    .toList();
+
+        Specification<Product> spec = Specification.where(ProductSpecifications.inCategory(categoryId))
+                .and(ProductSpecifications.inStore(storeId))
+                .and(ProductSpecifications.priceAtLeast(minPrice))
+                .and(ProductSpecifications.priceAtMost(maxPrice))
+                .and(ProductSpecifications.fetchCategoryAndStore());
+        if (after != null && !after.isBlank()) {
+            Object[] position = decodeCursor(after, key);
+            spec = spec.and(ProductSpecifications.after(key, (Comparable<?>) position[0], (Long) position[1]));
         }
-        return all;
+
+        // One extra row tells us whether another page exists
+        List<Product> rows = productRepository.findBy(spec, q -> q.sortBy(key.sort()).limit(limit + 1).all());
+
+        ProductPage page = new ProductPage();
+        page.items = rows.size() > limit ? rows.subList(0, limit) : rows;
+        if (rows.size() > limit) {
+            Product last = page.items.get(limit - 1);
+            page.nextCursor = encodeCursor(key, key.valueOf(last), last.getId());
+        }
+        return page;
+    }
+
+    // Products frequently bought with the given cart items, in stock only
+    @GetMapping("/recommended")
+    public List<Product> recommended(@RequestParam(required = false) List<Long> cart,
+                                     @RequestParam(defaultValue = "4") int limit) {
+        if (limit < 1 || limit > 50) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and 50");
+        }
+        return recommendationService.recommend(cart != null ? cart : List.of(), limit);
     }
 
     // Get single product by ID (ADD THIS IF MISSING)
@@ -113,7 +230,9 @@ public class ProductController {
             p.setImageUrl(req.imageUrl);
         }
 
-        return productRepository.save(p);
+        Product saved = productRepository.save(p);
+        catalogService.productSaved(saved);
+        return saved;
     }
 
     // ✅ ADD UPDATE endpoint for editing products (including weight)
@@ -137,8 +256,13 @@ public class ProductController {
         if (req.description != null) {
             p.setDescription(req.description);
         }
-        if (req.imageUrl != null) {
+        boolean imageChanged = req.imageUrl != null && !req.imageUrl.equals(p.getImageUrl());
+        if (imageChanged) {
             p.setImageUrl(req.imageUrl);
+            // Variants belong to the old image; fall back to the original until regenerated
+            p.setThumbnailUrl(null);
+            p.setCardImageUrl(null);
+            p.setDetailImageUrl(null);
         }
         if (req.categoryId != null) {
             Category category = categoryRepository.findById(req.categoryId)
@@ -151,6 +275,52 @@ public class ProductController {
             p.setStore(store);
         }
 
-        return productRepository.save(p);
+        Product saved = productRepository.save(p);
+        catalogService.productSaved(saved);
+        if (imageChanged) {
+            imageVariantService.generateAsync(saved.getId(), saved.getImageUrl());
+        }
+        return saved;
+    }
+
+    // Products already on orders can't be deleted; set their stock to 0 instead
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id) {
+        if (!productRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        try {
+            productRepository.deleteById(id); // commits here, so FK violations surface here
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product has orders; set its stock to 0 instead");
+        }
+        catalogService.productDeleted(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Cursor = base64url("SORT|value|id"); opaque to clients
+    private static String encodeCursor(SortKey key, Object value, Long id) {
+        String raw = key.name() + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] decodeCursor(String cursor, SortKey key) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || last <= first || !raw.substring(0, first).equals(key.name())) {
+                throw new IllegalArgumentException(raw);
+            }
+            String value = raw.substring(first + 1, last);
+            Long id = Long.valueOf(raw.substring(last + 1));
+            return switch (key) {
+                case PRICE -> new Object[]{Double.valueOf(value), id};
+                case NAME -> new Object[]{value, id};
+                case POPULARITY -> new Object[]{Long.valueOf(value), id};
+            };
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor for this sort");
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,8 +2,11 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Store;
 import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.service.CatalogVersion;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -13,14 +16,16 @@ import java.util.List;
 public class StoreController {
 
     private final StoreRepository storeRepository;
+    private final CatalogVersion catalogVersion;
 
-    public StoreController(StoreRepository storeRepository) {
+    public StoreController(StoreRepository storeRepository, CatalogVersion catalogVersion) {
         this.storeRepository = storeRepository;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping
-    public List<Store> getAll() {
-        return storeRepository.findAll();
+    public ResponseEntity<List<Store>> getAll(WebRequest request) {
+        return catalogVersion.conditional(request, storeRepository::findAll);
     }
 
     public static class CreateStoreRequest {
@@ -39,7 +44,9 @@ public class StoreController {
         s.setLocation(req.location == null ? "" : req.location.trim());
 
         try {
-            return storeRepository.save(s);
+            Store saved = storeRepository.save(s);
+            catalogVersion.bump();
+            return saved;
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Store name already exists");
         }
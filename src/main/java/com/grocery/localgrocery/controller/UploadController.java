@@ -0,0 +1,176 @@
+package com.grocery.localgrocery.controller;
+
+import com.grocery.localgrocery.service.UploadFileCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+// Serves uploaded product images and delivery proofs from the uploads folder.
+// Small files come from an in-memory LRU; larger ones are handed to Tomcat's sendfile when the
+// connector supports it, otherwise streamed with FileChannel.transferTo. Single byte ranges are honoured.
+@RestController
+public class UploadController {
+
+    // Uploads are stored as "<uuid>_<name>" and never rewritten, so browsers may keep them forever
+    private static final Pattern IMMUTABLE_NAME =
+            Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}_.*");
+    private static final String IMMUTABLE_CACHE = CacheControl.maxAge(Duration.ofDays(365))
+            .cachePublic().immutable().getHeaderValue();
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    private static final String PREFIX = "/uploads/";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+    private final UploadFileCache cache;
+
+    public UploadController(@Value("${app.uploads.dir:uploads}") String uploadsDir, UploadFileCache cache) {
+        this.root = Paths.get(uploadsDir).toAbsolutePath().normalize();
+        this.cache = cache;
+    }
+
+    @GetMapping("/uploads/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // The attribute holds the path as sent, still percent-encoded; names may contain spaces
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        path = UriUtils.decode(path, StandardCharsets.UTF_8);
+        if (!path.startsWith(PREFIX)) { // a bare /uploads names no file
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path file = root.resolve(path.substring(PREFIX.length())).normalize();
+        if (!file.startsWith(root)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attrs.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+        String fileName = file.getFileName().toString();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_NAME.matcher(fileName).matches()
+                ? IMMUTABLE_CACHE : CacheControl.noCache().getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        // Read small files before sizing the response: a file replaced since the stat above is
+        // served as read, so the range and Content-Length must follow the bytes actually sent
+        byte[] cached = "HEAD".equals(request.getMethod()) ? null : cache.read(file, size, lastModified);
+        if (cached != null) size = cached.length;
+
+        long start = 0;
+        long end = size; // exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        long length = end - start;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) return;
+
+        if (cached != null) {
+            response.getOutputStream().write(cached, (int) start, (int) length);
+            return;
+        }
+
+        if (length >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache to the socket after we return
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) break;
+                position += sent;
+            }
+        }
+    }
+
+    // {start, endExclusive} for a single satisfiable range, {} to ignore the header (multiple or
+    // malformed ranges get the whole file), null when the range lies beyond the end of the file
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            if (from.isEmpty()) {
+                if (to.isEmpty()) return new long[0];
+                long suffix = Long.parseLong(to);
+                if (suffix == 0) return null;
+                return new long[]{Math.max(0, size - suffix), size};
+            }
+            long start = Long.parseLong(from);
+            long last = to.isEmpty() ? size - 1 : Math.min(Long.parseLong(to), size - 1);
+            if (start >= size) return null;
+            if (last < start) return new long[0];
+            return new long[]{start, last + 1};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
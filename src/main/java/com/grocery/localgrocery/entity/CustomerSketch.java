@@ -0,0 +1,41 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// HyperLogLog sketch of the customers who placed an order on a day: one total row
+// (storeId = categoryId = ALL), one per store and one per category, keyed like SalesDaily.
+// Written by CustomerSketchService with plain SQL.
+@Entity
+@Table(name = "customer_sketches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_customer_sketches_key", columnNames = {"sketch_date", "store_id", "category_id"})
+})
+public class CustomerSketch {
+
+    public static final long ALL = SalesDaily.ALL;
+    public static final long NONE = SalesDaily.NONE;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sketch_date", nullable = false)
+    private LocalDate sketchDate;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false, length = 3073)
+    private byte[] registers; // HyperLogLog.toBytes()
+
+    public CustomerSketch() {}
+
+    public Long getId() { return id; }
+    public LocalDate getSketchDate() { return sketchDate; }
+    public Long getStoreId() { return storeId; }
+    public Long getCategoryId() { return categoryId; }
+    public byte[] getRegisters() { return registers; }
+}
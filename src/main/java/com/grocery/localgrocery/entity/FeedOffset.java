@@ -0,0 +1,26 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// How far a named change-feed consumer has got: the last order_events id it has processed
+@Entity
+@Table(name = "order_feed_offsets")
+public class FeedOffset {
+
+    @Id
+    @Column(length = 100)
+    private String consumer;
+
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public FeedOffset() {}
+
+    public String getConsumer() { return consumer; }
+    public Long getLastEventId() { return lastEventId; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
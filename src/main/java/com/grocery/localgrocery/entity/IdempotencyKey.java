@@ -0,0 +1,39 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Remembers which order an Idempotency-Key produced, so a retried POST /api/orders returns that
+// order instead of placing another. The primary key doubles as the lock that makes two
+// concurrent requests with the same key wait for each other.
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created", columnList = "created_at")
+})
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    // IdempotencyService.fingerprint of the request that claimed the key
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey() {}
+
+    public String getKey() { return key; }
+    public Long getUserId() { return userId; }
+    public Long getOrderId() { return orderId; }
+    public String getRequestHash() { return requestHash; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
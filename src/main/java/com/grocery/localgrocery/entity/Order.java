@@ -7,7 +7,14 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_id_id", columnList = "user_id, id"),
+        // Admin order search: one per filter, each ending in id for the newest-first seek
+        @Index(name = "idx_orders_status_id", columnList = "status, id"),
+        @Index(name = "idx_orders_delivery_user_id_id", columnList = "delivery_user_id, id"),
+        @Index(name = "idx_orders_payment_method_id", columnList = "payment_method, id"),
+        @Index(name = "idx_orders_created_at", columnList = "created_at")
+})
 public class Order {
 
     @Id
@@ -0,0 +1,58 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One row per order state transition, written in the same transaction as the change itself.
+// The id is the change-feed offset: a consumer that has processed event N asks for id > N.
+@Entity
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_order", columnList = "order_id")
+})
+public class OrderEvent {
+
+    public static final String ORDER_STATUS = "ORDER_STATUS";
+    public static final String PAYMENT_STATUS = "PAYMENT_STATUS";
+    public static final String RETURN_STATUS = "RETURN_STATUS"; // orderItemId says which line
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "order_item_id")
+    private Long orderItemId;
+
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String type;
+
+    @Column(name = "from_value", length = 30)
+    private String fromValue; // null for a newly placed order
+
+    @Column(name = "to_value", length = 30)
+    private String toValue;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OrderEvent() {}
+
+    public OrderEvent(Long orderId, Long orderItemId, String type, String fromValue, String toValue) {
+        this.orderId = orderId;
+        this.orderItemId = orderItemId;
+        this.type = type;
+        this.fromValue = fromValue;
+        this.toValue = toValue;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getOrderId() { return orderId; }
+    public Long getOrderItemId() { return orderItemId; }
+    public String getType() { return type; }
+    public String getFromValue() { return fromValue; }
+    public String getToValue() { return toValue; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
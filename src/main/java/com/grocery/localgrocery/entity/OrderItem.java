@@ -1,11 +1,15 @@
 package com.grocery.localgrocery.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_stock_applied", columnList = "stock_applied"),
+        @Index(name = "idx_order_items_return_queue", columnList = "return_status, return_requested_at, id")
+})
 public class OrderItem {
 
     @Id
@@ -47,6 +51,11 @@ public class OrderItem {
     @Column(name = "refund_amount")
     private Double refundAmount;
 
+    // false while a flash-sale reservation is still waiting to be written to products.stock
+    @JsonIgnore
+    @Column(name = "stock_applied")
+    private Boolean stockApplied = true;
+
     public OrderItem() {}
 
     // Getters and setters for all fields
@@ -61,6 +70,7 @@ public class OrderItem {
     public LocalDateTime getReturnRequestedAt() { return returnRequestedAt; }
     public LocalDateTime getReturnProcessedAt() { return returnProcessedAt; }
     public Double getRefundAmount() { return refundAmount; }
+    public Boolean getStockApplied() { return stockApplied; }
 
     public void setOrder(Order order) { this.order = order; }
     public void setProduct(Product product) { this.product = product; }
@@ -72,4 +82,5 @@ public class OrderItem {
     public void setReturnRequestedAt(LocalDateTime returnRequestedAt) { this.returnRequestedAt = returnRequestedAt; }
     public void setReturnProcessedAt(LocalDateTime returnProcessedAt) { this.returnProcessedAt = returnProcessedAt; }
     public void setRefundAmount(Double refundAmount) { this.refundAmount = refundAmount; }
+    public void setStockApplied(Boolean stockApplied) { this.stockApplied = stockApplied; }
 }
\ No newline at end of file
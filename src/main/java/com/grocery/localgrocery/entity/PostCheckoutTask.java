@@ -0,0 +1,49 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Post-checkout work that could not run from the in-memory queue: the queue was full, the task
+// failed and waits for a retry, or the application stopped before a worker got to it
+@Entity
+@Table(name = "post_checkout_tasks", indexes = {
+        @Index(name = "idx_post_checkout_tasks_due", columnList = "next_attempt_at")
+})
+public class PostCheckoutTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_type", nullable = false, length = 30)
+    private String type;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(length = 2000)
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt; // null once the task has used up its attempts
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public PostCheckoutTask() {}
+
+    public Long getId() { return id; }
+    public String getType() { return type; }
+    public Long getOrderId() { return orderId; }
+    public String getPayload() { return payload; }
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -4,7 +4,13 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_name", columnList = "name, id"),
+        @Index(name = "idx_products_sales", columnList = "sales_count, id"),
+        @Index(name = "idx_products_category_price", columnList = "category_id, price, id"),
+        @Index(name = "idx_products_store_price", columnList = "store_id, price, id")
+})
 public class Product {
 
     @Id
@@ -34,9 +40,24 @@ public class Product {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Downscaled copies of imageUrl, filled in asynchronously after upload; null until ready
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "card_image_url")
+    private String cardImageUrl;
+
+    @Column(name = "detail_image_url")
+    private String detailImageUrl;
+
     @Column(name = "weight_kg")
     private double weightKg;
 
+    // Units sold, used for popularity sorting. Only checkout's SQL increments it: an entity save
+    // would write back whatever count it read, losing the sales made in between.
+    @Column(name = "sales_count", updatable = false)
+    private long salesCount;
+
     public Product() {}
 
     // Getters and setters
@@ -48,7 +69,11 @@ public class Product {
     public Store getStore() { return store; }
     public String getDescription() { return description; }
     public String getImageUrl() { return imageUrl; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public String getCardImageUrl() { return cardImageUrl; }
+    public String getDetailImageUrl() { return detailImageUrl; }
     public double getWeightKg() { return weightKg; }
+    public long getSalesCount() { return salesCount; }
 
     public void setName(String name) { this.name = name; }
     public void setPrice(double price) { this.price = price; }
@@ -57,5 +82,9 @@ public class Product {
     public void setStore(Store store) { this.store = store; }
     public void setDescription(String description) { this.description = description; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    public void setCardImageUrl(String cardImageUrl) { this.cardImageUrl = cardImageUrl; }
+    public void setDetailImageUrl(String detailImageUrl) { this.detailImageUrl = detailImageUrl; }
     public void setWeightKg(double weightKg) { this.weightKg = weightKg; }
+    public void setSalesCount(long salesCount) { this.salesCount = salesCount; }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One row per catalog write. The id doubles as the catalog's sync version: a client that has
+// seen version N asks for rows with id > N.
+@Entity
+@Table(name = "product_changes", indexes = {
+        @Index(name = "idx_product_changes_product", columnList = "product_id")
+})
+public class ProductChange {
+
+    public static final String UPSERT = "UPSERT";
+    public static final String DELETE = "DELETE";
+    public static final String RESET = "RESET"; // bulk change; clients must reload everything
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id")
+    private Long productId; // null for RESET
+
+    @Column(name = "change_type", nullable = false, length = 10)
+    private String type;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public ProductChange() {}
+
+    public ProductChange(Long productId, String type) {
+        this.productId = productId;
+        this.type = type;
+        this.changedAt = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public Long getProductId() { return productId; }
+    public String getType() { return type; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
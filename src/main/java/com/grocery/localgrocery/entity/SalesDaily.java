@@ -0,0 +1,56 @@
+package com.grocery.localgrocery.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Net sales per day of order placement: cancelled orders and refunded lines are taken back out.
+// Each day has a total row (storeId = categoryId = ALL), one row per store (categoryId = ALL)
+// and one per category (storeId = ALL); NONE stands for a product without a store or category.
+// A key is spread over a few slots so concurrent checkouts don't queue on one row lock; readers
+// sum the slots.
+@Entity
+@Table(name = "sales_daily", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_daily_key", columnNames = {"sales_date", "store_id", "category_id", "slot"})
+})
+public class SalesDaily {
+
+    public static final long ALL = -1;
+    public static final long NONE = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "item_count", nullable = false)
+    private long itemCount; // units
+
+    public SalesDaily() {}
+
+    public Long getId() { return id; }
+    public LocalDate getSalesDate() { return salesDate; }
+    public Long getStoreId() { return storeId; }
+    public Long getCategoryId() { return categoryId; }
+    public int getSlot() { return slot; }
+    public BigDecimal getRevenue() { return revenue; }
+    public long getOrderCount() { return orderCount; }
+    public long getItemCount() { return itemCount; }
+}
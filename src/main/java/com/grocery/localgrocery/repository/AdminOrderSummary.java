@@ -0,0 +1,37 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Admin order table row: customer and delivery person flattened, items counted rather than loaded
+public record AdminOrderSummary(Long id,
+                                LocalDateTime createdAt,
+                                String status,
+                                BigDecimal total,
+                                String paymentMethod,
+                                String paymentStatus,
+                                Long customerId,
+                                String customerName,
+                                String customerEmail,
+                                Long deliveryPersonId,
+                                String deliveryPersonName,
+                                long itemCount,
+                                String cancelReason,
+                                LocalDateTime cancelledAt) {
+
+    public static AdminOrderSummary of(Order o, long itemCount) {
+        User customer = o.getUser();
+        User delivery = o.getDeliveryPerson();
+        return new AdminOrderSummary(o.getId(), o.getCreatedAt(), o.getStatus(), o.getTotal(),
+                o.getPaymentMethod(), o.getPaymentStatus(),
+                customer != null ? customer.getId() : null,
+                customer != null ? customer.getName() : null,
+                customer != null ? customer.getEmail() : null,
+                delivery != null ? delivery.getId() : null,
+                delivery != null ? delivery.getName() : null,
+                itemCount, o.getCancelledReason(), o.getCancelledAt());
+    }
+}
@@ -0,0 +1,7 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+}
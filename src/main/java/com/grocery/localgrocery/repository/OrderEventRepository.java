@@ -0,0 +1,14 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    List<OrderEvent> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    List<OrderEvent> findByOrderIdOrderByIdAsc(Long orderId);
+}
@@ -1,9 +1,12 @@
 package com.grocery.localgrocery.repository;
 
 import com.grocery.localgrocery.entity.OrderItem;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -11,13 +14,57 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
     long countByReturnStatus(String status);
 
-    @Query("SELECT oi.id, o.id, u.name, u.email, p.name, oi.quantity, oi.priceAtPurchase, " +
-            "oi.returnStatus, oi.returnReason, oi.returnRequestedAt, oi.refundAmount " +
+    // Lines of the orders placed in [from, to), and how many of them have a return request
+    @Query("SELECT COUNT(oi), COALESCE(SUM(CASE WHEN oi.returnStatus <> 'NONE' THEN 1 ELSE 0 END), 0) " +
+            "FROM OrderItem oi WHERE oi.order.createdAt >= :from AND oi.order.createdAt < :to")
+    List<Object[]> countReturnsPlaced(LocalDateTime from, LocalDateTime to);
+
+    // A page of the admin return queue, oldest request first and lines without a request time
+    // before all others. Optional filters are null; the cursor is the (returnRequestedAt, id) of the
+    // last row of the previous page, with a null afterRequestedAt when that row had no request time.
+    @Query("SELECT new com.grocery.localgrocery.repository.ReturnSummary(" +
+            "oi.id, o.id, u.id, u.name, u.email, p.name, oi.quantity, oi.priceAtPurchase, " +
+            "oi.returnStatus, oi.returnReason, oi.returnRequestedAt, oi.refundAmount) " +
             "FROM OrderItem oi " +
             "JOIN oi.order o " +
             "JOIN o.user u " +
             "JOIN oi.product p " +
-            "WHERE oi.returnStatus != 'NONE' " +
-            "ORDER BY oi.returnRequestedAt DESC")
-    List<Object[]> findReturnsForAdmin();
-}
\ No newline at end of file
+            "WHERE oi.returnStatus IN :statuses " +
+            "AND (:requestedFrom IS NULL OR oi.returnRequestedAt >= :requestedFrom) " +
+            "AND (:requestedBefore IS NULL OR oi.returnRequestedAt < :requestedBefore) " +
+            "AND (:customerId IS NULL OR u.id = :customerId) " +
+            "AND (:customerPrefix IS NULL OR u.id IN (SELECT c.id FROM User c " +
+            "WHERE c.email LIKE :customerPrefix ESCAPE '\\' OR c.name LIKE :customerPrefix ESCAPE '\\')) " +
+            "AND (:afterId IS NULL " +
+            "OR (:afterRequestedAt IS NULL AND (oi.returnRequestedAt IS NOT NULL OR oi.id > :afterId)) " +
+            "OR oi.returnRequestedAt > :afterRequestedAt " +
+            "OR (oi.returnRequestedAt = :afterRequestedAt AND oi.id > :afterId)) " +
+            "ORDER BY oi.returnRequestedAt NULLS FIRST, oi.id")
+    List<ReturnSummary> findReturnQueue(Collection<String> statuses,
+                                        LocalDateTime requestedFrom,
+                                        LocalDateTime requestedBefore,
+                                        Long customerId,
+                                        String customerPrefix,
+                                        LocalDateTime afterRequestedAt,
+                                        Long afterId,
+                                        Limit limit);
+
+    // (itemId, returnStatus, orderId, order paymentStatus) for the given lines
+    @Query("SELECT oi.id, oi.returnStatus, o.id, o.paymentStatus FROM OrderItem oi JOIN oi.order o WHERE oi.id IN :ids")
+    List<Object[]> findReturnStates(Collection<Long> ids);
+
+    // (orderId, productId) for every order line, grouped by order
+    @Query("SELECT oi.order.id, oi.product.id FROM OrderItem oi ORDER BY oi.order.id")
+    List<Object[]> findOrderProductPairs();
+
+    // Lines of a page of order history, in one select
+    @Query("SELECT new com.grocery.localgrocery.repository.OrderLineSummary(" +
+            "oi.order.id, oi.id, p.id, p.name, oi.quantity, oi.priceAtPurchase, oi.returnStatus, " +
+            "oi.refundAmount, oi.returnRequestedAt) " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderLineSummary> findLinesByOrderIds(Collection<Long> orderIds);
+
+    // (orderId, line count) for the given orders
+    @Query("SELECT oi.order.id, COUNT(oi) FROM OrderItem oi WHERE oi.order.id IN :orderIds GROUP BY oi.order.id")
+    List<Object[]> countByOrderIds(Collection<Long> orderIds);
+}
@@ -0,0 +1,17 @@
+package com.grocery.localgrocery.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+// One order line for order history, with the product referenced by id and name only
+public record OrderLineSummary(@JsonIgnore Long orderId,
+                               Long id,
+                               Long productId,
+                               String productName,
+                               int quantity,
+                               double priceAtPurchase,
+                               String returnStatus,
+                               Double refundAmount,
+                               LocalDateTime returnRequestedAt) {
+}
@@ -1,21 +1,44 @@
 package com.grocery.localgrocery.repository;
 
 import com.grocery.localgrocery.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     List<Order> findByDeliveryPersonId(Long deliveryPersonId);
     List<Order> findByUserId(Long userId);
 
+    // One page of a customer's history, newest first: the orders with id < before.
+    // Keyset on (user_id, id), so every page costs the same however many orders came before it.
+    @Query("SELECT new com.grocery.localgrocery.repository.OrderSummary(" +
+            "o.id, o.createdAt, o.status, o.deliveryAddress, o.subtotal, o.tax, o.shippingFee, o.total, " +
+            "o.promoCode, o.deliveredAt) " +
+            "FROM Order o WHERE o.user.id = :userId AND o.id < :before ORDER BY o.id DESC")
+    List<OrderSummary> findHistoryPage(Long userId, Long before, Limit limit);
+
+    // The order with everything its detail view shows, in one select
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.deliveryPerson " +
+            "LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.store " +
+            "WHERE o.id = :id")
+    Optional<Order> findDetailById(Long id);
+
     @Query("SELECT SUM(o.total) FROM Order o")
     BigDecimal calculateTotalRevenue();
 
     long countByStatus(String status);
 
+    // Orders placed in [from, to); served by idx_orders_created_at
+    @Query("SELECT new com.grocery.localgrocery.repository.OrderTotals(" +
+            "COUNT(o), COALESCE(SUM(o.total), 0), COUNT(DISTINCT o.user.id)) " +
+            "FROM Order o WHERE o.createdAt >= :from AND o.createdAt < :to")
+    OrderTotals summarize(LocalDateTime from, LocalDateTime to);
+
     List<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
     List<Order> findByCancelledAtIsNotNull();
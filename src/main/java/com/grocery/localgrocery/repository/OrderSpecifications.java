@@ -0,0 +1,102 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.User;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// Filters and keyset predicate for the admin order search. Results are always newest first by id,
+// so each filter pairs with an (x, id) index on orders and the seek stays a range scan.
+public final class OrderSpecifications {
+
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "id");
+
+    private OrderSpecifications() {}
+
+    public static Specification<Order> hasStatus(Collection<String> statuses) {
+        return (root, query, cb) -> statuses == null || statuses.isEmpty() ? null : root.get("status").in(statuses);
+    }
+
+    public static Specification<Order> notInStatus(Collection<String> statuses) {
+        return (root, query, cb) -> statuses == null || statuses.isEmpty() ? null : cb.not(root.get("status").in(statuses));
+    }
+
+    // With a delivery person, or without one
+    public static Specification<Order> assigned(boolean assigned) {
+        return (root, query, cb) -> assigned ? cb.isNotNull(root.get("deliveryPerson")) : cb.isNull(root.get("deliveryPerson"));
+    }
+
+    public static Specification<Order> createdFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null : cb.greaterThanOrEqualTo(root.get("createdAt"), from);
+    }
+
+    public static Specification<Order> createdBefore(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null : cb.lessThan(root.get("createdAt"), to);
+    }
+
+    public static Specification<Order> deliveredBy(Long deliveryPersonId) {
+        return (root, query, cb) -> deliveryPersonId == null ? null
+                : cb.equal(root.get("deliveryPerson").get("id"), deliveryPersonId);
+    }
+
+    public static Specification<Order> paidWith(String paymentMethod) {
+        return (root, query, cb) -> paymentMethod == null || paymentMethod.isBlank() ? null
+                : cb.equal(root.get("paymentMethod"), paymentMethod.trim().toUpperCase());
+    }
+
+    // Orders with at least one line from the store
+    public static Specification<Order> fromStore(Long storeId) {
+        return (root, query, cb) -> {
+            if (storeId == null) return null;
+            Subquery<Long> lines = query.subquery(Long.class);
+            var item = lines.from(OrderItem.class);
+            lines.select(item.get("id")).where(
+                    cb.equal(item.get("order"), root),
+                    cb.equal(item.get("product").get("store").get("id"), storeId));
+            return cb.exists(lines);
+        };
+    }
+
+    // An order number, or a customer whose email or name starts with the text. The customers are
+    // resolved in a subquery (prefix matches only, so users' email/name indexes apply) and the
+    // orders are then found through (user_id, id).
+    public static Specification<Order> customerMatches(String text) {
+        return (root, query, cb) -> {
+            if (text == null || text.isBlank()) return null;
+            String q = text.trim();
+            if (q.startsWith("#")) q = q.substring(1);
+            if (!q.isEmpty() && q.length() < 19 && q.chars().allMatch(Character::isDigit)) {
+                return cb.equal(root.get("id"), Long.parseLong(q));
+            }
+            String prefix = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            Subquery<Long> customers = query.subquery(Long.class);
+            var user = customers.from(User.class);
+            customers.select(user.get("id")).where(cb.or(
+                    cb.like(user.get("email"), prefix, '\\'),
+                    cb.like(user.get("name"), prefix, '\\')));
+            return root.get("user").get("id").in(customers);
+        };
+    }
+
+    // Rows strictly older than the cursor
+    public static Specification<Order> before(Long id) {
+        return (root, query, cb) -> id == null ? null : cb.lessThan(root.get("id"), id);
+    }
+
+    // Load customer and delivery person in the same statement
+    public static Specification<Order> fetchUsers() {
+        return (root, query, cb) -> {
+            if (Order.class.equals(query.getResultType())) {
+                root.fetch("user", JoinType.INNER);
+                root.fetch("deliveryPerson", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
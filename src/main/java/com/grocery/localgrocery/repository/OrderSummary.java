@@ -0,0 +1,28 @@
+package com.grocery.localgrocery.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Order history row: the order's own columns plus its lines, without user or delivery person
+public record OrderSummary(Long id,
+                           LocalDateTime createdAt,
+                           String status,
+                           String deliveryAddress,
+                           BigDecimal subtotal,
+                           BigDecimal tax,
+                           BigDecimal shippingFee,
+                           BigDecimal total,
+                           String promoCode,
+                           LocalDateTime deliveredAt,
+                           List<OrderLineSummary> items) {
+
+    // For the JPQL constructor expression; lines are added once loaded
+    public OrderSummary(Long id, LocalDateTime createdAt, String status, String deliveryAddress,
+                        BigDecimal subtotal, BigDecimal tax, BigDecimal shippingFee, BigDecimal total,
+                        String promoCode, LocalDateTime deliveredAt) {
+        this(id, createdAt, status, deliveryAddress, subtotal, tax, shippingFee, total, promoCode, deliveredAt,
+                new ArrayList<>());
+    }
+}
@@ -0,0 +1,6 @@
+package com.grocery.localgrocery.repository;
+
+import java.math.BigDecimal;
+
+// Aggregates over the orders placed in a time range
+public record OrderTotals(long orders, BigDecimal revenue, long customers) {}
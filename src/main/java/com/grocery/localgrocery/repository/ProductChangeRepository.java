@@ -0,0 +1,16 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findByIdGreaterThanOrderByIdAsc(Long since, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ProductChange c")
+    long findLatestId();
+}
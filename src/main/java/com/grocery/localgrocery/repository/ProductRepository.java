@@ -2,6 +2,22 @@ package com.grocery.localgrocery.repository;
 
 import com.grocery.localgrocery.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // Single select, no entity hydration and no extra loads for category/store
+    @Query("SELECT new com.grocery.localgrocery.repository.ProductSummary(" +
+            "p.id, p.name, p.price, p.stock, p.weightKg, p.imageUrl, p.thumbnailUrl, p.cardImageUrl, c.id, s.id) " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.store s " +
+            "ORDER BY p.id")
+    List<ProductSummary> findAllSummaries();
+
+    // findAllById with category and store joined in, so a whole cart loads in one select
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.store WHERE p.id IN :ids")
+    List<Product> findAllForCheckout(Collection<Long> ids);
 }
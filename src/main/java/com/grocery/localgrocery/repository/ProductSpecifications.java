@@ -0,0 +1,83 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.Product;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+// Filters and keyset (seek) predicates for paginated product listings.
+// Every sort ends with id as a tie-breaker so the cursor position is unique.
+public final class ProductSpecifications {
+
+    public enum SortKey {
+        PRICE("price", Sort.Direction.ASC),
+        NAME("name", Sort.Direction.ASC),
+        POPULARITY("salesCount", Sort.Direction.DESC);
+
+        public final String property;
+        public final Sort.Direction direction;
+
+        SortKey(String property, Sort.Direction direction) {
+            this.property = property;
+            this.direction = direction;
+        }
+
+        public Sort sort() {
+            return Sort.by(direction, property).and(Sort.by(Sort.Direction.ASC, "id"));
+        }
+
+        public Comparable<?> valueOf(Product p) {
+            return switch (this) {
+                case PRICE -> p.getPrice();
+                case NAME -> p.getName();
+                case POPULARITY -> p.getSalesCount();
+            };
+        }
+    }
+
+    private ProductSpecifications() {}
+
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> categoryId == null ? null : cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> inStore(Long storeId) {
+        return (root, query, cb) -> storeId == null ? null : cb.equal(root.get("store").get("id"), storeId);
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        return (root, query, cb) -> minPrice == null ? null : cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        return (root, query, cb) -> maxPrice == null ? null : cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Product> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+
+    // Rows strictly after (value, id) in the order given by the sort key
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> after(SortKey key, Comparable value, Long id) {
+        return (root, query, cb) -> {
+            if (value == null || id == null) return null;
+            var path = root.<Comparable>get(key.property);
+            var beyond = key.direction == Sort.Direction.ASC
+                    ? cb.greaterThan(path, value)
+                    : cb.lessThan(path, value);
+            return cb.or(beyond, cb.and(cb.equal(path, value), cb.greaterThan(root.get("id"), id)));
+        };
+    }
+
+    // Load category and store in the same statement instead of one select per distinct row
+    public static Specification<Product> fetchCategoryAndStore() {
+        return (root, query, cb) -> {
+            if (Product.class.equals(query.getResultType())) {
+                root.fetch("category", JoinType.LEFT);
+                root.fetch("store", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.grocery.localgrocery.repository;
+
+import com.grocery.localgrocery.entity.Product;
+
+// Flat row for catalog listings: no description, category and store referenced by id only
+public record ProductSummary(Long id,
+                             String name,
+                             double price,
+                             int stock,
+                             double weightKg,
+                             String imageUrl,
+                             String thumbnailUrl,
+                             String cardImageUrl,
+                             Long categoryId,
+                             Long storeId) {
+
+    public static ProductSummary of(Product p) {
+        return new ProductSummary(p.getId(), p.getName(), p.getPrice(), p.getStock(), p.getWeightKg(),
+                p.getImageUrl(), p.getThumbnailUrl(), p.getCardImageUrl(),
+                p.getCategory() != null ? p.getCategory().getId() : null,
+                p.getStore() != null ? p.getStore().getId() : null);
+    }
+}
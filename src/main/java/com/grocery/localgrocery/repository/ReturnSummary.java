@@ -0,0 +1,18 @@
+package com.grocery.localgrocery.repository;
+
+import java.time.LocalDateTime;
+
+// One row of the admin return queue: the line with its order, customer and product flattened
+public record ReturnSummary(Long id,
+                            Long orderId,
+                            Long customerId,
+                            String customerName,
+                            String customerEmail,
+                            String productName,
+                            int quantity,
+                            double priceAtPurchase,
+                            String returnStatus,
+                            String returnReason,
+                            LocalDateTime returnRequestedAt,
+                            Double refundAmount) {
+}
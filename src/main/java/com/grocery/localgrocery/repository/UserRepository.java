@@ -3,6 +3,7 @@ package com.grocery.localgrocery.repository;
 import com.grocery.localgrocery.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Count users by role
     long countByRole(String role);
 
+    @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role AND u.createdAt >= :from AND u.createdAt < :to")
+    long countByRoleCreated(String role, LocalDateTime from, LocalDateTime to);
+
     Optional<User> findByResetToken(String resetToken);
 
     // Find active delivery persons
@@ -0,0 +1,229 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+// Best-selling products by units, for today, the last 7 and 30 days and all time, counted on the
+// day the order was placed and net of cancelled orders and refunded lines (like sales_daily).
+//
+// Each window keeps primitive per-product counts plus the TRACKED products with the highest ones.
+// A sale can only move its own product up, so it is swapped into the tracked set in O(TRACKED)
+// when it overtakes the weakest member; reading the top K then sorts just that set. Only a
+// decrement of a tracked product (cancellation, refund, a day leaving the window) can let an
+// outsider overtake it, and that marks the window for one full rescan on the next read.
+//
+// Seeded from a GROUP BY over order_items on startup; OrderEventService passes every batch of
+// status transitions, which is applied once its transaction commits.
+@Service
+public class BestSellerTracker implements OrderEventListener {
+
+    public static final int TRACKED = 100;
+
+    public enum Window {
+        TODAY(1), WEEK(7), MONTH(30), ALL_TIME(0);
+
+        final int days; // 0: unbounded
+
+        Window(int days) {
+            this.days = days;
+        }
+    }
+
+    public record Entry(long productId, int units) {}
+
+    private static final class Counts {
+        final LongIntHashMap units = new LongIntHashMap(256);
+        final long[] tracked = new long[TRACKED];
+        int size;
+        boolean stale;
+
+        void add(long productId, int delta) {
+            int now = units.addTo(productId, delta);
+            int at = indexOf(productId);
+            if (delta < 0) {
+                if (at >= 0) stale = true;
+                return;
+            }
+            if (stale || at >= 0) return;
+            if (size < TRACKED) {
+                tracked[size++] = productId;
+                return;
+            }
+            int weakest = 0;
+            for (int i = 1; i < size; i++) {
+                if (units.get(tracked[i]) < units.get(tracked[weakest])) weakest = i;
+            }
+            if (now > units.get(tracked[weakest])) tracked[weakest] = productId;
+        }
+
+        List<Entry> top(int limit) {
+            if (stale) rescan();
+            List<Entry> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int u = units.get(tracked[i]);
+                if (u > 0) result.add(new Entry(tracked[i], u));
+            }
+            result.sort(RANKING);
+            return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+        }
+
+        void rescan() {
+            PriorityQueue<Entry> heap = new PriorityQueue<>(TRACKED + 1, RANKING.reversed());
+            units.forEach((id, u) -> {
+                if (u <= 0) return;
+                heap.offer(new Entry(id, u));
+                if (heap.size() > TRACKED) heap.poll();
+            });
+            size = 0;
+            for (Entry e : heap) tracked[size++] = e.productId();
+            stale = false;
+        }
+
+        private int indexOf(long productId) {
+            for (int i = 0; i < size; i++) {
+                if (tracked[i] == productId) return i;
+            }
+            return -1;
+        }
+    }
+
+    // Highest units first, ties to the lower id so results are stable
+    private static final Comparator<Entry> RANKING = (x, y) -> x.units() != y.units()
+            ? Integer.compare(y.units(), x.units()) : Long.compare(x.productId(), y.productId());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Window, Counts> windows = new EnumMap<>(Window.class);
+    // Units per product for each of the last 30 days, to take a day back out as it leaves a window
+    private final NavigableMap<Long, LongIntHashMap> days = new TreeMap<>();
+    private long today;
+    private volatile boolean loaded;
+
+    public BestSellerTracker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Top `limit` (at most TRACKED) products of the window; O(TRACKED) unless a decrement forced a rescan
+    public List<Entry> top(Window window, int limit) {
+        return top(window, limit, LocalDate.now());
+    }
+
+    synchronized List<Entry> top(Window window, int limit, LocalDate asOf) {
+        if (!loaded) load();
+        roll(asOf.toEpochDay());
+        return windows.get(window).top(Math.min(limit, TRACKED));
+    }
+
+    // Inside the transaction that wrote the events; the counts change once it commits
+    @Override
+    public void record(List<OrderEvent> events) {
+        Map<Long, Integer> orders = new LinkedHashMap<>();
+        Map<Long, Integer> refunds = new LinkedHashMap<>();
+        for (OrderEvent e : events) {
+            if (OrderEvent.ORDER_STATUS.equals(e.getType())) {
+                int d = counted(e.getToValue()) - counted(e.getFromValue());
+                if (d != 0) orders.merge(e.getOrderId(), d, Integer::sum);
+            } else if (OrderEvent.RETURN_STATUS.equals(e.getType())) {
+                int d = "REFUNDED".equals(e.getFromValue()) ? 1 : "REFUNDED".equals(e.getToValue()) ? -1 : 0;
+                if (d != 0) refunds.merge(e.getOrderItemId(), d, Integer::sum);
+            }
+        }
+        if (!loaded || (orders.isEmpty() && refunds.isEmpty())) return;
+
+        // day, product id, units
+        List<long[]> deltas = new ArrayList<>();
+        if (!orders.isEmpty()) {
+            jdbcTemplate.query("SELECT oi.order_id, o.created_at, oi.product_id, oi.quantity FROM order_items oi "
+                    + "JOIN orders o ON o.id = oi.order_id WHERE oi.order_id IN (" + Sql.placeholders(orders.size()) + ") "
+                    + "AND (oi.return_status IS NULL OR oi.return_status <> 'REFUNDED')", rs -> {
+                deltas.add(new long[]{rs.getTimestamp(2).toLocalDateTime().toLocalDate().toEpochDay(), rs.getLong(3),
+                        (long) orders.get(rs.getLong(1)) * rs.getInt(4)});
+            }, orders.keySet().toArray());
+        }
+        if (!refunds.isEmpty()) {
+            jdbcTemplate.query("SELECT oi.id, o.created_at, oi.product_id, oi.quantity FROM order_items oi "
+                    + "JOIN orders o ON o.id = oi.order_id WHERE oi.id IN (" + Sql.placeholders(refunds.size()) + ") "
+                    + "AND o.status <> 'CANCELLED'", rs -> {
+                deltas.add(new long[]{rs.getTimestamp(2).toLocalDateTime().toLocalDate().toEpochDay(), rs.getLong(3),
+                        (long) refunds.get(rs.getLong(1)) * rs.getInt(4)});
+            }, refunds.keySet().toArray());
+        }
+        if (deltas.isEmpty()) return;
+
+        OrderEventListener.afterCommit(() -> apply(deltas));
+    }
+
+    // Rebuild from the database
+    public synchronized void load() {
+        long day = LocalDate.now().toEpochDay();
+        windows.clear();
+        for (Window w : Window.values()) windows.put(w, new Counts());
+        days.clear();
+        today = day;
+
+        Counts all = windows.get(Window.ALL_TIME);
+        jdbcTemplate.query("SELECT oi.product_id, SUM(oi.quantity) FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                + "WHERE o.status <> 'CANCELLED' AND (oi.return_status IS NULL OR oi.return_status <> 'REFUNDED') "
+                + "GROUP BY oi.product_id", rs -> {
+            all.units.put(rs.getLong(1), rs.getInt(2));
+        });
+        jdbcTemplate.query("SELECT CAST(o.created_at AS DATE), oi.product_id, SUM(oi.quantity) FROM order_items oi "
+                + "JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' "
+                + "AND (oi.return_status IS NULL OR oi.return_status <> 'REFUNDED') "
+                + "AND o.created_at >= ? GROUP BY CAST(o.created_at AS DATE), oi.product_id",
+                rs -> {
+                    long d = rs.getDate(1).toLocalDate().toEpochDay();
+                    if (d > day) return;
+                    add(d, rs.getLong(2), rs.getInt(3), false);
+                }, Date.valueOf(LocalDate.ofEpochDay(day - Window.MONTH.days + 1)));
+        windows.values().forEach(c -> c.stale = true);
+        loaded = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        load();
+    }
+
+    private synchronized void apply(List<long[]> deltas) {
+        if (!loaded) return;
+        roll(LocalDate.now().toEpochDay());
+        for (long[] d : deltas) add(d[0], d[1], (int) d[2], true);
+    }
+
+    // One product's units on `day`, into every window that covers it
+    private void add(long day, long productId, int units, boolean allTime) {
+        if (allTime) windows.get(Window.ALL_TIME).add(productId, units);
+        if (day <= today - Window.MONTH.days) return;
+        days.computeIfAbsent(day, k -> new LongIntHashMap()).addTo(productId, units);
+        for (Window w : Window.values()) {
+            if (w.days > 0 && day > today - w.days) windows.get(w).add(productId, units);
+        }
+    }
+
+    // Take out the days that left each window since the last call
+    private void roll(long day) {
+        if (day <= today) return;
+        for (Map.Entry<Long, LongIntHashMap> bucket : days.entrySet()) {
+            long d = bucket.getKey();
+            for (Window w : Window.values()) {
+                if (w.days > 0 && d > today - w.days && d <= day - w.days) {
+                    Counts counts = windows.get(w);
+                    bucket.getValue().forEach((id, units) -> counts.add(id, -units));
+                }
+            }
+        }
+        days.headMap(day - Window.MONTH.days, true).clear();
+        today = day;
+    }
+
+    private static int counted(String status) {
+        return status != null && !"CANCELLED".equals(status) ? 1 : 0;
+    }
+}
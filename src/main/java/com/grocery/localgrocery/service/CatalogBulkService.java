@@ -0,0 +1,386 @@
+package com.grocery.localgrocery.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.function.Function;
+
+// Streaming bulk import/export of products as CSV or JSON Lines.
+// Rows are parsed one at a time and written with JDBC batch inserts in chunks, so memory stays flat
+// regardless of file size. Bad rows are reported with their line number and skipped.
+@Service
+public class CatalogBulkService {
+
+    public enum Format { CSV, JSONL }
+
+    static final String[] COLUMNS = {"name", "price", "stock", "category", "store", "weightKg", "description", "imageUrl"};
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int MAX_TEXT = 255; // name and image_url are VARCHAR(255)
+
+    private static final String INSERT_SQL = "INSERT INTO products "
+            + "(name, price, stock, category_id, store_id, weight_kg, description, image_url, sales_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String EXPORT_SQL = "SELECT p.id, p.name, p.price, p.stock, c.name, s.name, "
+            + "p.weight_kg, p.description, p.image_url FROM products p "
+            + "LEFT JOIN categories c ON c.id = p.category_id "
+            + "LEFT JOIN stores s ON s.id = p.store_id ORDER BY p.id";
+
+    public static class Row {
+        public Long id; // export only
+        public String name;
+        public Double price;
+        public Integer stock;
+        public String category;
+        public String store;
+        public Double weightKg;
+        public String description;
+        public String imageUrl;
+    }
+
+    public static class RowError {
+        public long line;
+        public String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    public static class ImportResult {
+        public int imported;
+        public int failed;
+        public List<RowError> errors = new ArrayList<>(); // first MAX_REPORTED_ERRORS only
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final StoreRepository storeRepository;
+    private final CatalogService catalogService;
+    private final ObjectReader rowReader;
+    private final ObjectWriter rowWriter;
+
+    public CatalogBulkService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              CategoryRepository categoryRepository,
+                              StoreRepository storeRepository,
+                              CatalogService catalogService,
+                              ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryRepository = categoryRepository;
+        this.storeRepository = storeRepository;
+        this.catalogService = catalogService;
+        this.rowReader = objectMapper.readerFor(Row.class);
+        this.rowWriter = objectMapper.writerFor(Row.class);
+    }
+
+    public ImportResult importProducts(InputStream in, Format format) throws IOException {
+        ImportResult result = new ImportResult();
+        // Name lookups are cached for the whole file, misses included, so each distinct name hits the DB once
+        Map<String, Optional<Long>> categories = new HashMap<>();
+        Map<String, Optional<Long>> stores = new HashMap<>();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.CSV ? new CsvRowSource(reader) : new JsonlRowSource(reader, rowReader);
+        try {
+            for (;;) {
+                Row row;
+                try {
+                    row = source.next();
+                } catch (IllegalArgumentException e) {
+                    reject(result, source.line(), e.getMessage());
+                    continue;
+                }
+                if (row == null) break;
+
+                String problem = validate(row);
+                Long categoryId = null;
+                Long storeId = null;
+                if (problem == null) {
+                    categoryId = resolve(categories, row.category, n -> categoryRepository.findByNameIgnoreCase(n).map(Category::getId));
+                    if (categoryId == null) problem = "Unknown category: " + row.category.trim();
+                }
+                if (problem == null) {
+                    storeId = resolve(stores, row.store, n -> storeRepository.findByNameIgnoreCase(n).map(Store::getId));
+                    if (storeId == null) problem = "Unknown store: " + row.store.trim();
+                }
+                if (problem != null) {
+                    reject(result, source.line(), problem);
+                    continue;
+                }
+
+                batch.add(new Object[]{row.name.trim(), row.price, row.stock, categoryId, storeId,
+                        row.weightKg != null ? row.weightKg : 0.0,
+                        isBlank(row.description) ? null : row.description,
+                        isBlank(row.imageUrl) ? null : row.imageUrl.trim()});
+                if (batch.size() == BATCH_SIZE) {
+                    result.imported += flush(batch);
+                }
+            }
+            result.imported += flush(batch);
+        } finally {
+            if (result.imported > 0) {
+                catalogService.refresh();
+            }
+        }
+        return result;
+    }
+
+    // Writes every product in id order without materialising the result set
+    public void exportProducts(OutputStream out, Format format) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write("id," + String.join(",", COLUMNS) + "\n");
+        }
+        try {
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(BATCH_SIZE);
+                return ps;
+            }, rs -> {
+                Row row = new Row();
+                row.id = rs.getLong(1);
+                row.name = rs.getString(2);
+                row.price = rs.getDouble(3);
+                row.stock = rs.getInt(4);
+                row.category = rs.getString(5);
+                row.store = rs.getString(6);
+                row.weightKg = rs.getDouble(7);
+                row.description = rs.getString(8);
+                row.imageUrl = rs.getString(9);
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, row);
+                    } else {
+                        writer.write(rowWriter.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) return 0;
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+        int written = batch.size();
+        batch.clear();
+        return written;
+    }
+
+    private static Long resolve(Map<String, Optional<Long>> cache, String name, Function<String, Optional<Long>> lookup) {
+        String trimmed = name.trim();
+        return cache.computeIfAbsent(trimmed.toLowerCase(Locale.ROOT), k -> lookup.apply(trimmed)).orElse(null);
+    }
+
+    private static void reject(ImportResult result, long line, String message) {
+        result.failed++;
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(new RowError(line, message));
+        }
+    }
+
+    private static String validate(Row row) {
+        if (isBlank(row.name)) return "name is required";
+        if (row.name.trim().length() > MAX_TEXT) return "name must be at most " + MAX_TEXT + " characters";
+        if (row.price == null || row.price < 0) return "price must be a non-negative number";
+        if (row.stock == null || row.stock < 0) return "stock must be a non-negative integer";
+        if (isBlank(row.category)) return "category is required";
+        if (isBlank(row.store)) return "store is required";
+        if (row.weightKg != null && row.weightKg < 0) return "weightKg must not be negative";
+        if (row.imageUrl != null && row.imageUrl.trim().length() > MAX_TEXT) {
+            return "imageUrl must be at most " + MAX_TEXT + " characters";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static void writeCsv(Writer w, Row row) throws IOException {
+        w.write(String.valueOf(row.id));
+        for (Object value : new Object[]{row.name, row.price, row.stock, row.category, row.store,
+                row.weightKg, row.description, row.imageUrl}) {
+            w.write(',');
+            if (value == null) continue;
+            String s = value.toString();
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                w.write('"');
+                w.write(s.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(s);
+            }
+        }
+        w.write('\n');
+    }
+
+    private interface RowSource {
+        // Next row, or null at end of input. Throws IllegalArgumentException for an unparseable row.
+        Row next() throws IOException;
+
+        // Line number where the last returned (or rejected) row started
+        long line();
+    }
+
+    // RFC 4180 CSV with a header row naming the columns; quoted fields may contain commas and newlines
+    static final class CsvRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long lineNumber;
+        private long rowStart;
+
+        CsvRowSource(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) return;
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("name")) {
+                throw new IllegalArgumentException("CSV header must include a name column");
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            Row row = new Row();
+            row.name = field(fields, "name");
+            row.price = number(fields, "price", Double::valueOf);
+            row.stock = number(fields, "stock", Integer::valueOf);
+            row.category = field(fields, "category");
+            row.store = field(fields, "store");
+            row.weightKg = number(fields, "weightkg", Double::valueOf);
+            row.description = field(fields, "description");
+            row.imageUrl = field(fields, "imageurl");
+            return row;
+        }
+
+        @Override
+        public long line() {
+            return rowStart;
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer i = columns.get(column);
+            return i == null || i >= fields.size() ? null : fields.get(i);
+        }
+
+        private <T> T number(List<String> fields, String column, Function<String, T> parse) {
+            String raw = field(fields, column);
+            if (raw == null || raw.isBlank()) return null;
+            try {
+                return parse.apply(raw.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " is not a number: " + raw.trim());
+            }
+        }
+
+        List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) return null;
+            rowStart = ++lineNumber;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            for (;;) {
+                if (i == line.length()) {
+                    if (!quoted) break;
+                    // Newline inside a quoted field: keep reading the next physical line
+                    String more = reader.readLine();
+                    if (more == null) throw new IllegalArgumentException("Unterminated quoted field");
+                    lineNumber++;
+                    field.append('\n');
+                    line = more;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    static final class JsonlRowSource implements RowSource {
+        private final BufferedReader reader;
+        private final ObjectReader rowReader;
+        private long lineNumber;
+
+        JsonlRowSource(BufferedReader reader, ObjectReader rowReader) {
+            this.reader = reader;
+            this.rowReader = rowReader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+                lineNumber++;
+            } while (line.isBlank());
+            try {
+                return rowReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long line() {
+            return lineNumber;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.ProductChange;
+import com.grocery.localgrocery.repository.ProductChangeRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Serves product listings from an in-memory CatalogSnapshot and keyword search from a
+// ProductSearchIndex. Readers never lock; every product write swaps in a new snapshot and
+// re-indexes just that product. Every write is also journaled in product_changes so clients
+// holding a copy of the catalog can sync just the delta.
+//
+// Stock written by checkout and the flash-sale flusher takes a lighter path, stockChanged(): the
+// journal rows go out in the writing transaction and the snapshot takes the new values after it
+// commits, reusing the snapshot's indexes. Only the swap holds the writers' monitor. Stock alone
+// moves neither the listing ETag nor pricingVersion(), which changes only when something a quote
+// depends on does (a price or shipping weight, a product removed, a reload).
+//
+// A delta never runs ahead of the snapshot: it stops at a product whose stock change has
+// committed but not been swapped in yet, and at a journal id that may still be in flight.
+@Service
+public class CatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    // Beyond this many changed products a full reload is cheaper than a delta
+    static final int MAX_DELTA = 1000;
+    static final Duration SETTLE = Duration.ofSeconds(60);
+
+    private static final String JOURNAL_SQL =
+            "INSERT INTO product_changes (product_id, change_type, changed_at) VALUES (?, ?, ?)";
+
+    public static class Changes {
+        public long version;
+        public boolean reset; // true: discard the local copy and reload the whole catalog
+        public List<Product> updated = new ArrayList<>();
+        public List<Long> deleted = new ArrayList<>();
+    }
+
+    private final ProductRepository productRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final CatalogVersion catalogVersion;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong pricingVersion = new AtomicLong();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final IdGaps gaps = new IdGaps(SETTLE);
+    // Product id -> stock changes journaled but not yet in the snapshot
+    private final Map<Long, Integer> unpublished = new ConcurrentHashMap<>();
+
+    public CatalogService(ProductRepository productRepository,
+                          ProductChangeRepository productChangeRepository,
+                          CatalogVersion catalogVersion,
+                          JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.catalogVersion = catalogVersion;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public CatalogSnapshot snapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current : load();
+    }
+
+    // Moves when a price, a shipping weight or the set of products may have changed
+    public long pricingVersion() {
+        return pricingVersion.get();
+    }
+
+    // Plain listing in id order; q keeps its case-insensitive substring match on the name.
+    // Ranked search is search() below.
+    public List<Product> list(Long categoryId, Long storeId, String q) {
+        List<Product> products = snapshot().list(categoryId, storeId);
+
+        if (q != null && !q.trim().isEmpty()) {
+            String s = q.trim().toLowerCase();
+            products = products.stream()
+                    .filter(p -> p.getName() != null && p.getName().toLowerCase().contains(s))
+                    .toList();
+        }
+        return products;
+    }
+
+    // Relevance-ranked search, optionally narrowed to a category and/or store
+    public List<Product> search(String q, Long categoryId, Long storeId, int limit) {
+        CatalogSnapshot current = snapshot();
+        boolean filtered = categoryId != null || storeId != null;
+        List<Long> ids = searchIndex.search(q, filtered ? Integer.MAX_VALUE : limit);
+
+        List<Product> results = new ArrayList<>(Math.min(ids.size(), limit));
+        for (Long id : ids) {
+            Product p = current.get(id);
+            if (p == null) continue;
+            if (categoryId != null && (p.getCategory() == null || !categoryId.equals(p.getCategory().getId()))) continue;
+            if (storeId != null && (p.getStore() == null || !storeId.equals(p.getStore().getId()))) continue;
+            results.add(p);
+            if (results.size() >= limit) break;
+        }
+        return results;
+    }
+
+    // Call after a product has been saved (and committed).
+    // The version moves only once the new data is visible, so an ETag never labels stale content.
+    public void productSaved(Product product) {
+        swap(List.of(product), true);
+        // Journaled after the snapshot swap, so a client that sees this change id also sees the data
+        productChangeRepository.save(new ProductChange(product.getId(), ProductChange.UPSERT));
+        catalogVersion.bump();
+    }
+
+    // Call inside the transaction that wrote these products' stock and sales count; without one
+    // the change is published at once. A failed swap is logged, not thrown: the write has committed.
+    public void stockChanged(Collection<Product> products) {
+        if (products.isEmpty()) return;
+        List<Product> changed = List.copyOf(products);
+        changed.forEach(p -> unpublished.merge(p.getId(), 1, Integer::sum));
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(JOURNAL_SQL, changed.stream()
+                    .map(p -> new Object[]{p.getId(), ProductChange.UPSERT, now}).toList());
+        } catch (RuntimeException e) {
+            released(changed);
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishStock(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    publishStock(changed);
+                } else {
+                    released(changed);
+                }
+            }
+        });
+    }
+
+    // Call after a product has been deleted (and committed)
+    public void productDeleted(Long productId) {
+        synchronized (this) {
+            CatalogSnapshot current = snapshot.get();
+            if (current != null) {
+                snapshot.set(current.withoutProduct(productId));
+                searchIndex.unindex(productId);
+            }
+            pricingVersion.incrementAndGet();
+        }
+        productChangeRepository.save(new ProductChange(productId, ProductChange.DELETE));
+        catalogVersion.bump();
+    }
+
+    // Reload everything from the database; readers keep the old snapshot until it is swapped.
+    // Used after bulk writes, so synced clients are told to reload rather than given a delta.
+    public synchronized void refresh() {
+        publish(CatalogSnapshot.of(productRepository.findAll()));
+        pricingVersion.incrementAndGet();
+        productChangeRepository.save(new ProductChange(null, ProductChange.RESET));
+        catalogVersion.bump();
+    }
+
+    // Latest journal id; hand it to clients along with a full catalog
+    public long syncVersion() {
+        return productChangeRepository.findLatestId();
+    }
+
+    // Products written and deleted after `since`, each listed once with its current state
+    public Changes changesSince(long since) {
+        Changes changes = new Changes();
+        List<ProductChange> rows = productChangeRepository.findByIdGreaterThanOrderByIdAsc(since, Limit.of(MAX_DELTA + 1));
+        if (rows.size() > MAX_DELTA) {
+            changes.reset = true;
+            changes.version = syncVersion();
+            return changes;
+        }
+        if (rows.isEmpty()) {
+            long latest = syncVersion();
+            // A version from the future came from another database (or a wiped one): start over
+            changes.reset = since > latest;
+            changes.version = latest;
+            return changes;
+        }
+        // Checked after the query: a stock change swapped in since then has its data in the snapshot
+        rows = ready(since, rows);
+        if (rows.isEmpty()) {
+            changes.version = since; // nothing safe to hand out yet; the client asks again
+            return changes;
+        }
+        changes.version = rows.get(rows.size() - 1).getId();
+
+        Map<Long, String> latest = new LinkedHashMap<>();
+        for (ProductChange row : rows) {
+            if (ProductChange.RESET.equals(row.getType())) {
+                changes.reset = true;
+                return changes;
+            }
+            latest.remove(row.getProductId()); // keep the order of each product's last change
+            latest.put(row.getProductId(), row.getType());
+        }
+
+        CatalogSnapshot current = snapshot();
+        latest.forEach((id, type) -> {
+            Product p = current.get(id);
+            if (ProductChange.DELETE.equals(type) || p == null) {
+                changes.deleted.add(id);
+            } else {
+                changes.updated.add(p);
+            }
+        });
+        return changes;
+    }
+
+    // Drop the snapshot; the next read reloads it
+    public synchronized void invalidate() {
+        snapshot.set(null);
+        pricingVersion.incrementAndGet();
+        catalogVersion.bump();
+    }
+
+    // The leading rows a client can be given now
+    private List<ProductChange> ready(long since, List<ProductChange> rows) {
+        List<ProductChange> settled = gaps.settled(since, rows, ProductChange::getId, LocalDateTime.now());
+        for (int i = 0; i < settled.size(); i++) {
+            Long productId = settled.get(i).getProductId();
+            if (productId != null && unpublished.containsKey(productId)) return settled.subList(0, i);
+        }
+        return settled;
+    }
+
+    // Readers keep the old snapshot until this returns; `reindex` for writes that may touch the
+    // searchable fields
+    private synchronized void swap(List<Product> products, boolean reindex) {
+        CatalogSnapshot current = snapshot.get();
+        boolean repriced = reindex && products.stream().anyMatch(p -> pricingChanged(current, p));
+        if (current != null) {
+            snapshot.set(current.withProducts(products));
+            if (reindex) products.forEach(searchIndex::index);
+        }
+        if (repriced) pricingVersion.incrementAndGet();
+    }
+
+    private void publishStock(List<Product> products) {
+        try {
+            swap(products, false);
+        } catch (RuntimeException e) {
+            log.warn("Catalog snapshot not updated with the new stock of {} products", products.size(), e);
+        } finally {
+            released(products);
+        }
+    }
+
+    private void released(List<Product> products) {
+        products.forEach(p -> unpublished.computeIfPresent(p.getId(), (id, n) -> n == 1 ? null : n - 1));
+    }
+
+    // Writers hold the same monitor, so a save can't slip in between findAll and publishing
+    private synchronized CatalogSnapshot load() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null) {
+            current = CatalogSnapshot.of(productRepository.findAll());
+            publish(current);
+        }
+        return current;
+    }
+
+    // Unknown counts as changed, as does the snapshot's own instance (edited in place, can't compare)
+    private static boolean pricingChanged(CatalogSnapshot current, Product saved) {
+        Product previous = current == null ? null : current.get(saved.getId());
+        return previous == null || previous == saved
+                || Double.compare(previous.getPrice(), saved.getPrice()) != 0
+                || Double.compare(previous.getWeightKg(), saved.getWeightKg()) != 0;
+    }
+
+    private void publish(CatalogSnapshot loaded) {
+        searchIndex.rebuild(loaded.all());
+        snapshot.set(loaded);
+    }
+}
@@ -0,0 +1,163 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+
+import java.util.*;
+
+// Immutable, read-optimized view of the product catalog.
+// Products are kept in one array ordered by id; category and store indexes hold
+// ascending positions into that array so filtered listings never scan the catalog.
+public final class CatalogSnapshot {
+
+    private static final int[] NONE = new int[0];
+
+    private final Product[] products;
+    private final Map<Long, Integer> positionById;
+    private final Map<Long, int[]> byCategory;
+    private final Map<Long, int[]> byStore;
+
+    private CatalogSnapshot(Product[] products) {
+        this.products = products;
+        this.positionById = new HashMap<>(products.length * 2);
+        Map<Long, List<Integer>> categories = new HashMap<>();
+        Map<Long, List<Integer>> stores = new HashMap<>();
+
+        for (int i = 0; i < products.length; i++) {
+            Product p = products[i];
+            if (p.getId() != null) {
+                positionById.put(p.getId(), i);
+            }
+            if (p.getCategory() != null && p.getCategory().getId() != null) {
+                categories.computeIfAbsent(p.getCategory().getId(), k -> new ArrayList<>()).add(i);
+            }
+            if (p.getStore() != null && p.getStore().getId() != null) {
+                stores.computeIfAbsent(p.getStore().getId(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        this.byCategory = toIndex(categories);
+        this.byStore = toIndex(stores);
+    }
+
+    // Same positions, categories and stores as `base`: its indexes are shared, not rebuilt
+    private CatalogSnapshot(Product[] products, CatalogSnapshot base) {
+        this.products = products;
+        this.positionById = base.positionById;
+        this.byCategory = base.byCategory;
+        this.byStore = base.byStore;
+    }
+
+    public static CatalogSnapshot of(Collection<Product> products) {
+        Product[] sorted = products.toArray(new Product[0]);
+        // Products without an id (not yet persisted) sort last, in arrival order
+        Arrays.sort(sorted, Comparator.comparing(Product::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return new CatalogSnapshot(sorted);
+    }
+
+    // Returns a new snapshot with the product inserted or replaced; this one is left untouched
+    public CatalogSnapshot withProduct(Product product) {
+        return withProducts(List.of(product));
+    }
+
+    // Same for several products at once. Replacing products that keep their category and store
+    // (a stock write, most edits) reuses the indexes; anything else rebuilds them once.
+    public CatalogSnapshot withProducts(Collection<Product> changed) {
+        Product[] copy = products.clone();
+        List<Product> added = new ArrayList<>();
+        boolean regrouped = false;
+        for (Product product : changed) {
+            Integer pos = product.getId() == null ? null : positionById.get(product.getId());
+            if (pos != null) {
+                regrouped |= !Objects.equals(groupId(copy[pos].getCategory()), groupId(product.getCategory()))
+                        || !Objects.equals(groupId(copy[pos].getStore()), groupId(product.getStore()));
+                copy[pos] = product;
+            } else {
+                added.add(product);
+            }
+        }
+        if (added.isEmpty()) return regrouped ? new CatalogSnapshot(copy) : new CatalogSnapshot(copy, this);
+        List<Product> all = new ArrayList<>(copy.length + added.size());
+        Collections.addAll(all, copy);
+        all.addAll(added);
+        return of(all);
+    }
+
+    // Returns a new snapshot without the product; this one if it wasn't present
+    public CatalogSnapshot withoutProduct(Long id) {
+        Integer pos = id == null ? null : positionById.get(id);
+        if (pos == null) return this;
+        Product[] copy = new Product[products.length - 1];
+        System.arraycopy(products, 0, copy, 0, pos);
+        System.arraycopy(products, pos + 1, copy, pos, products.length - pos - 1);
+        return new CatalogSnapshot(copy);
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public Product get(Long id) {
+        Integer pos = id == null ? null : positionById.get(id);
+        return pos == null ? null : products[pos];
+    }
+
+    public List<Product> all() {
+        return Collections.unmodifiableList(Arrays.asList(products));
+    }
+
+    // Products matching both filters (either may be null), in id order
+    public List<Product> list(Long categoryId, Long storeId) {
+        if (categoryId == null && storeId == null) {
+            return all();
+        }
+
+        int[] positions;
+        if (categoryId != null && storeId != null) {
+            positions = intersect(byCategory.getOrDefault(categoryId, NONE), byStore.getOrDefault(storeId, NONE));
+        } else if (categoryId != null) {
+            positions = byCategory.getOrDefault(categoryId, NONE);
+        } else {
+            positions = byStore.getOrDefault(storeId, NONE);
+        }
+
+        Product[] result = new Product[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = products[positions[i]];
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    private static Long groupId(Category category) {
+        return category == null ? null : category.getId();
+    }
+
+    private static Long groupId(Store store) {
+        return store == null ? null : store.getId();
+    }
+
+    private static Map<Long, int[]> toIndex(Map<Long, List<Integer>> buckets) {
+        Map<Long, int[]> index = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, list) -> index.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return index;
+    }
+
+    // Both inputs are ascending, so a single merge pass is enough
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[n++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,40 @@
+package com.grocery.localgrocery.service;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Monotonic version of everything the shop pages read (products, categories, stores).
+// Any write bumps it; GET endpoints use it as an ETag so unchanged data costs a header check.
+@Component
+public class CatalogVersion {
+
+    // Seeded from the clock so ETags from before a restart never match by accident
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    public String etag() {
+        return "\"catalog-" + version.get() + "\"";
+    }
+
+    // 304 when the client's If-None-Match is current, otherwise the body with the ETag attached.
+    // The supplier only runs on a miss, so a 304 never touches the database.
+    public <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
+    }
+}
@@ -0,0 +1,124 @@
+package com.grocery.localgrocery.service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+// Sparse, symmetric product co-occurrence counts: how many orders contained both a and b.
+// Each product keeps a primitive map of its neighbours plus a lazily rebuilt list of its
+// strongest ones, so scoring a cart touches at most TOP_NEIGHBOURS entries per cart item.
+public class CoPurchaseIndex {
+
+    // Very large baskets (bulk or test orders) would add n^2 pairs and say little about affinity
+    static final int MAX_BASKET = 50;
+    static final int TOP_NEIGHBOURS = 100;
+
+    private static final class Row {
+        final LongIntHashMap counts = new LongIntHashMap();
+        private long[] topIds;
+        private int[] topCounts;
+
+        void add(long other) {
+            counts.addTo(other, 1);
+            topIds = null;
+        }
+
+        // Strongest neighbours, highest count first; rebuilt on the first read after a change
+        synchronized void forEachTop(LongIntHashMap.EntryVisitor visitor) {
+            if (topIds == null) rebuildTop();
+            for (int i = 0; i < topIds.length; i++) visitor.visit(topIds[i], topCounts[i]);
+        }
+
+        private void rebuildTop() {
+            PriorityQueue<long[]> heap = new PriorityQueue<>(TOP_NEIGHBOURS + 1,
+                    (x, y) -> x[1] != y[1] ? Long.compare(x[1], y[1]) : Long.compare(y[0], x[0]));
+            counts.forEach((id, count) -> {
+                heap.offer(new long[]{id, count});
+                if (heap.size() > TOP_NEIGHBOURS) heap.poll();
+            });
+            int n = heap.size();
+            long[] ids = new long[n];
+            int[] values = new int[n];
+            for (int i = n - 1; i >= 0; i--) {
+                long[] e = heap.poll();
+                ids[i] = e[0];
+                values[i] = (int) e[1];
+            }
+            topCounts = values;
+            topIds = ids;
+        }
+    }
+
+    private final Map<Long, Row> neighbours = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Count every pair of distinct products in one order
+    public void addBasket(Collection<Long> productIds) {
+        long[] ids = productIds.stream().filter(Objects::nonNull).mapToLong(Long::longValue)
+                .distinct().limit(MAX_BASKET).toArray();
+        if (ids.length < 2) return;
+        lock.writeLock().lock();
+        try {
+            for (long a : ids) {
+                Row row = neighbours.computeIfAbsent(a, k -> new Row());
+                for (long b : ids) {
+                    if (a != b) row.add(b);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            neighbours.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int count(long a, long b) {
+        lock.readLock().lock();
+        try {
+            Row row = neighbours.get(a);
+            return row == null ? 0 : row.counts.get(b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products most often bought with the cart, best first. Cart items and products failing
+    // `eligible` are skipped; ties go to the lower id so results are stable.
+    public List<Long> recommend(Collection<Long> cart, int limit, LongPredicate eligible) {
+        if (cart.isEmpty() || limit <= 0) return List.of();
+        Set<Long> inCart = new HashSet<>(cart);
+        LongIntHashMap scores = new LongIntHashMap(64);
+        lock.readLock().lock();
+        try {
+            for (Long id : inCart) {
+                Row row = id == null ? null : neighbours.get(id);
+                if (row == null) continue;
+                row.forEachTop((other, count) -> {
+                    if (!inCart.contains(other)) scores.addTo(other, count);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Min-heap of the best `limit` candidates
+        Comparator<long[]> ranking = (x, y) -> x[1] != y[1] ? Long.compare(y[1], x[1]) : Long.compare(x[0], y[0]);
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        scores.forEach((id, score) -> {
+            if (!eligible.test(id)) return;
+            top.offer(new long[]{id, score});
+            if (top.size() > limit) top.poll();
+        });
+        List<long[]> best = new ArrayList<>(top);
+        best.sort(ranking);
+        return best.stream().map(e -> e[0]).toList();
+    }
+}
@@ -0,0 +1,265 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.CustomerSketch;
+import com.grocery.localgrocery.entity.OrderEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+// Unique customers per day, store and category as HyperLogLog sketches in customer_sketches, so
+// a date range's count is the union of its daily sketches (about 1.6% error) and never a scan of
+// orders. A customer counts for a day once they have placed an order on it, cancelled or not.
+//
+// Placements are added to in-memory sketches once their transaction commits, and a flusher merges
+// those into the table. Merging keeps the larger register, so writing the same sketch twice is
+// harmless: a flush that loses a race with another instance is simply repaired by the next one.
+// Sketches not yet flushed when an instance dies are recovered by rebuild().
+@Service
+public class CustomerSketchService implements OrderEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSketchService.class);
+
+    public record Active(long daily, long weekly, long monthly) {}
+
+    // A store or category's unique customers over a range; name is null for NONE
+    public record Share(long id, String name, long customers) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DailyRebuild rebuilder;
+    // Sketches of recent days as this instance has seen them; the changed ones are flushed
+    private final Map<DayKey, HyperLogLog> live = new HashMap<>();
+    private final Set<DayKey> dirty = new HashSet<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "customer-sketch-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CustomerSketchService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.customer-sketch.flush-ms:30000}") long flushMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuilder = new DailyRebuild("customer_sketches", "/api/admin/customer-sketches/rebuild", jdbcTemplate,
+                transactionTemplate, this::rebuildChunk);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Inside the transaction that wrote the events; placements are counted once it commits
+    @Override
+    public void record(List<OrderEvent> events) {
+        List<Long> placed = events.stream()
+                .filter(e -> OrderEvent.ORDER_STATUS.equals(e.getType()) && e.getFromValue() == null)
+                .map(OrderEvent::getOrderId).distinct().toList();
+        if (placed.isEmpty()) return;
+
+        // customer, key
+        List<Object[]> adds = new ArrayList<>();
+        forEachOrderLine("WHERE o.id IN (" + Sql.placeholders(placed.size()) + ")",
+                placed.toArray(), (userId, key) -> adds.add(new Object[]{userId, key}));
+        OrderEventListener.afterCommit(() -> add(adds));
+    }
+
+    public long uniqueCustomers(LocalDate from, LocalDate to) {
+        HyperLogLog total = union(from, to, "store_id = ? AND category_id = ?",
+                k -> k.storeId() == CustomerSketch.ALL && k.categoryId() == CustomerSketch.ALL,
+                k -> CustomerSketch.ALL).get(CustomerSketch.ALL);
+        return total == null ? 0 : total.estimate();
+    }
+
+    // Customers today, in the last 7 days and in the last 30 days
+    public Active active() {
+        LocalDate today = LocalDate.now();
+        return new Active(uniqueCustomers(today, today), uniqueCustomers(today.minusDays(6), today),
+                uniqueCustomers(today.minusDays(29), today));
+    }
+
+    // Per store over [from, to], most customers first
+    public List<Share> byStore(LocalDate from, LocalDate to) {
+        return shares(union(from, to, "category_id = ? AND store_id <> ?",
+                k -> k.categoryId() == CustomerSketch.ALL && k.storeId() != CustomerSketch.ALL, DayKey::storeId), "stores");
+    }
+
+    // Per category over [from, to], most customers first
+    public List<Share> byCategory(LocalDate from, LocalDate to) {
+        return shares(union(from, to, "store_id = ? AND category_id <> ?",
+                k -> k.storeId() == CustomerSketch.ALL && k.categoryId() != CustomerSketch.ALL, DayKey::categoryId),
+                "categories");
+    }
+
+    // Merge the changed in-memory sketches into the table; returns the number of rows written.
+    // Checkouts keep adding to the live sketches meanwhile; those changes go out next time.
+    public int flush() {
+        Map<DayKey, byte[]> changed = new TreeMap<>();
+        synchronized (this) {
+            for (DayKey k : dirty) changed.put(k, live.get(k).toBytes());
+            dirty.clear();
+        }
+        if (changed.isEmpty()) return 0;
+        try {
+            transactionTemplate.executeWithoutResult(tx -> changed.forEach(this::mergeRow));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                dirty.addAll(changed.keySet());
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // Orders are stamped when placed, so days before yesterday get no more customers
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            live.keySet().removeIf(k -> k.day().isBefore(yesterday) && !dirty.contains(k));
+        }
+        return changed.size();
+    }
+
+    // Recompute [from, to] from orders; returns the number of days covered
+    public int rebuild(LocalDate from, LocalDate to) {
+        return rebuilder.rebuild(from, to);
+    }
+
+    // Everything from the first order to today
+    public int rebuild() {
+        return rebuilder.rebuild();
+    }
+
+    // First start with existing orders: build the sketches in the background
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfEmpty() {
+        rebuilder.buildIfEmpty();
+    }
+
+    private synchronized void add(List<Object[]> adds) {
+        for (Object[] a : adds) {
+            DayKey key = (DayKey) a[1];
+            live.computeIfAbsent(key, k -> new HyperLogLog()).add((Long) a[0]);
+            dirty.add(key);
+        }
+    }
+
+    private void rebuildChunk(LocalDate from, LocalDate to) {
+        Map<DayKey, HyperLogLog> sketches = new TreeMap<>();
+        forEachOrderLine("WHERE o.created_at >= ? AND o.created_at < ?",
+                new Object[]{Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay())},
+                (userId, key) -> sketches.computeIfAbsent(key, k -> new HyperLogLog()).add(userId));
+        jdbcTemplate.update("DELETE FROM customer_sketches WHERE sketch_date >= ? AND sketch_date < ?",
+                Date.valueOf(from), Date.valueOf(to));
+        List<Object[]> rows = new ArrayList<>(sketches.size());
+        sketches.forEach((k, hll) ->
+                rows.add(new Object[]{Date.valueOf(k.day()), k.storeId(), k.categoryId(), hll.toBytes()}));
+        jdbcTemplate.batchUpdate("INSERT INTO customer_sketches (sketch_date, store_id, category_id, registers) "
+                + "VALUES (?, ?, ?, ?)", rows);
+        synchronized (this) {
+            // The new rows cover every order these live sketches came from, unless still unflushed
+            live.keySet().removeIf(k -> !k.day().isBefore(from) && k.day().isBefore(to) && !dirty.contains(k));
+        }
+    }
+
+    // Calls `action` with the customer and every key (total, store, category) of each order line
+    private void forEachOrderLine(String where, Object[] args, BiConsumer<Long, DayKey> action) {
+        jdbcTemplate.query("SELECT o.user_id, o.created_at, oi.id, p.store_id, p.category_id FROM orders o "
+                + "LEFT JOIN order_items oi ON oi.order_id = o.id LEFT JOIN products p ON p.id = oi.product_id " + where,
+                rs -> {
+                    long userId = rs.getLong(1);
+                    LocalDate day = rs.getTimestamp(2).toLocalDateTime().toLocalDate();
+                    action.accept(userId, new DayKey(day, CustomerSketch.ALL, CustomerSketch.ALL));
+                    rs.getLong(3);
+                    if (rs.wasNull()) return; // no lines
+                    // A product without a store or category reads as 0, which is NONE
+                    action.accept(userId, new DayKey(day, rs.getLong(4), CustomerSketch.ALL));
+                    action.accept(userId, new DayKey(day, CustomerSketch.ALL, rs.getLong(5)));
+                }, args);
+    }
+
+    // Read-merge-write under a row lock; a concurrent first insert is retried as a merge
+    private void mergeRow(DayKey k, byte[] sketch) {
+        List<byte[]> stored = jdbcTemplate.query("SELECT registers FROM customer_sketches "
+                        + "WHERE sketch_date = ? AND store_id = ? AND category_id = ? FOR UPDATE",
+                (rs, i) -> rs.getBytes(1), Date.valueOf(k.day()), k.storeId(), k.categoryId());
+        if (stored.isEmpty()) {
+            try {
+                jdbcTemplate.update("INSERT INTO customer_sketches (sketch_date, store_id, category_id, registers) "
+                        + "VALUES (?, ?, ?, ?)", Date.valueOf(k.day()), k.storeId(), k.categoryId(), sketch);
+                return;
+            } catch (DuplicateKeyException e) {
+                mergeRow(k, sketch);
+                return;
+            }
+        }
+        HyperLogLog merged = HyperLogLog.fromBytes(stored.get(0));
+        merged.merge(HyperLogLog.fromBytes(sketch));
+        jdbcTemplate.update("UPDATE customer_sketches SET registers = ? "
+                        + "WHERE sketch_date = ? AND store_id = ? AND category_id = ?",
+                merged.toBytes(), Date.valueOf(k.day()), k.storeId(), k.categoryId());
+    }
+
+    // Union per group over [from, to] of the stored rows matching `filter` and the unflushed live sketches
+    private Map<Long, HyperLogLog> union(LocalDate from, LocalDate to, String filter,
+                                         Predicate<DayKey> liveFilter,
+                                         ToLongFunction<DayKey> group) {
+        Map<Long, HyperLogLog> result = new HashMap<>();
+        jdbcTemplate.query("SELECT store_id, category_id, registers FROM customer_sketches "
+                        + "WHERE sketch_date >= ? AND sketch_date <= ? AND " + filter,
+                rs -> {
+                    DayKey k = new DayKey(from, rs.getLong(1), rs.getLong(2));
+                    result.computeIfAbsent(group.applyAsLong(k), g -> new HyperLogLog())
+                            .merge(HyperLogLog.fromBytes(rs.getBytes(3)));
+                }, Date.valueOf(from), Date.valueOf(to), CustomerSketch.ALL, CustomerSketch.ALL);
+        synchronized (this) {
+            live.forEach((k, hll) -> {
+                if (k.day().isBefore(from) || k.day().isAfter(to) || !liveFilter.test(k)) return;
+                result.computeIfAbsent(group.applyAsLong(k), g -> new HyperLogLog()).merge(hll);
+            });
+        }
+        return result;
+    }
+
+    private List<Share> shares(Map<Long, HyperLogLog> sketches, String table) {
+        if (sketches.isEmpty()) return List.of();
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + table, rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        });
+        List<Share> result = new ArrayList<>(sketches.size());
+        sketches.forEach((id, hll) -> result.add(new Share(id, names.get(id), hll.estimate())));
+        result.sort(Comparator.comparingLong(Share::customers).reversed().thenComparingLong(Share::id));
+        return result;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Customer sketch flush failed; will retry", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Final customer sketch flush failed; rebuild the recent days to recover", e);
+        }
+    }
+}
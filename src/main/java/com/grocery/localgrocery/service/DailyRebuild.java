@@ -0,0 +1,76 @@
+package com.grocery.localgrocery.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+
+// Recomputes a per-day table from orders, a week per transaction, for the first deployment or
+// after a manual fix to historic orders. `chunk` replaces the rows of [from, to) inside the
+// transaction it is called in.
+final class DailyRebuild {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRebuild.class);
+
+    static final int CHUNK_DAYS = 7;
+
+    private final String table;
+    private final String retryPath;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BiConsumer<LocalDate, LocalDate> chunk;
+    private volatile boolean building; // the first build is running, or failed
+
+    DailyRebuild(String table, String retryPath, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                 BiConsumer<LocalDate, LocalDate> chunk) {
+        this.table = table;
+        this.retryPath = retryPath;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunk = chunk;
+    }
+
+    // Recompute [from, to]; returns the number of days covered
+    int rebuild(LocalDate from, LocalDate to) {
+        int days = 0;
+        for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(CHUNK_DAYS)) {
+            LocalDate end = start.plusDays(CHUNK_DAYS).isAfter(to.plusDays(1)) ? to.plusDays(1) : start.plusDays(CHUNK_DAYS);
+            LocalDate chunkStart = start;
+            transactionTemplate.executeWithoutResult(tx -> chunk.accept(chunkStart, end));
+            days += (int) (end.toEpochDay() - start.toEpochDay());
+        }
+        return days;
+    }
+
+    // Everything from the first order to today
+    int rebuild() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM orders", Timestamp.class);
+        int days = first == null ? 0 : rebuild(first.toLocalDateTime().toLocalDate(), LocalDate.now());
+        building = false;
+        return days;
+    }
+
+    // First start with existing orders: build the table in the background
+    void buildIfEmpty() {
+        boolean empty = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class) == 0;
+        boolean hasOrders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Integer.class) > 0;
+        if (!empty || !hasOrders) return;
+        building = true;
+        Thread.ofVirtual().name(table.replace('_', '-') + "-rebuild").start(() -> {
+            try {
+                log.info("Built {} for {} days", table, rebuild());
+            } catch (RuntimeException e) {
+                log.warn("Building {} failed; POST {} to retry", table, retryPath, e);
+            }
+        });
+    }
+
+    // Until a full rebuild has succeeded after buildIfEmpty() found the table empty
+    boolean building() {
+        return building;
+    }
+}
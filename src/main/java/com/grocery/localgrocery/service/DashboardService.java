@@ -0,0 +1,138 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.OrderTotals;
+import com.grocery.localgrocery.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// The admin dashboard figures, computed from a fixed set of aggregate queries and shared by every
+// admin session for `ttl`. Each admin tab polls, so without the snapshot the database would
+// answer the same questions once per tab every 30 seconds.
+//
+// Every revenue figure (all time, today, growth) is net sales from SalesRollupService: cancelled
+// orders and refunded lines are left out, and the cost follows the number of days rather than
+// orders. Order and customer figures count what was placed, cancelled orders included, so Total
+// Orders stays a plain count. The ranged counts use idx_orders_created_at.
+//
+// Growth compares the last PERIOD_DAYS whole days (today included) with the PERIOD_DAYS before;
+// the return rate is the share of lines from those days' orders that have a return request.
+@Service
+public class DashboardService {
+
+    static final int PERIOD_DAYS = 30;
+
+    public static class TodayStats {
+        public BigDecimal sales; // net
+        public long orders;
+        public long customers;
+    }
+
+    public static class Stats {
+        public BigDecimal totalRevenue;
+        public long totalOrders;
+        public long totalCustomers;
+        public long pendingReturns;
+        public TodayStats todayStats;
+        // Percent change against the previous period; null when that period had nothing to compare with
+        public Double revenueGrowth;
+        public Double orderGrowth;
+        public Double customerGrowth;
+        public double returnRate;
+        public LocalDateTime generatedAt;
+    }
+
+    private record Entry(Stats stats, long expiresAt) {}
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final UserRepository userRepository;
+    private final SalesRollupService salesRollupService;
+    private final Duration ttl;
+    private final AtomicReference<Entry> current = new AtomicReference<>();
+    private final ReentrantLock refreshing = new ReentrantLock();
+
+    public DashboardService(OrderRepository orderRepository,
+                            OrderItemRepository orderItemRepository,
+                            UserRepository userRepository,
+                            SalesRollupService salesRollupService,
+                            @Value("${app.dashboard.ttl-seconds:15}") long ttlSeconds) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.userRepository = userRepository;
+        this.salesRollupService = salesRollupService;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    // At most `ttl` old. While one caller recomputes, the others get the previous snapshot
+    // instead of running the same queries.
+    public Stats stats() {
+        Entry entry = current.get();
+        if (entry != null && entry.expiresAt() > System.nanoTime()) return entry.stats();
+        if (entry != null && !refreshing.tryLock()) return entry.stats();
+        if (entry == null) refreshing.lock();
+        try {
+            entry = current.get();
+            if (entry == null || entry.expiresAt() <= System.nanoTime()) {
+                entry = new Entry(compute(LocalDateTime.now()), System.nanoTime() + ttl.toNanos());
+                current.set(entry);
+            }
+            return entry.stats();
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    Stats compute(LocalDateTime now) {
+        Stats s = new Stats();
+        s.totalRevenue = salesRollupService.revenue(null, null);
+        s.totalOrders = orderRepository.count();
+        s.totalCustomers = userRepository.countByRole("CUSTOMER");
+        s.pendingReturns = orderItemRepository.countByReturnStatus("REQUESTED");
+
+        LocalDate today = now.toLocalDate();
+        LocalDateTime tomorrow = today.plusDays(1).atStartOfDay();
+        OrderTotals placedToday = orderRepository.summarize(today.atStartOfDay(), tomorrow);
+        s.todayStats = new TodayStats();
+        s.todayStats.sales = salesRollupService.revenue(today, today);
+        s.todayStats.orders = placedToday.orders();
+        s.todayStats.customers = placedToday.customers();
+
+        LocalDate periodStart = today.minusDays(PERIOD_DAYS - 1);
+        LocalDate previousStart = periodStart.minusDays(PERIOD_DAYS);
+        s.revenueGrowth = growth(salesRollupService.revenue(periodStart, today),
+                salesRollupService.revenue(previousStart, periodStart.minusDays(1)));
+        s.orderGrowth = growth(
+                BigDecimal.valueOf(orderRepository.summarize(periodStart.atStartOfDay(), tomorrow).orders()),
+                BigDecimal.valueOf(orderRepository.summarize(previousStart.atStartOfDay(), periodStart.atStartOfDay()).orders()));
+        s.customerGrowth = growth(
+                BigDecimal.valueOf(userRepository.countByRoleCreated("CUSTOMER", periodStart.atStartOfDay(), tomorrow)),
+                BigDecimal.valueOf(userRepository.countByRoleCreated("CUSTOMER", previousStart.atStartOfDay(),
+                        periodStart.atStartOfDay())));
+
+        List<Object[]> lines = orderItemRepository.countReturnsPlaced(periodStart.atStartOfDay(), tomorrow);
+        long placed = ((Number) lines.get(0)[0]).longValue();
+        long returned = ((Number) lines.get(0)[1]).longValue();
+        s.returnRate = placed == 0 ? 0 : round(returned * 100.0 / placed);
+        s.generatedAt = now;
+        return s;
+    }
+
+    private static Double growth(BigDecimal current, BigDecimal previous) {
+        if (previous.signum() == 0) return null;
+        return round(current.subtract(previous).doubleValue() * 100.0 / previous.doubleValue());
+    }
+
+    private static double round(double percent) {
+        return Math.round(percent * 10) / 10.0;
+    }
+}
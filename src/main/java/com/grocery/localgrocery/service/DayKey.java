@@ -0,0 +1,15 @@
+package com.grocery.localgrocery.service;
+
+import java.time.LocalDate;
+
+// A row of a per-day table keyed like SalesDaily. Ordered so that writers touching several rows
+// lock them in the same order.
+record DayKey(LocalDate day, long storeId, long categoryId) implements Comparable<DayKey> {
+
+    @Override
+    public int compareTo(DayKey o) {
+        int c = day.compareTo(o.day);
+        if (c == 0) c = Long.compare(storeId, o.storeId);
+        return c != 0 ? c : Long.compare(categoryId, o.categoryId);
+    }
+}
@@ -1,5 +1,7 @@
 package com.grocery.localgrocery.service;
 
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -29,4 +31,24 @@ public class EmailService {
         mailSender.send(message);
         System.out.println("Password reset email sent to: " + to);
     }
-}
\ No newline at end of file
+
+    public void sendOrderConfirmation(Order order) {
+        StringBuilder lines = new StringBuilder();
+        for (OrderItem item : order.getItems()) {
+            lines.append("  ").append(item.getQuantity()).append(" x ").append(item.getProduct().getName()).append("\n");
+        }
+
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(order.getUser().getEmail());
+        message.setSubject("Order #" + order.getId() + " confirmed - Online Grocery");
+        message.setText("Hello " + order.getUser().getName() + ",\n\n" +
+                "Thank you for your order. We have received it and will deliver to:\n" +
+                order.getDeliveryAddress() + "\n\n" +
+                lines + "\n" +
+                "Total: Rs. " + order.getTotal() + "\n\n" +
+                "Thanks,\n" +
+                "Online Grocery Team");
+
+        mailSender.send(message);
+    }
+}
@@ -0,0 +1,268 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Opt-in flash-sale mode for a few hot products. While a product is in flash-sale mode its stock
+// lives in an in-memory counter: checkout reserves against the counter and writes its order item
+// with stock_applied = false instead of updating the products row, so buyers never queue on that
+// row. A background flusher periodically sums the pending items, applies them to products.stock
+// and sales_count in one update per product and marks them applied.
+//
+// Nothing is lost on restart: a counter is always products.stock minus the pending items, so it
+// is rebuilt from the database when the product is enabled again (app.flash-sale.products lists
+// the ids to enable at startup, after the pending items have been applied). Editing a product's stock directly while it is in flash-sale
+// mode is not seen by the counter; enable it again afterwards to resync.
+//
+// Switching modes never lets the counter and the row disagree. enable() reads the row under a
+// lock and installs the counter before releasing it, so an ordinary decrement either committed
+// first and is counted, or waited on the lock and then finds the counter (OrderService takes
+// its units out of it too). disable() closes the counter, which refuses new reservations, and
+// drops it only once the reservations made before that have settled and been flushed.
+@Service
+public class FlashSaleService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleService.class);
+    static final int FLUSH_CHUNK = 1000;
+
+    public static final class Counter {
+        private final AtomicInteger available;
+        private final AtomicInteger inFlight = new AtomicInteger(); // reservations not yet settled
+        private volatile boolean closed;
+
+        Counter(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        // Every successful reservation must be followed by settle() once its transaction ends
+        public boolean tryReserve(int quantity) {
+            inFlight.incrementAndGet();
+            if (closed) {
+                inFlight.decrementAndGet();
+                return false;
+            }
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    inFlight.decrementAndGet();
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) return true;
+            }
+        }
+
+        // Give back a reservation whose order did not commit
+        public void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+
+        // The reserving transaction has committed or rolled back
+        public void settle() {
+            inFlight.decrementAndGet();
+        }
+
+        public int available() {
+            return available.get();
+        }
+
+        // Being disabled: reservations are refused until the counter is gone
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final CatalogService catalogService;
+    private final List<Long> startupProducts;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "flash-sale-flush");
+        t.setDaemon(true);
+        return t;
+    });
+    // Pending items may exist for products that are no longer in flash-sale mode
+    private volatile boolean draining;
+
+    public FlashSaleService(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ProductRepository productRepository,
+                            CatalogService catalogService,
+                            @Value("${app.flash-sale.products:}") List<Long> startupProducts,
+                            @Value("${app.flash-sale.flush-ms:1000}") long flushMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productRepository = productRepository;
+        this.catalogService = catalogService;
+        this.startupProducts = startupProducts;
+        flusher.scheduleWithFixedDelay(this::tick, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs before the web server takes requests. Items the previous run left pending are applied
+    // first: until then products.stock still counts those units, and ordinary checkouts could sell
+    // them again. A database that can't be reached here fails the startup rather than oversell.
+    @PostConstruct
+    public void restore() {
+        int applied = flush();
+        if (applied > 0) log.info("Applied {} order items left pending by the previous run", applied);
+        for (Long id : startupProducts) {
+            try {
+                enable(id);
+            } catch (ResponseStatusException e) {
+                log.warn("Flash sale not enabled for product {}: {}", id, e.getReason());
+            }
+        }
+    }
+
+    // The product's counter, or null when it is not in flash-sale mode
+    public Counter counter(Long productId) {
+        return counters.get(productId);
+    }
+
+    // Product id -> units available, for every product in flash-sale mode
+    public Map<Long, Integer> active() {
+        Map<Long, Integer> result = new TreeMap<>();
+        counters.forEach((id, c) -> result.put(id, c.available()));
+        return result;
+    }
+
+    // Returns the units available for sale
+    public synchronized int enable(Long productId) {
+        Counter existing = counters.get(productId);
+        if (existing != null) {
+            existing.closed = false; // still consistent: nothing bypassed it while it was closing
+            return existing.available();
+        }
+
+        Counter counter;
+        try {
+            // Installed before the row lock is released; see the class comment
+            counter = transactionTemplate.execute(tx -> {
+                int stock;
+                try {
+                    stock = jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ? FOR UPDATE",
+                            Integer.class, productId);
+                } catch (EmptyResultDataAccessException e) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+                }
+                int pending = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM order_items "
+                        + "WHERE product_id = ? AND stock_applied = FALSE", Integer.class, productId);
+                Counter c = new Counter(Math.max(0, stock - pending));
+                counters.put(productId, c);
+                return c;
+            });
+        } catch (RuntimeException e) {
+            counters.remove(productId);
+            throw e;
+        }
+        publish(Set.of(productId));
+        return counter.available();
+    }
+
+    // Back to plain database stock once everything pending is written out. Returns at once;
+    // with checkouts still holding reservations the flusher finishes the job.
+    public synchronized void disable(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) return;
+        counter.closed = true;
+        draining = true;
+        retireSettled();
+    }
+
+    // Apply all pending reservations to products; returns the number of order items applied
+    public synchronized int flush() {
+        Set<Long> touched = new HashSet<>();
+        int applied = 0;
+        int n;
+        do {
+            n = transactionTemplate.execute(tx -> applyChunk(touched));
+            applied += n;
+        } while (n == FLUSH_CHUNK);
+        if (!touched.isEmpty()) publish(touched);
+        return applied;
+    }
+
+    private int applyChunk(Set<Long> touched) {
+        List<long[]> rows = jdbcTemplate.query("SELECT id, product_id, quantity FROM order_items "
+                        + "WHERE stock_applied = FALSE ORDER BY id LIMIT " + FLUSH_CHUNK,
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+        if (rows.isEmpty()) return 0;
+
+        Map<Long, Long> units = new TreeMap<>();
+        Object[] itemIds = new Object[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            long[] row = rows.get(i);
+            itemIds[i] = row[0];
+            units.merge(row[1], row[2], Long::sum);
+        }
+        List<Object[]> updates = new ArrayList<>(units.size());
+        units.forEach((productId, quantity) -> updates.add(new Object[]{quantity, quantity, productId}));
+        jdbcTemplate.batchUpdate("UPDATE products SET stock = stock - ?, sales_count = sales_count + ? WHERE id = ?",
+                updates);
+        jdbcTemplate.update("UPDATE order_items SET stock_applied = TRUE WHERE id IN ("
+                + Sql.placeholders(itemIds.length) + ")", itemIds);
+        touched.addAll(units.keySet());
+        return rows.size();
+    }
+
+    // Tell the catalog, showing the counter rather than the not-yet-flushed column while active
+    private void publish(Set<Long> productIds) {
+        List<Product> products = productRepository.findAllById(productIds);
+        for (Product p : products) {
+            Counter counter = counters.get(p.getId());
+            if (counter != null) p.setStock(counter.available());
+        }
+        catalogService.stockChanged(products);
+    }
+
+    // Drop the closed counters with no reservations left, after flushing what those wrote
+    private synchronized void retireSettled() {
+        List<Long> settled = new ArrayList<>();
+        counters.forEach((id, c) -> {
+            if (c.closed && c.inFlight.get() == 0) settled.add(id);
+        });
+        if (settled.isEmpty()) return;
+        flush();
+        counters.keySet().removeAll(settled);
+    }
+
+    private void tick() {
+        if (counters.isEmpty() && !draining) return;
+        try {
+            retireSettled();
+            if (flush() == 0 && counters.isEmpty()) draining = false;
+        } catch (RuntimeException e) {
+            log.warn("Flash sale flush failed; will retry", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Final flash sale flush failed; pending items are applied on next start", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.grocery.localgrocery.service;
+
+import java.util.Arrays;
+
+// HyperLogLog distinct counter over long ids: 4096 registers, about 1.6% standard error at any
+// size. Two sketches merge into the sketch of the union by taking the larger register, so daily
+// sketches can be combined into any date range. Not thread-safe.
+//
+// Serialised sparse (index and value of each set register) while fewer than a quarter of the
+// registers are set, and as 6-bit packed registers after that: at most 3 KB per sketch.
+public final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+    private static final int DENSE_BYTES = REGISTERS * 6 / 8;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public void add(long id) {
+        long h = mix(id);
+        int index = (int) (h >>> (64 - PRECISION));
+        // Leading zeros of the remaining bits, plus one; the low PRECISION bits are padded with ones
+        int rank = Long.numberOfLeadingZeros((h << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) registers[index] = (byte) rank;
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        // Few distinct ids: linear counting over the empty registers is more accurate
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte r : registers) {
+            if (r != 0) return false;
+        }
+        return true;
+    }
+
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte r : registers) {
+            if (r != 0) set++;
+        }
+        if (set * 3 < DENSE_BYTES) {
+            byte[] out = new byte[1 + set * 3];
+            out[0] = SPARSE;
+            int at = 1;
+            for (int i = 0; i < REGISTERS; i++) {
+                if (registers[i] == 0) continue;
+                out[at++] = (byte) (i >>> 8);
+                out[at++] = (byte) i;
+                out[at++] = registers[i];
+            }
+            return out;
+        }
+        byte[] out = new byte[1 + DENSE_BYTES];
+        out[0] = DENSE;
+        // Four 6-bit registers per three bytes
+        for (int i = 0, at = 1; i < REGISTERS; i += 4, at += 3) {
+            int packed = registers[i] << 18 | registers[i + 1] << 12 | registers[i + 2] << 6 | registers[i + 3];
+            out[at] = (byte) (packed >>> 16);
+            out[at + 1] = (byte) (packed >>> 8);
+            out[at + 2] = (byte) packed;
+        }
+        return out;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes[0] == SPARSE) {
+            for (int at = 1; at < bytes.length; at += 3) {
+                int index = (bytes[at] & 0xFF) << 8 | (bytes[at + 1] & 0xFF);
+                hll.registers[index] = bytes[at + 2];
+            }
+        } else if (bytes[0] == DENSE && bytes.length == 1 + DENSE_BYTES) {
+            for (int i = 0, at = 1; i < REGISTERS; i += 4, at += 3) {
+                int packed = (bytes[at] & 0xFF) << 16 | (bytes[at + 1] & 0xFF) << 8 | (bytes[at + 2] & 0xFF);
+                hll.registers[i] = (byte) (packed >>> 18 & 0x3F);
+                hll.registers[i + 1] = (byte) (packed >>> 12 & 0x3F);
+                hll.registers[i + 2] = (byte) (packed >>> 6 & 0x3F);
+                hll.registers[i + 3] = (byte) (packed & 0x3F);
+            }
+        } else {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch");
+        }
+        return hll;
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog();
+        System.arraycopy(registers, 0, copy.registers, 0, REGISTERS);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog other && Arrays.equals(registers, other.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+
+    // Sequential ids must spread over all registers and ranks; murmur3's 64-bit finaliser
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb3fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -0,0 +1,39 @@
+package com.grocery.localgrocery.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+// For readers that page through a table by its auto-increment id. Ids are handed out before
+// commit, so a higher id can become visible while a lower one is still in flight; a page
+// therefore stops at a gap until `settle` has passed since this instance first saw it, and the
+// gap is then taken for a rolled-back id. A row committing later than that is skipped by readers
+// that have already moved past it.
+final class IdGaps {
+
+    private final Duration settle;
+    // Missing id -> when a read first stopped at it
+    private final Map<Long, LocalDateTime> seen = new ConcurrentHashMap<>();
+
+    IdGaps(Duration settle) {
+        this.settle = settle;
+    }
+
+    // The leading part of `rows` (ascending ids, all after `after`) that is safe to hand out
+    <T> List<T> settled(long after, List<T> rows, ToLongFunction<T> id, LocalDateTime now) {
+        seen.values().removeIf(first -> first.isBefore(now.minus(settle.multipliedBy(2))));
+        long previous = after;
+        for (int i = 0; i < rows.size(); i++) {
+            long current = id.applyAsLong(rows.get(i));
+            boolean gap = previous > 0 && current != previous + 1;
+            if (gap && seen.computeIfAbsent(previous + 1, k -> now).isAfter(now.minus(settle))) {
+                return rows.subList(0, i);
+            }
+            previous = current;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,150 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.IdempotencyKey;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.repository.IdempotencyKeyRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Idempotency-Key support for order submission. A key is claimed inside the order's transaction
+// (so a failed order frees it again) and remembered for `ttl`: in memory for the most recent keys,
+// in idempotency_keys for the rest. A retry with a remembered key gets the original order back
+// without touching products or stock.
+//
+// A key is bound to its user and to a fingerprint of the request (items, address, promo code).
+// Reusing it for anything else is a client bug and answered 422 rather than with the old order.
+@Service
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+    static final int CACHE_SIZE = 10_000;
+    private static final long PURGE_INTERVAL_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    private record Entry(Long userId, String requestHash, Order order, long expiresAt) {}
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Map<String, Entry> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private volatile long nextPurge;
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              OrderRepository orderRepository,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    // Canonical hash of an order request: the cart in product order with repeated lines added
+    // up, the trimmed address and the promo code as QuoteService reads it
+    public static String fingerprint(Map<Long, Integer> quantities, String deliveryAddress, String promoCode) {
+        String code = promoCode == null || promoCode.isBlank() ? "" : promoCode.trim().toUpperCase();
+        String canonical = new TreeMap<>(quantities) + "|" + deliveryAddress.trim() + "|" + code;
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The order an earlier request with this key produced, or null if the key is new or expired
+    public Order replay(String key, Long userId, String requestHash) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (recent) {
+            entry = recent.get(key);
+        }
+        if (entry != null && entry.expiresAt > now) {
+            checkSameRequest(entry.userId, entry.requestHash, userId, requestHash);
+            return entry.order;
+        }
+
+        purgeExpiredIfDue(now);
+        IdempotencyKey row = idempotencyKeyRepository.findById(key).orElse(null);
+        if (row == null) return null;
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        if (row.getCreatedAt().isBefore(cutoff)) {
+            jdbcTemplate.update("DELETE FROM idempotency_keys WHERE idempotency_key = ? AND created_at < ?", key, cutoff);
+            return null;
+        }
+        checkSameRequest(row.getUserId(), row.getRequestHash(), userId, requestHash);
+        if (row.getOrderId() == null) return null; // claimed but not committed yet
+        Order order = orderRepository.findById(row.getOrderId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                        "The order for this Idempotency-Key no longer exists"));
+        remember(key, userId, requestHash, order,
+                now - Duration.between(row.getCreatedAt(), LocalDateTime.now()).toMillis());
+        return order;
+    }
+
+    // After the claim lost a race: the other request has committed (replay it) or is still running
+    public Order replayAfterConflict(String key, Long userId, String requestHash) {
+        Order order = replay(key, userId, requestHash);
+        if (order == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+        }
+        return order;
+    }
+
+    // Inside the order transaction, before any other write. Throws DuplicateKeyException when the
+    // key is already taken; with MySQL a concurrent claim waits here until the first one commits.
+    public void claim(String key, Long userId, String requestHash) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, user_id, request_hash, created_at) "
+                + "VALUES (?, ?, ?, ?)", key, userId, requestHash, LocalDateTime.now());
+    }
+
+    // Inside the order transaction, once the order has its id
+    public void complete(String key, Long orderId) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET order_id = ? WHERE idempotency_key = ?", orderId, key);
+    }
+
+    // After commit
+    public void remember(String key, Long userId, String requestHash, Order order) {
+        remember(key, userId, requestHash, order, System.currentTimeMillis());
+    }
+
+    private void remember(String key, Long userId, String requestHash, Order order, long createdAtMillis) {
+        synchronized (recent) {
+            recent.put(key, new Entry(userId, requestHash, order, createdAtMillis + ttl.toMillis()));
+        }
+    }
+
+    private void purgeExpiredIfDue(long now) {
+        if (now < nextPurge) return;
+        nextPurge = now + PURGE_INTERVAL_MILLIS;
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", LocalDateTime.now().minus(ttl));
+    }
+
+    // Keys claimed before request hashes were stored are only checked against the user
+    private static void checkSameRequest(Long owner, String ownerHash, Long userId, String requestHash) {
+        if (!owner.equals(userId) || (ownerHash != null && !ownerHash.equals(requestHash))) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+}
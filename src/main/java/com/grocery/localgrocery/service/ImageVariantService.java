@@ -0,0 +1,180 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Produces downscaled JPEG variants of uploaded product images off the request thread.
+// Until a product's variants are recorded, pages fall back to the original imageUrl.
+@Service
+public class ImageVariantService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final float JPEG_QUALITY = 0.8f;
+    // Where AdminController and the upload endpoints write, and the URL prefix they hand out
+    private static final Path UPLOADS = Paths.get("uploads").toAbsolutePath().normalize();
+    private static final String UPLOADS_URL = "/uploads/";
+
+    public enum Variant {
+        THUMB(120), CARD(320), DETAIL(800);
+
+        final int maxSize;
+
+        Variant(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        String suffix() {
+            return "_" + name().toLowerCase() + ".jpg";
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogService catalogService;
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(500), r -> {
+                Thread t = new Thread(r, "image-variants");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public ImageVariantService(ProductRepository productRepository,
+                               JdbcTemplate jdbcTemplate,
+                               CatalogService catalogService) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogService = catalogService;
+    }
+
+    // Queue variant generation for a freshly uploaded original. originalUrl is the URL the
+    // original is served under; variants are written next to it and served from the same folder.
+    // When the queue is full the job is dropped (and logged); the product keeps its original.
+    public void generateAsync(Long productId, Path original, String originalUrl) {
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<Variant, Path> files = writeVariants(original);
+                    if (!files.isEmpty()) recordVariants(productId, originalUrl, files);
+                } catch (Exception e) {
+                    log.warn("Image variants failed for product {}: {}", productId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Image variant queue full; product {} keeps its original image until re-uploaded", productId);
+        }
+    }
+
+    // For an image set by URL (a product edit). Only our own uploads can be read; any other URL
+    // keeps serving the original.
+    public void generateAsync(Long productId, String originalUrl) {
+        if (originalUrl == null || !originalUrl.startsWith(UPLOADS_URL)) return;
+        Path original = UPLOADS.resolve(originalUrl.substring(UPLOADS_URL.length())).normalize();
+        if (!original.startsWith(UPLOADS) || !Files.isRegularFile(original)) {
+            log.warn("No uploaded file for image {} of product {}; keeping the original", originalUrl, productId);
+            return;
+        }
+        generateAsync(productId, original, originalUrl);
+    }
+
+    // Writes only the three variant columns: a full save() would put back the stock and
+    // sales_count read before a checkout that committed while the variants were being made.
+    // Skipped if the product was deleted or its image replaced meanwhile.
+    void recordVariants(Long productId, String originalUrl, Map<Variant, Path> files) {
+        String folderUrl = originalUrl.substring(0, originalUrl.lastIndexOf('/') + 1);
+        int updated = jdbcTemplate.update("UPDATE products SET thumbnail_url = ?, card_image_url = ?, "
+                        + "detail_image_url = ? WHERE id = ? AND image_url = ?",
+                folderUrl + files.get(Variant.THUMB).getFileName(),
+                folderUrl + files.get(Variant.CARD).getFileName(),
+                folderUrl + files.get(Variant.DETAIL).getFileName(),
+                productId, originalUrl);
+        if (updated == 0) return;
+        productRepository.findById(productId).ifPresent(catalogService::productSaved);
+    }
+
+    // Writes every variant beside the original. Returns an empty map for formats ImageIO can't
+    // decode (e.g. WebP), in which case the original stays in use.
+    Map<Variant, Path> writeVariants(Path original) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        Map<Variant, Path> written = new EnumMap<>(Variant.class);
+        if (source == null) return written;
+
+        String base = original.getFileName().toString();
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) base = base.substring(0, dot);
+
+        for (Variant variant : Variant.values()) {
+            Path target = original.resolveSibling(base + variant.suffix());
+            writeJpeg(scale(source, variant.maxSize), target);
+            written.put(variant, target);
+        }
+        return written;
+    }
+
+    // Fit within maxSize x maxSize, never upscale; alpha is flattened onto white for JPEG
+    private static BufferedImage scale(BufferedImage source, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        // Write to a temp file and move, so a half-written variant is never served
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+// Anything maintained from order transitions. OrderEventService hands every batch it appends to
+// each listener bean, inside the transaction that wrote it; in-memory state should only change
+// once that transaction commits.
+public interface OrderEventListener {
+
+    void record(List<OrderEvent> events);
+
+    // Runs `action` once the current transaction has committed, or right away outside one
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.repository.OrderEventRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Transactional outbox for order state. Every write of an order's status, payment status or a
+// line's return status goes through here and appends the matching order_events rows in the same
+// transaction, so the feed has exactly the transitions that committed. The callers decide on an
+// entity read before the transaction, so save() and saveItem() lock the rows and answer 409 if
+// the recorded "before" is no longer what the database holds: of two racing transitions (a
+// cancel and an assignment, say) only the first is applied, never both from the same state.
+//
+// Readers poll the feed by id, optionally keeping their position under a consumer name. Ids are
+// handed out before commit, so a higher id can become visible while a lower one is still in
+// flight; a batch therefore stops at a gap until SETTLE has passed since this instance first saw
+// it, and then treats it as a rolled-back id. An event whose transaction commits later than that
+// is skipped by every reader: consumers that must not miss one should reconcile against orders.
+@Service
+public class OrderEventService {
+
+    static final Duration SETTLE = Duration.ofSeconds(60);
+
+    // The fields that produce events, as they were before a change
+    public record Snapshot(String status, String paymentStatus) {
+        public static Snapshot of(Order order) {
+            return new Snapshot(order.getStatus(), order.getPaymentStatus());
+        }
+    }
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final List<OrderEventListener> listeners;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdGaps gaps = new IdGaps(SETTLE);
+
+    public OrderEventService(OrderEventRepository orderEventRepository,
+                             OrderRepository orderRepository,
+                             OrderItemRepository orderItemRepository,
+                             List<OrderEventListener> listeners,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
+        this.orderEventRepository = orderEventRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.listeners = listeners;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Inside the checkout transaction, once the order and its lines are written
+    public void placed(Order order) {
+        OrderEvent event = orderEventRepository.save(
+                new OrderEvent(order.getId(), null, OrderEvent.ORDER_STATUS, null, order.getStatus()));
+        derive(List.of(event));
+    }
+
+    // Saves the order together with events for whatever changed since `before`
+    public Order save(Order order, Snapshot before) {
+        return transactionTemplate.execute(tx -> {
+            lockOrder(order.getId(), before);
+            Order saved = orderRepository.save(order);
+            List<OrderEvent> events = changes(saved, before);
+            orderEventRepository.saveAll(events);
+            rollUp(events);
+            return saved;
+        });
+    }
+
+    // Saves a line whose return status may have changed, and its order if `orderBefore` is given
+    public OrderItem saveItem(OrderItem item, String returnStatusBefore, Snapshot orderBefore) {
+        return transactionTemplate.execute(tx -> {
+            if (orderBefore != null) lockOrder(item.getOrder().getId(), orderBefore);
+            List<String> current = jdbcTemplate.queryForList(
+                    "SELECT return_status FROM order_items WHERE id = ? FOR UPDATE", String.class, item.getId());
+            if (current.isEmpty() || !Objects.equals(current.get(0), returnStatusBefore)) throw changedMeanwhile();
+
+            List<OrderEvent> events = new ArrayList<>();
+            if (orderBefore != null) {
+                Order order = orderRepository.save(item.getOrder());
+                events.addAll(changes(order, orderBefore));
+            }
+            OrderItem saved = orderItemRepository.save(item);
+            if (!Objects.equals(returnStatusBefore, saved.getReturnStatus())) {
+                events.add(new OrderEvent(saved.getOrder().getId(), saved.getId(), OrderEvent.RETURN_STATUS,
+                        returnStatusBefore, saved.getReturnStatus()));
+            }
+            orderEventRepository.saveAll(events);
+            rollUp(events);
+            return saved;
+        });
+    }
+
+    // For writers that update with plain SQL; must be called inside their transaction
+    public void appendAll(List<OrderEvent> events) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (OrderEvent e : events) {
+            rows.add(new Object[]{e.getOrderId(), e.getOrderItemId(), e.getType(), e.getFromValue(), e.getToValue(),
+                    Timestamp.valueOf(e.getCreatedAt())});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO order_events (order_id, order_item_id, event_type, from_value, to_value, "
+                + "created_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        derive(events);
+    }
+
+    // Up to `limit` events after `after`, oldest first
+    public List<OrderEvent> read(long after, int limit) {
+        return read(after, limit, LocalDateTime.now());
+    }
+
+    List<OrderEvent> read(long after, int limit, LocalDateTime now) {
+        List<OrderEvent> rows = orderEventRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit));
+        // Timed from when we first saw the gap, not from the rows' created_at: that is stamped when
+        // the row is written, and a long transaction commits well after it
+        return gaps.settled(after, rows, OrderEvent::getId, now);
+    }
+
+    // The last event the consumer has processed; 0 for a new consumer. Offsets are read and written
+    // with plain SQL so a cached FeedOffset entity can never hide a newer commit.
+    public long offset(String consumer) {
+        List<Long> offset = jdbcTemplate.queryForList(
+                "SELECT last_event_id FROM order_feed_offsets WHERE consumer = ?", Long.class, consumer);
+        return offset.isEmpty() ? 0 : offset.get(0);
+    }
+
+    // Record that the consumer has processed everything up to `offset`. Offsets only move forward,
+    // so a slow duplicate commit can't rewind a consumer.
+    public long commit(String consumer, long offset) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = jdbcTemplate.update("UPDATE order_feed_offsets SET last_event_id = ?, updated_at = ? "
+                + "WHERE consumer = ? AND last_event_id < ?", offset, now, consumer, offset);
+        if (updated == 0 && jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_feed_offsets WHERE consumer = ?", Integer.class, consumer) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO order_feed_offsets (consumer, last_event_id, updated_at) VALUES (?, ?, ?)",
+                        consumer, offset, now);
+            } catch (DuplicateKeyException e) {
+                // Another commit for the same consumer created it first
+                return commit(consumer, offset);
+            }
+        }
+        return offset(consumer);
+    }
+
+    // Lock the order row and check it still holds the caller's "before"
+    private void lockOrder(Long orderId, Snapshot before) {
+        List<Snapshot> current = jdbcTemplate.query("SELECT status, payment_status FROM orders WHERE id = ? FOR UPDATE",
+                (rs, i) -> new Snapshot(rs.getString(1), rs.getString(2)), orderId);
+        if (current.isEmpty() || !current.get(0).equals(before)) throw changedMeanwhile();
+    }
+
+    private static ResponseStatusException changedMeanwhile() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Order changed meanwhile; reload and retry");
+    }
+
+    // Listeners read the rows with plain SQL, so pending entity changes go out first
+    private void rollUp(List<OrderEvent> events) {
+        if (events.isEmpty()) return;
+        orderRepository.flush();
+        derive(events);
+    }
+
+    // Everything maintained from the transitions, updated in (or after) the same transaction
+    private void derive(List<OrderEvent> events) {
+        for (OrderEventListener listener : listeners) listener.record(events);
+    }
+
+    private static List<OrderEvent> changes(Order order, Snapshot before) {
+        List<OrderEvent> events = new ArrayList<>(2);
+        if (!Objects.equals(before.status(), order.getStatus())) {
+            events.add(new OrderEvent(order.getId(), null, OrderEvent.ORDER_STATUS, before.status(), order.getStatus()));
+        }
+        if (!Objects.equals(before.paymentStatus(), order.getPaymentStatus())) {
+            events.add(new OrderEvent(order.getId(), null, OrderEvent.PAYMENT_STATUS,
+                    before.paymentStatus(), order.getPaymentStatus()));
+        }
+        return events;
+    }
+}
@@ -0,0 +1,252 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.controller.OrderController.PlaceOrderRequest;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Checkout. The cart is priced by QuoteService (usually a cache hit left by the quote the cart page
+// asked for), never from totals the client sends. The whole cart is loaded with one select and
+// validated in memory before anything is written; the stock changes, the order and its items then
+// go out in a single transaction, each as one batch. Either all of it commits or none.
+//
+// Stock is never written back from what was read. Each line is a conditional decrement that the
+// database applies atomically, so concurrent buyers of the same product can't oversell it, and
+// the only row locks are taken by those updates and held until the short commit that follows.
+// Products in flash-sale mode skip the row entirely; see FlashSaleService.
+@Service
+public class OrderService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
+    private static final String DECREMENT_STOCK_SQL = "UPDATE products "
+            + "SET stock = stock - ?, sales_count = sales_count + ? WHERE id = ? AND stock >= ?";
+    private static final String INSERT_ITEM_SQL = "INSERT INTO order_items "
+            + "(order_id, product_id, quantity, price_at_purchase, return_status, stock_applied) VALUES (?, ?, ?, ?, 'NONE', ?)";
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogService catalogService;
+    private final PostCheckoutPipeline postCheckoutPipeline;
+    private final FlashSaleService flashSaleService;
+    private final IdempotencyService idempotencyService;
+    private final QuoteService quoteService;
+    private final OrderEventService orderEventService;
+
+    public OrderService(OrderRepository orderRepository,
+                        UserRepository userRepository,
+                        ProductRepository productRepository,
+                        JdbcTemplate jdbcTemplate,
+                        EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        CatalogService catalogService,
+                        PostCheckoutPipeline postCheckoutPipeline,
+                        FlashSaleService flashSaleService,
+                        IdempotencyService idempotencyService,
+                        QuoteService quoteService,
+                        OrderEventService orderEventService) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogService = catalogService;
+        this.postCheckoutPipeline = postCheckoutPipeline;
+        this.flashSaleService = flashSaleService;
+        this.idempotencyService = idempotencyService;
+        this.quoteService = quoteService;
+        this.orderEventService = orderEventService;
+    }
+
+    // What placeOrder would charge for these items right now
+    public QuoteService.Quote quote(List<PlaceOrderRequest.Item> items, String promoCode) {
+        return quoteService.quote(quantities(items), promoCode);
+    }
+
+    public Order placeOrder(PlaceOrderRequest req) {
+        return placeOrder(req, null);
+    }
+
+    // With an idempotency key, a repeat of an already placed order returns that order untouched
+    public Order placeOrder(PlaceOrderRequest req, String idempotencyKey) {
+        Map<Long, Integer> quantities = quantities(req.items);
+        String requestHash = idempotencyKey == null ? null
+                : IdempotencyService.fingerprint(quantities, req.deliveryAddress, req.promoCode);
+        if (idempotencyKey != null) {
+            Order previous = idempotencyService.replay(idempotencyKey, req.userId, requestHash);
+            if (previous != null) return previous;
+        }
+        QuoteService.Quote quote = quoteService.quote(quantities, req.promoCode);
+        Map<Long, Double> prices = new HashMap<>();
+        quote.lines.forEach(l -> prices.put(l.productId, l.unitPrice));
+        Map<Long, FlashSaleService.Counter> reserved = new HashMap<>();
+        Map<Long, FlashSaleService.Counter> absorbed = new HashMap<>();
+
+        Order order;
+        try {
+            order = transactionTemplate.execute(tx -> {
+                if (idempotencyKey != null) idempotencyService.claim(idempotencyKey, req.userId, requestHash);
+                User user = userRepository.findById(req.userId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+
+                Map<Long, Product> products = productRepository.findAllForCheckout(quantities.keySet()).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+                // Read-only from here on: nothing loaded above may be flushed back over the decrements
+                products.values().forEach(entityManager::detach);
+
+                for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                    Product p = products.get(line.getKey());
+                    if (p == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+                    // products.stock lags behind a flash-sale counter, so only the counter can say no
+                    if (flashSaleService.counter(p.getId()) == null && p.getStock() < line.getValue()) {
+                        throw notEnoughStock(p);
+                    }
+                }
+
+                decrementStock(quantities, products, reserved, absorbed);
+
+                Order o = new Order();
+                o.setUser(user);
+                o.setDeliveryAddress(req.deliveryAddress.trim());
+                o.setSubtotal(BigDecimal.valueOf(quote.subtotal));
+                o.setTax(BigDecimal.valueOf(quote.tax));
+                o.setShippingFee(BigDecimal.valueOf(quote.shippingFee));
+                o.setTotal(BigDecimal.valueOf(quote.total));
+                o.setPromoCode(quote.promoCode);
+                o = orderRepository.save(o);
+                if (idempotencyKey != null) idempotencyService.complete(idempotencyKey, o.getId());
+
+                List<Object[]> items = new ArrayList<>(quantities.size());
+                for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                    Product p = products.get(line.getKey());
+                    boolean stockApplied = !reserved.containsKey(p.getId());
+                    items.add(new Object[]{o.getId(), p.getId(), line.getValue(), prices.get(p.getId()), stockApplied});
+                }
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items);
+                orderEventService.placed(o);
+
+                // Current values (including other buyers' decrements) for the catalog, journaled with
+                // the order and swapped into the snapshot once it commits. Flash-sale products are
+                // published by the flusher instead.
+                Map<Long, Product> written = new HashMap<>(products);
+                written.keySet().removeAll(reserved.keySet());
+                written.keySet().removeAll(absorbed.keySet());
+                if (!written.isEmpty()) {
+                    jdbcTemplate.query("SELECT id, stock, sales_count FROM products WHERE id IN ("
+                            + Sql.placeholders(written.size()) + ")", rs -> {
+                        Product p = written.get(rs.getLong(1));
+                        p.setStock(rs.getInt(2));
+                        p.setSalesCount(rs.getLong(3));
+                    }, written.keySet().toArray());
+                    catalogService.stockChanged(written.values());
+                }
+                return o;
+            });
+        } catch (RuntimeException e) {
+            // Rolled back (or never committed): hand the reserved units back
+            reserved.forEach((id, counter) -> counter.release(quantities.get(id)));
+            absorbed.forEach((id, counter) -> counter.release(quantities.get(id)));
+            if (idempotencyKey != null && e instanceof DuplicateKeyException) {
+                return idempotencyService.replayAfterConflict(idempotencyKey, req.userId, requestHash);
+            }
+            throw e;
+        } finally {
+            // Committed or rolled back: a counter being disabled may now flush these lines
+            reserved.values().forEach(FlashSaleService.Counter::settle);
+            absorbed.values().forEach(FlashSaleService.Counter::settle);
+        }
+
+        // The order is placed: nothing after this point may turn it into an error for the client
+        try {
+            if (idempotencyKey != null) idempotencyService.remember(idempotencyKey, req.userId, requestHash, order);
+            postCheckoutPipeline.orderPlaced(order.getId(), quantities.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Follow-up work for order {} failed", order.getId(), e);
+        }
+        return order;
+    }
+
+    // One conditional UPDATE per line, in id order so two carts sharing products lock them in the
+    // same order. A line that matches no row lost a race for the last units: the caller's
+    // exception rolls back the lines already applied. Products in flash-sale mode are reserved
+    // against their in-memory counter instead and recorded in `reserved`.
+    //
+    // A flash sale enabled while an update waited for the row lock counted the stock before it, so
+    // those units also come out of the new counter (recorded in `absorbed`); see FlashSaleService.
+    private void decrementStock(Map<Long, Integer> quantities, Map<Long, Product> products,
+                                Map<Long, FlashSaleService.Counter> reserved,
+                                Map<Long, FlashSaleService.Counter> absorbed) {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Long id = line.getKey();
+            int quantity = line.getValue();
+            FlashSaleService.Counter counter = flashSaleService.counter(id);
+            if (counter == null) {
+                ids.add(id);
+                args.add(new Object[]{quantity, quantity, id, quantity});
+            } else if (counter.tryReserve(quantity)) {
+                reserved.put(id, counter);
+            } else {
+                throw notReserved(counter, products.get(id));
+            }
+        }
+        if (args.isEmpty()) return;
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, args);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) throw notEnoughStock(products.get(ids.get(i)));
+        }
+        for (Long id : ids) {
+            FlashSaleService.Counter late = flashSaleService.counter(id);
+            if (late == null) continue;
+            if (!late.tryReserve(quantities.get(id))) throw notReserved(late, products.get(id));
+            absorbed.put(id, late);
+        }
+    }
+
+    private static ResponseStatusException notReserved(FlashSaleService.Counter counter, Product p) {
+        if (counter.isClosed()) {
+            return new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Stock for " + p.getName() + " is being updated; try again");
+        }
+        return notEnoughStock(p);
+    }
+
+    private static ResponseStatusException notEnoughStock(Product p) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough stock for: " + p.getName());
+    }
+
+    // Quantity per product in cart order; repeated lines for the same product are added up
+    private static Map<Long, Integer> quantities(List<PlaceOrderRequest.Item> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (PlaceOrderRequest.Item i : items) {
+            if (i.productId == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "productId required");
+            if (i.quantity <= 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be > 0");
+            quantities.merge(i.productId, i.quantity, Integer::sum);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,152 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Number of orders in each status, kept in memory so the status chart never scans orders.
+// Loaded with one GROUP BY at startup, then moved by every ORDER_STATUS transition that
+// OrderEventService records, once its transaction has committed.
+//
+// A periodic check compares the counters with the database and reports any drift. A transition
+// committing between the two reads shows up as drift for one check only, so the counters are
+// corrected only when the same drift is seen twice in a row.
+@Service
+public class OrderStatusCounters implements OrderEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusCounters.class);
+
+    public static final List<String> STATUSES =
+            List.of("PLACED", "ASSIGNED", "PICKED_UP", "PAYMENT_RECEIVED", "DELIVERED", "CANCELLED");
+
+    public static class Check {
+        public LocalDateTime at;
+        public Map<String, Long> drift = new TreeMap<>(); // database minus counter, non-zero entries only
+        public boolean corrected;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-status-check");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Check lastCheck;
+    private volatile boolean loaded;
+
+    public OrderStatusCounters(JdbcTemplate jdbcTemplate,
+                               @Value("${app.order-status-check-minutes:10}") long checkMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        checker.scheduleWithFixedDelay(this::checkQuietly, checkMinutes, checkMinutes, TimeUnit.MINUTES);
+    }
+
+    // Status -> orders, in chart order; statuses outside STATUSES follow if any exist
+    public Map<String, Long> counts() {
+        if (!loaded) load();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (String status : STATUSES) result.put(status, count(status));
+        new TreeMap<>(counts).forEach((status, n) -> result.putIfAbsent(status, n.sum()));
+        return result;
+    }
+
+    public Check lastCheck() {
+        return lastCheck;
+    }
+
+    // Inside the transaction that wrote the events; the counters move once it commits
+    @Override
+    public void record(List<OrderEvent> events) {
+        List<OrderEvent> transitions = events.stream()
+                .filter(e -> OrderEvent.ORDER_STATUS.equals(e.getType())).toList();
+        if (transitions.isEmpty()) return;
+        OrderEventListener.afterCommit(() -> apply(transitions));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Map<String, Long> stored = stored();
+        counts.clear();
+        stored.forEach((status, n) -> adder(status).add(n));
+        loaded = true;
+    }
+
+    // Compare with the database; see the class comment for when drift is corrected
+    public synchronized Check check() {
+        if (!loaded) load();
+        Check previous = lastCheck;
+        Map<String, Long> stored = stored();
+        Check check = new Check();
+        check.at = LocalDateTime.now();
+        Set<String> statuses = new TreeSet<>(counts.keySet());
+        statuses.addAll(stored.keySet());
+        for (String status : statuses) {
+            long diff = stored.getOrDefault(status, 0L) - count(status);
+            if (diff != 0) check.drift.put(status, diff);
+        }
+        if (!check.drift.isEmpty()) {
+            if (previous != null && !previous.corrected && previous.drift.equals(check.drift)) {
+                check.drift.forEach((status, diff) -> adder(status).add(diff));
+                check.corrected = true;
+                log.warn("Order status counters drifted from the database by {}; corrected", check.drift);
+            } else {
+                log.info("Order status counters differ from the database by {}; rechecking next time", check.drift);
+            }
+        }
+        lastCheck = check;
+        return check;
+    }
+
+    private void apply(List<OrderEvent> transitions) {
+        if (!loaded) return; // the load will read the committed rows
+        for (OrderEvent e : transitions) {
+            if (e.getFromValue() != null) adder(e.getFromValue()).decrement();
+            if (e.getToValue() != null) adder(e.getToValue()).increment();
+        }
+    }
+
+    private Map<String, Long> stored() {
+        Map<String, Long> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT status, COUNT(*) FROM orders GROUP BY status",
+                rs -> {
+                    stored.put(rs.getString(1), rs.getLong(2));
+                });
+        return stored;
+    }
+
+    private long count(String status) {
+        LongAdder n = counts.get(status);
+        return n == null ? 0 : n.sum();
+    }
+
+    private LongAdder adder(String status) {
+        return counts.computeIfAbsent(status, s -> new LongAdder());
+    }
+
+    private void checkQuietly() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            log.warn("Order status check failed; will retry", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checker.shutdown();
+    }
+}
@@ -0,0 +1,255 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Work that follows a committed checkout but must not add to its latency. Tasks go to a bounded
+// in-memory queue drained by virtual-thread workers, so a slow mail server blocks a worker and
+// not a request thread.
+//
+// Backpressure: submitting never blocks checkout. When the queue is full the task is written to
+// post_checkout_tasks instead, and a sweeper feeds due rows back while the queue has room. Failed
+// tasks go to the same table with exponential backoff, up to MAX_ATTEMPTS; tasks still queued on
+// shutdown are written there too, so they run after a restart.
+@Service
+public class PostCheckoutPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(PostCheckoutPipeline.class);
+
+    public static final String RECOMMENDATIONS = "RECOMMENDATIONS";
+    public static final String CONFIRMATION_EMAIL = "CONFIRMATION_EMAIL";
+
+    static final int MAX_ATTEMPTS = 5;
+    static final int SWEEP_BATCH = 200;
+    // A claimed row stays in the table until its task succeeds; if this instance dies first,
+    // the row comes due again after the lease
+    static final long LEASE_SECONDS = 300;
+
+    // rowId is set when the task came from post_checkout_tasks
+    record Task(String type, long orderId, String payload, int attempts, Long rowId, long queuedAt) {}
+
+    public static class TaskStats {
+        public long submitted;
+        public long completed;
+        public long failed;
+        public long spilled;
+        public double avgWaitMs; // queued -> picked up by a worker
+        public double avgRunMs;
+        public double maxRunMs;
+    }
+
+    private static final class Metrics {
+        final LongAdder submitted = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder spilled = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAdder runNanos = new LongAdder();
+        final LongAccumulator maxRunNanos = new LongAccumulator(Long::max, 0);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean confirmationEmail;
+    private final BlockingQueue<Task> queue;
+    private final Map<String, Consumer<Task>> handlers = new HashMap<>();
+    private final Map<String, Metrics> metrics = new TreeMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "post-checkout-sweep");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    public PostCheckoutPipeline(RecommendationService recommendationService,
+                                EmailService emailService,
+                                OrderRepository orderRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.post-checkout.workers:4}") int workerCount,
+                                @Value("${app.post-checkout.queue-capacity:10000}") int capacity,
+                                @Value("${app.post-checkout.confirmation-email:false}") boolean confirmationEmail,
+                                @Value("${app.post-checkout.sweep-ms:5000}") long sweepMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.confirmationEmail = confirmationEmail;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        handlers.put(RECOMMENDATIONS, t -> recommendationService.orderPlaced(productIds(t.payload())));
+        handlers.put(CONFIRMATION_EMAIL, t ->
+                orderRepository.findDetailById(t.orderId()).ifPresent(emailService::sendOrderConfirmation));
+        handlers.keySet().forEach(type -> metrics.put(type, new Metrics()));
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("post-checkout-" + i).start(this::work));
+        }
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Called once the checkout transaction has committed
+    public void orderPlaced(Long orderId, Collection<Long> productIds) {
+        StringJoiner ids = new StringJoiner(",");
+        productIds.forEach(id -> ids.add(id.toString()));
+        submit(RECOMMENDATIONS, orderId, ids.toString());
+        if (confirmationEmail) submit(CONFIRMATION_EMAIL, orderId, null);
+    }
+
+    // Task type -> counters and timings since startup
+    public Map<String, TaskStats> stats() {
+        Map<String, TaskStats> result = new LinkedHashMap<>();
+        metrics.forEach((type, m) -> {
+            TaskStats s = new TaskStats();
+            s.submitted = m.submitted.sum();
+            s.completed = m.completed.sum();
+            s.failed = m.failed.sum();
+            s.spilled = m.spilled.sum();
+            long runs = s.completed + s.failed;
+            s.avgWaitMs = runs == 0 ? 0 : m.waitNanos.sum() / 1e6 / runs;
+            s.avgRunMs = runs == 0 ? 0 : m.runNanos.sum() / 1e6 / runs;
+            s.maxRunMs = m.maxRunNanos.get() / 1e6;
+            result.put(type, s);
+        });
+        return result;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    // Rows in post_checkout_tasks: waiting for a retry or the queue, and given up on
+    public Map<String, Integer> stored() {
+        return Map.of(
+                "pending", jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM post_checkout_tasks WHERE next_attempt_at IS NOT NULL", Integer.class),
+                "failed", jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM post_checkout_tasks WHERE next_attempt_at IS NULL", Integer.class));
+    }
+
+    private void submit(String type, long orderId, String payload) {
+        metrics.get(type).submitted.increment();
+        Task task = new Task(type, orderId, payload, 0, null, System.nanoTime());
+        if (!running || !queue.offer(task)) spill(task, null, LocalDateTime.now());
+    }
+
+    private void work() {
+        while (running) {
+            Task task;
+            try {
+                task = queue.poll(500, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task != null) run(task);
+        }
+    }
+
+    void run(Task task) {
+        Metrics m = metrics.get(task.type());
+        long start = System.nanoTime();
+        m.waitNanos.add(start - task.queuedAt());
+        try {
+            handlers.get(task.type()).accept(task);
+            m.completed.increment();
+            if (task.rowId() != null) jdbcTemplate.update("DELETE FROM post_checkout_tasks WHERE id = ?", task.rowId());
+        } catch (RuntimeException e) {
+            m.failed.increment();
+            int attempts = task.attempts() + 1;
+            LocalDateTime next = attempts >= MAX_ATTEMPTS ? null : LocalDateTime.now().plusSeconds(10L << (attempts - 1));
+            log.warn("Post-checkout task {} for order {} failed (attempt {})", task.type(), task.orderId(), attempts, e);
+            spill(new Task(task.type(), task.orderId(), task.payload(), attempts, task.rowId(), task.queuedAt()),
+                    String.valueOf(e.getMessage()), next);
+        } finally {
+            long run = System.nanoTime() - start;
+            m.runNanos.add(run);
+            m.maxRunNanos.accumulate(run);
+        }
+    }
+
+    // Write the task to post_checkout_tasks, due at `next` (null: no more attempts)
+    private void spill(Task task, String error, LocalDateTime next) {
+        try {
+            String lastError = error == null || error.length() <= 500 ? error : error.substring(0, 500);
+            Timestamp due = next == null ? null : Timestamp.valueOf(next);
+            if (task.rowId() != null) {
+                jdbcTemplate.update("UPDATE post_checkout_tasks SET attempts = ?, last_error = ?, next_attempt_at = ? "
+                        + "WHERE id = ?", task.attempts(), lastError, due, task.rowId());
+            } else {
+                metrics.get(task.type()).spilled.increment();
+                jdbcTemplate.update("INSERT INTO post_checkout_tasks (task_type, order_id, payload, attempts, last_error, "
+                                + "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        task.type(), task.orderId(), task.payload(), task.attempts(), lastError, due,
+                        Timestamp.valueOf(LocalDateTime.now()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not store post-checkout task {} for order {}; it is lost", task.type(), task.orderId(), e);
+        }
+    }
+
+    // Move due rows from the table into the queue, as far as it has room; returns the number moved
+    int sweep() {
+        int room = Math.min(SWEEP_BATCH, queue.remainingCapacity());
+        if (room == 0 || !running) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> due = jdbcTemplate.query("SELECT id, task_type, order_id, payload, attempts, next_attempt_at "
+                        + "FROM post_checkout_tasks WHERE next_attempt_at <= ? ORDER BY next_attempt_at LIMIT " + room,
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4), rs.getInt(5),
+                        rs.getTimestamp(6)}, Timestamp.valueOf(now));
+        Timestamp lease = Timestamp.valueOf(now.plusSeconds(LEASE_SECONDS));
+        int moved = 0;
+        for (Object[] row : due) {
+            // Another instance may have claimed the row since the select
+            if (jdbcTemplate.update("UPDATE post_checkout_tasks SET next_attempt_at = ? WHERE id = ? AND next_attempt_at = ?",
+                    lease, row[0], row[5]) == 0) continue;
+            Task task = new Task((String) row[1], (Long) row[2], (String) row[3], (Integer) row[4], (Long) row[0],
+                    System.nanoTime());
+            // Full again: the row is simply picked up after its lease
+            if (!queue.offer(task)) break;
+            moved++;
+        }
+        return moved;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            log.warn("Post-checkout sweep failed; will retry", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        sweeper.shutdown();
+        for (Thread worker : workers) {
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Task> left = new ArrayList<>();
+        queue.drainTo(left);
+        // Swept rows are still in the table and come due after their lease
+        for (Task task : left) {
+            if (task.rowId() == null) spill(task, null, LocalDateTime.now());
+        }
+    }
+
+    private static List<Long> productIds(String payload) {
+        if (payload == null || payload.isEmpty()) return List.of();
+        return Arrays.stream(payload.split(",")).map(Long::valueOf).toList();
+    }
+}
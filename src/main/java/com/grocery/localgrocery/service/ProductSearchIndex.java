@@ -0,0 +1,269 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-process inverted index over product name, description, category and store.
+// Terms are folded so common Nepali romanization variants meet ("daal"/"dal", "jeera"/"jira",
+// "moong"/"mung", "bhuja"/"buja"). Queries match exact terms, prefixes and, when a word has no
+// exact or prefix hit, trigram-similar terms to absorb typos.
+public class ProductSearchIndex {
+
+    static final float NAME_WEIGHT = 3.0f;
+    static final float CATEGORY_WEIGHT = 1.5f;
+    static final float STORE_WEIGHT = 1.0f;
+    static final float DESCRIPTION_WEIGHT = 0.5f;
+
+    private static final float PREFIX_FACTOR = 0.7f;
+    private static final float FUZZY_FACTOR = 0.5f;
+    private static final double MIN_SIMILARITY = 0.45;
+    private static final int MAX_EXPANSIONS = 64;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern ASPIRATE = Pattern.compile("([bdgjkpst])h");
+    private static final Pattern REPEAT = Pattern.compile("(.)\\1+");
+
+    // term -> (productId -> field weight)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // trigram -> terms containing it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    // productId -> terms it was indexed under, so updates can remove stale postings
+    private final Map<Long, Set<String>> docTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trigrams.clear();
+            docTerms.clear();
+            for (Product p : products) {
+                add(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Insert or re-index a single product
+    public void index(Product product) {
+        if (product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            remove(product.getId());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unindex(Long productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Product ids ordered by relevance, best first
+    public List<Long> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) return List.of();
+
+        Map<Long, float[]> hits = new HashMap<>(); // id -> {score, words matched}
+        lock.readLock().lock();
+        try {
+            int docs = Math.max(1, docTerms.size());
+            for (String word : words) {
+                Map<Long, Float> best = new HashMap<>();
+                boolean matched = collect(best, word, 1.0f, docs);
+                matched |= collectPrefix(best, word, docs);
+                if (!matched) {
+                    collectFuzzy(best, word, docs);
+                }
+                best.forEach((id, score) -> {
+                    float[] h = hits.computeIfAbsent(id, k -> new float[2]);
+                    h[0] += score;
+                    h[1] += 1;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Documents matching more of the query words always outrank partial matches
+        Comparator<Map.Entry<Long, float[]>> ranking = (a, b) -> {
+            int byWords = Float.compare(b.getValue()[1], a.getValue()[1]);
+            if (byWords != 0) return byWords;
+            int byScore = Float.compare(b.getValue()[0], a.getValue()[0]);
+            return byScore != 0 ? byScore : Long.compare(a.getKey(), b.getKey());
+        };
+        if (limit >= hits.size()) {
+            return hits.entrySet().stream().sorted(ranking).map(Map.Entry::getKey).toList();
+        }
+
+        // Keep only the best `limit` entries in a heap whose head is the worst of them
+        PriorityQueue<Map.Entry<Long, float[]>> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Map.Entry<Long, float[]> e : hits.entrySet()) {
+            top.offer(e);
+            if (top.size() > limit) top.poll();
+        }
+        List<Map.Entry<Long, float[]>> best = new ArrayList<>(top);
+        best.sort(ranking);
+        return best.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private boolean collect(Map<Long, Float> best, String term, float factor, int docs) {
+        Map<Long, Float> docsForTerm = postings.get(term);
+        if (docsForTerm == null) return false;
+        float idf = idf(docs, docsForTerm.size());
+        docsForTerm.forEach((id, weight) -> best.merge(id, weight * idf * factor, Math::max));
+        return true;
+    }
+
+    private boolean collectPrefix(Map<Long, Float> best, String word, int docs) {
+        boolean matched = false;
+        int expansions = 0;
+        for (String term : postings.subMap(word, false, word + Character.MAX_VALUE, false).keySet()) {
+            if (++expansions > MAX_EXPANSIONS) break;
+            // Shorter completions are closer to what was typed
+            float closeness = (float) word.length() / term.length();
+            matched |= collect(best, term, PREFIX_FACTOR * closeness, docs);
+        }
+        return matched;
+    }
+
+    private void collectFuzzy(Map<Long, Float> best, String word, int docs) {
+        Set<String> grams = trigramsOf(word);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String g : grams) {
+            for (String term : trigrams.getOrDefault(g, Set.of())) {
+                shared.merge(term, 1, Integer::sum);
+            }
+        }
+        shared.forEach((term, common) -> {
+            // Dice coefficient over trigram sets
+            double similarity = 2.0 * common / (grams.size() + trigramCount(term));
+            if (similarity >= MIN_SIMILARITY) {
+                collect(best, term, (float) (FUZZY_FACTOR * similarity), docs);
+            }
+        });
+    }
+
+    private static float idf(int docs, int docFrequency) {
+        return (float) Math.log(1.0 + (double) docs / docFrequency);
+    }
+
+    private void add(Product p) {
+        if (p.getId() == null) return;
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, p.getName(), NAME_WEIGHT);
+        addField(weights, p.getCategory() != null ? p.getCategory().getName() : null, CATEGORY_WEIGHT);
+        addField(weights, p.getStore() != null ? p.getStore().getName() : null, STORE_WEIGHT);
+        addField(weights, p.getDescription(), DESCRIPTION_WEIGHT);
+
+        weights.forEach((term, weight) -> {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) {
+                docs = new HashMap<>();
+                postings.put(term, docs);
+                for (String g : trigramsOf(term)) {
+                    trigrams.computeIfAbsent(g, k -> new HashSet<>()).add(term);
+                }
+            }
+            docs.put(p.getId(), weight);
+        });
+        docTerms.put(p.getId(), weights.keySet());
+    }
+
+    private void remove(Long id) {
+        Set<String> terms = docTerms.remove(id);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+                for (String g : trigramsOf(term)) {
+                    Set<String> set = trigrams.get(g);
+                    if (set != null) {
+                        set.remove(term);
+                        if (set.isEmpty()) trigrams.remove(g);
+                    }
+                }
+            }
+        }
+    }
+
+    // A term's weight is its strongest field, plus a little for repeating elsewhere
+    private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, fieldWeight, (a, b) -> Math.max(a, b) + 0.1f * Math.min(a, b));
+        }
+    }
+
+    private static int trigramCount(String term) {
+        return term.length() + 1; // "$$" + term + "$" yields length + 1 trigrams
+    }
+
+    private static Set<String> trigramsOf(String term) {
+        String padded = "$$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        plain = NON_ALNUM.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        if (plain.isEmpty()) return List.of();
+
+        List<String> terms = new ArrayList<>();
+        for (String word : plain.split(" ")) {
+            String term = fold(word);
+            if (!term.isEmpty()) terms.add(term);
+        }
+        return terms;
+    }
+
+    // Collapse spelling variants of romanized Nepali/Hindi grocery words onto one form
+    static String fold(String word) {
+        if (word.chars().allMatch(Character::isDigit)) return word;
+        String w = word
+                .replace("ee", "i")
+                .replace("oo", "u")
+                .replace("ou", "u")
+                .replace('w', 'b')
+                .replace('v', 'b')
+                .replace('z', 'j')
+                .replace('q', 'k')
+                .replace("ck", "k");
+        w = ASPIRATE.matcher(w).replaceAll("$1");  // aspirates are often dropped when typing
+        // Light plural stemming: noodles -> noodle, chickpeas -> chickpea. Before collapsing
+        // repeats, which would turn the "ss" of grass into a plural-looking "s".
+        if (w.length() > 3 && w.endsWith("s") && !w.endsWith("ss")) {
+            w = w.substring(0, w.length() - 1);
+        }
+        return REPEAT.matcher(w).replaceAll("$1"); // daal -> dal, chilli -> chili
+    }
+}
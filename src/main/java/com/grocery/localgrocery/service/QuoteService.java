@@ -0,0 +1,177 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+// Server-side cart pricing from the in-memory catalog: current prices, weight-based shipping,
+// 13% tax and promo codes. Quotes are memoized by the cart's canonical form (product ids with
+// quantities, plus promo code) together with CatalogService.pricingVersion(), so a price or
+// weight change invalidates them and a repeated quote - or the checkout that follows it - costs a
+// map lookup. Stock is not part of the key (every checkout writes it); a cached quote gets its
+// lines' inStock filled in from the current catalog instead.
+@Service
+public class QuoteService {
+
+    static final double TAX_RATE = 0.13;
+    static final int CACHE_SIZE = 10_000;
+
+    static final Map<String, Double> PROMO_CODES = Map.ofEntries(
+            // Festivals
+            Map.entry("DASHAIN10", 0.10),
+            Map.entry("TIHAR20", 0.20),
+            Map.entry("HOLI15", 0.15),
+            Map.entry("CHHATH20", 0.20),
+            Map.entry("MAGHESANKRANTI10", 0.10),
+            Map.entry("TEEJ15", 0.15),
+            // Nepal's Day
+            Map.entry("REPUBLIC20", 0.20),
+            Map.entry("CONSTITUTION25", 0.25),
+            Map.entry("DEMOCRACY15", 0.15),
+            Map.entry("NATIONALDAY30", 0.30),
+            // Tourism & Pride
+            Map.entry("EVEREST30", 0.30),
+            Map.entry("VISITNEPAL20", 0.20),
+            Map.entry("ANNAPURNA15", 0.15),
+            Map.entry("LUMBINI25", 0.25),
+            // Shopping & Seasonal Sales
+            Map.entry("NEWYEAR20", 0.20),
+            Map.entry("MONSOON15", 0.15),
+            Map.entry("WINTER25", 0.25),
+            Map.entry("SUMMER10", 0.10),
+            // Special Days
+            Map.entry("STUDENT20", 0.20),
+            Map.entry("FAMILY40", 0.40));
+
+    public static class Line {
+        public Long productId;
+        public String name;
+        public double unitPrice;
+        public int quantity;
+        public double lineTotal;
+        public double weightKg; // for the whole line
+        public boolean inStock;
+    }
+
+    public static class Quote {
+        public List<Line> lines = new ArrayList<>();
+        public double subtotal;
+        public double totalWeightKg;
+        public double shippingFee;
+        public double tax;
+        public String promoCode; // null unless a valid code was applied
+        public boolean promoValid;
+        public double discount;
+        public double total;
+        public long pricingVersion;
+
+        // The cached quote is shared; callers get their own copy
+        Quote copy() {
+            Quote q = new Quote();
+            for (Line l : lines) {
+                Line c = new Line();
+                c.productId = l.productId;
+                c.name = l.name;
+                c.unitPrice = l.unitPrice;
+                c.quantity = l.quantity;
+                c.lineTotal = l.lineTotal;
+                c.weightKg = l.weightKg;
+                q.lines.add(c);
+            }
+            q.subtotal = subtotal;
+            q.totalWeightKg = totalWeightKg;
+            q.shippingFee = shippingFee;
+            q.tax = tax;
+            q.promoCode = promoCode;
+            q.promoValid = promoValid;
+            q.discount = discount;
+            q.total = total;
+            q.pricingVersion = pricingVersion;
+            return q;
+        }
+    }
+
+    private record Cached(long version, Quote quote) {}
+
+    private final CatalogService catalogService;
+    private final Map<String, Cached> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public QuoteService(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    // quantities: product id -> units, each product once
+    public Quote quote(Map<Long, Integer> quantities, String promoCode) {
+        String code = promoCode == null || promoCode.isBlank() ? null : promoCode.trim().toUpperCase();
+        SortedMap<Long, Integer> sorted = new TreeMap<>(quantities);
+        String key = sorted + "|" + code;
+
+        // Read the version before the catalog: a write in between only makes this entry stale early
+        long version = catalogService.pricingVersion();
+        Cached cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        CatalogSnapshot catalog = catalogService.snapshot();
+        Quote priced;
+        if (cached != null && cached.version == version) {
+            priced = cached.quote;
+        } else {
+            priced = price(sorted, code, catalog);
+            priced.pricingVersion = version;
+            synchronized (cache) {
+                cache.put(key, new Cached(version, priced));
+            }
+        }
+        Quote quote = priced.copy();
+        for (Line line : quote.lines) {
+            Product p = catalog.get(line.productId);
+            line.inStock = p != null && p.getStock() >= line.quantity;
+        }
+        return quote;
+    }
+
+    // Shipping fee calculation: 100 base + 50 per additional kg
+    // 1kg = 100, 2kg = 150, 3kg = 200, 4kg = 250, etc.
+    public static double shippingFee(double totalWeight) {
+        if (totalWeight <= 0) return 0;
+        if (totalWeight <= 1) return 100;
+        return 100 + (Math.ceil(totalWeight - 1) * 50);
+    }
+
+    private static Quote price(SortedMap<Long, Integer> quantities, String code, CatalogSnapshot catalog) {
+        Quote quote = new Quote();
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            Product p = catalog.get(e.getKey());
+            if (p == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+            Line line = new Line();
+            line.productId = p.getId();
+            line.name = p.getName();
+            line.unitPrice = p.getPrice();
+            line.quantity = e.getValue();
+            line.lineTotal = p.getPrice() * e.getValue();
+            line.weightKg = p.getWeightKg() * e.getValue();
+            quote.lines.add(line);
+            quote.subtotal += line.lineTotal;
+            quote.totalWeightKg += line.weightKg;
+        }
+        quote.shippingFee = shippingFee(quote.totalWeightKg);
+        quote.tax = quote.subtotal * TAX_RATE;
+        Double rate = code == null ? null : PROMO_CODES.get(code);
+        if (rate != null) {
+            quote.promoCode = code;
+            quote.promoValid = true;
+            quote.discount = quote.subtotal * rate;
+        }
+        quote.total = quote.subtotal + quote.shippingFee + quote.tax - quote.discount;
+        return quote;
+    }
+}
@@ -0,0 +1,94 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.ProductSpecifications;
+import com.grocery.localgrocery.repository.ProductSpecifications.SortKey;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// "Frequently bought together" recommendations from order history. The co-purchase index is
+// built from order_items on first use and then updated after each placed order, so a lookup
+// never touches the database unless there is too little history and best sellers fill the gap.
+@Service
+public class RecommendationService {
+
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final CatalogService catalogService;
+    private final CoPurchaseIndex index = new CoPurchaseIndex();
+    private volatile boolean loaded;
+
+    public RecommendationService(OrderItemRepository orderItemRepository,
+                                 ProductRepository productRepository,
+                                 CatalogService catalogService) {
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        this.catalogService = catalogService;
+    }
+
+    // Call after an order and its items have been saved (and committed)
+    public void orderPlaced(Collection<Long> productIds) {
+        if (!loaded) {
+            load(); // the new rows are already in order_items, so the load includes them
+            return;
+        }
+        index.addBasket(productIds);
+    }
+
+    public List<Product> recommend(Collection<Long> cart, int limit) {
+        if (!loaded) load();
+        CatalogSnapshot catalog = catalogService.snapshot();
+
+        List<Product> result = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>(cart);
+        for (Long id : index.recommend(cart, limit, candidate -> inStock(catalog.get(candidate)))) {
+            result.add(catalog.get(id));
+            seen.add(id);
+        }
+        if (result.size() < limit) {
+            // Not enough history for this cart: top up with in-stock best sellers
+            List<Product> popular = productRepository.findBy(
+                    ProductSpecifications.inStock().and(ProductSpecifications.fetchCategoryAndStore()),
+                    q -> q.sortBy(SortKey.POPULARITY.sort()).limit(limit + seen.size()).all());
+            for (Product p : popular) {
+                if (result.size() >= limit) break;
+                if (seen.add(p.getId())) result.add(p);
+            }
+        }
+        return result;
+    }
+
+    // Rebuild from the database
+    public synchronized void reload() {
+        index.clear();
+        List<Long> basket = new ArrayList<>();
+        Long currentOrder = null;
+        for (Object[] row : orderItemRepository.findOrderProductPairs()) {
+            Long orderId = (Long) row[0];
+            if (!Objects.equals(orderId, currentOrder)) {
+                index.addBasket(basket);
+                basket.clear();
+                currentOrder = orderId;
+            }
+            basket.add((Long) row[1]);
+        }
+        index.addBasket(basket);
+        loaded = true;
+    }
+
+    private synchronized void load() {
+        if (!loaded) reload();
+    }
+
+    private static boolean inStock(Product p) {
+        return p != null && p.getStock() > 0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Admin decisions on return requests. A batch is checked up front and then applied in one
+// transaction as batched UPDATEs plus the matching order_events rows: every line moves, or none.
+@Service
+public class ReturnService {
+
+    public static final int MAX_BATCH = 500;
+
+    // Which return statuses each action may be applied to
+    static final Map<String, Set<String>> ALLOWED_FROM = Map.of(
+            "APPROVED", Set.of("REQUESTED"),
+            "REJECTED", Set.of("REQUESTED"),
+            "REFUNDED", Set.of("REQUESTED", "APPROVED"));
+
+    private final OrderItemRepository orderItemRepository;
+    private final OrderEventService orderEventService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ReturnService(OrderItemRepository orderItemRepository,
+                         OrderEventService orderEventService,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager) {
+        this.orderItemRepository = orderItemRepository;
+        this.orderEventService = orderEventService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Returns the number of lines processed
+    public int process(Collection<Long> itemIds, String action) {
+        if (!ALLOWED_FROM.containsKey(action)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid action");
+        }
+        Set<Long> ids = new LinkedHashSet<>(itemIds);
+        if (ids.isEmpty() || ids.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Between 1 and " + MAX_BATCH + " returns required");
+        }
+
+        return transactionTemplate.execute(tx -> {
+            Map<Long, Object[]> states = new HashMap<>();
+            for (Object[] row : orderItemRepository.findReturnStates(ids)) states.put((Long) row[0], row);
+            List<Long> missing = ids.stream().filter(id -> !states.containsKey(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Return not found: " + missing);
+            }
+            List<Long> invalid = ids.stream()
+                    .filter(id -> !ALLOWED_FROM.get(action).contains((String) states.get(id)[1])).toList();
+            if (!invalid.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot " + action + " returns: " + invalid);
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> lineUpdates = new ArrayList<>(ids.size());
+            List<OrderEvent> events = new ArrayList<>(ids.size());
+            Map<Long, String> refundedOrders = new LinkedHashMap<>();
+            for (Long id : ids) {
+                Object[] state = states.get(id);
+                String from = (String) state[1];
+                Long orderId = (Long) state[2];
+                lineUpdates.add(new Object[]{action, now, now, id, from});
+                events.add(new OrderEvent(orderId, id, OrderEvent.RETURN_STATUS, from, action));
+                if ("REFUNDED".equals(action) && !"REFUNDED".equals(state[3])) {
+                    refundedOrders.putIfAbsent(orderId, (String) state[3]);
+                }
+            }
+
+            // The status guard makes a line that another admin changed meanwhile fail the batch
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE order_items SET return_status = ?, return_processed_at = ?, "
+                    + "return_requested_at = COALESCE(return_requested_at, ?) WHERE id = ? AND return_status = ?", lineUpdates);
+            if (Arrays.stream(updated).anyMatch(n -> n == 0)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Returns changed while processing; reload and retry");
+            }
+            if (!refundedOrders.isEmpty()) {
+                List<Object[]> orderUpdates = new ArrayList<>(refundedOrders.size());
+                refundedOrders.forEach((orderId, from) -> {
+                    orderUpdates.add(new Object[]{orderId});
+                    events.add(new OrderEvent(orderId, null, OrderEvent.PAYMENT_STATUS, from, "REFUNDED"));
+                });
+                jdbcTemplate.batchUpdate("UPDATE orders SET payment_status = 'REFUNDED' WHERE id = ?", orderUpdates);
+            }
+            orderEventService.appendAll(events);
+            return ids.size();
+        });
+    }
+}
@@ -0,0 +1,294 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.entity.SalesDaily;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Keeps sales_daily in step with orders. OrderEventService passes every batch of transitions in
+// the writing transaction: a placed (or un-cancelled) order adds its total and lines, a cancelled
+// one takes them out again, and a refunded line takes out its refund. Charts then read a few
+// rollup rows per day instead of scanning orders.
+//
+// rebuild() recomputes a date range from orders and order_items (see DailyRebuild).
+@Service
+public class SalesRollupService implements OrderEventListener {
+
+    static final int SLOTS = 8;
+
+    private static final String LINES_SQL = "SELECT o.id, o.created_at, o.total, o.status, oi.id, oi.quantity, "
+            + "oi.price_at_purchase, oi.return_status, oi.refund_amount, p.store_id, p.category_id FROM orders o "
+            + "LEFT JOIN order_items oi ON oi.order_id = o.id LEFT JOIN products p ON p.id = oi.product_id ";
+
+    public record DayTotals(LocalDate day, BigDecimal revenue, long orders, long items) {}
+
+    // A store's or category's share of a date range; name is null for NONE
+    public record Share(long id, String name, BigDecimal revenue, long orders, long items) {}
+
+    private static final class Totals {
+        BigDecimal revenue = BigDecimal.ZERO;
+        long orders;
+        long items;
+
+        void add(BigDecimal revenue, long orders, long items) {
+            this.revenue = this.revenue.add(revenue);
+            this.orders += orders;
+            this.items += items;
+        }
+
+        boolean isZero() {
+            return revenue.signum() == 0 && orders == 0 && items == 0;
+        }
+    }
+
+    // One row of LINES_SQL; itemId is null for an order without lines
+    private record Line(long orderId, LocalDate day, BigDecimal orderTotal, String status, Long itemId, int quantity,
+                        double price, String returnStatus, Double refundAmount, long storeId, long categoryId) {
+
+        static Line of(ResultSet rs) throws SQLException {
+            long itemId = rs.getLong(5);
+            boolean hasItem = !rs.wasNull();
+            double refund = rs.getDouble(9);
+            Double refundAmount = rs.wasNull() ? null : refund;
+            long storeId = rs.getLong(10);
+            long categoryId = rs.getLong(11);
+            return new Line(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime().toLocalDate(), rs.getBigDecimal(3),
+                    rs.getString(4), hasItem ? itemId : null, rs.getInt(6), rs.getDouble(7), rs.getString(8),
+                    refundAmount, storeId == 0 ? SalesDaily.NONE : storeId, categoryId == 0 ? SalesDaily.NONE : categoryId);
+        }
+
+        BigDecimal value() {
+            return BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(quantity));
+        }
+
+        BigDecimal refund() {
+            return refundAmount != null ? BigDecimal.valueOf(refundAmount) : value();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DailyRebuild rebuilder;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuilder = new DailyRebuild("sales_daily", "/api/admin/sales-rollup/rebuild", jdbcTemplate,
+                new TransactionTemplate(transactionManager), this::rebuildChunk);
+    }
+
+    // Inside the transaction that wrote the events, after the order's lines exist
+    @Override
+    public void record(List<OrderEvent> events) {
+        Map<Long, Integer> orders = new LinkedHashMap<>();
+        Map<Long, Integer> refunds = new LinkedHashMap<>();
+        for (OrderEvent e : events) {
+            if (OrderEvent.ORDER_STATUS.equals(e.getType())) {
+                int d = counted(e.getToValue()) - counted(e.getFromValue());
+                if (d != 0) orders.merge(e.getOrderId(), d, Integer::sum);
+            } else if (OrderEvent.RETURN_STATUS.equals(e.getType())) {
+                int d = refunded(e.getToValue()) - refunded(e.getFromValue());
+                if (d != 0) refunds.merge(e.getOrderItemId(), d, Integer::sum);
+            }
+        }
+        if (orders.isEmpty() && refunds.isEmpty()) return;
+
+        Map<DayKey, Totals> totals = new TreeMap<>();
+        if (!orders.isEmpty()) {
+            forEachOrder("WHERE o.id IN (" + Sql.placeholders(orders.size()) + ") ORDER BY o.id, oi.id",
+                    orders.keySet().toArray(), lines -> addOrder(totals, lines, orders.get(lines.get(0).orderId())));
+        }
+        if (!refunds.isEmpty()) {
+            jdbcTemplate.query(LINES_SQL + "WHERE oi.id IN (" + Sql.placeholders(refunds.size()) + ")", rs -> {
+                Line line = Line.of(rs);
+                addRefund(totals, line, refunds.get(line.itemId()));
+            }, refunds.keySet().toArray());
+        }
+        apply(totals, ThreadLocalRandom.current().nextInt(SLOTS));
+    }
+
+    // Totals for every day in [from, to] that had sales, oldest first
+    public List<DayTotals> daily(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT sales_date, SUM(revenue), SUM(order_count), SUM(item_count) FROM sales_daily "
+                        + "WHERE sales_date >= ? AND sales_date <= ? AND store_id = ? AND category_id = ? "
+                        + "GROUP BY sales_date ORDER BY sales_date",
+                (rs, i) -> new DayTotals(rs.getDate(1).toLocalDate(), rs.getBigDecimal(2), rs.getLong(3), rs.getLong(4)),
+                Date.valueOf(from), Date.valueOf(to), SalesDaily.ALL, SalesDaily.ALL);
+    }
+
+    // Net sales of the orders placed in [from, to]; either end may be null for no bound. Read from
+    // the day total rows, so the cost follows the number of days. Until the first build has
+    // finished those are incomplete, and the figure is worked out from orders instead.
+    public BigDecimal revenue(LocalDate from, LocalDate to) {
+        List<Object> args = new ArrayList<>();
+        if (rebuilder.building()) {
+            String range = range("o.created_at", from == null ? null : Timestamp.valueOf(from.atStartOfDay()),
+                    to == null ? null : Timestamp.valueOf(to.plusDays(1).atStartOfDay()), args);
+            List<Object> both = new ArrayList<>(args);
+            both.addAll(args);
+            return jdbcTemplate.queryForObject("SELECT (SELECT COALESCE(SUM(o.total), 0) FROM orders o "
+                    + "WHERE o.status <> 'CANCELLED'" + range + ") - (SELECT COALESCE(SUM(COALESCE(oi.refund_amount, "
+                    + "oi.price_at_purchase * oi.quantity)), 0) FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                    + "WHERE oi.return_status = 'REFUNDED' AND o.status <> 'CANCELLED'" + range + ")",
+                    BigDecimal.class, both.toArray());
+        }
+        args.add(SalesDaily.ALL);
+        args.add(SalesDaily.ALL);
+        String range = range("sales_date", from == null ? null : Date.valueOf(from),
+                to == null ? null : Date.valueOf(to.plusDays(1)), args);
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(revenue), 0) FROM sales_daily "
+                + "WHERE store_id = ? AND category_id = ?" + range, BigDecimal.class, args.toArray());
+    }
+
+    // Per store over [from, to], highest revenue first
+    public List<Share> byStore(LocalDate from, LocalDate to) {
+        return shares("store_id", "category_id", "stores", from, to);
+    }
+
+    // Per category over [from, to], highest revenue first
+    public List<Share> byCategory(LocalDate from, LocalDate to) {
+        return shares("category_id", "store_id", "categories", from, to);
+    }
+
+    // Recompute [from, to] from orders; returns the number of days covered
+    public int rebuild(LocalDate from, LocalDate to) {
+        return rebuilder.rebuild(from, to);
+    }
+
+    // Everything from the first order to today
+    public int rebuild() {
+        return rebuilder.rebuild();
+    }
+
+    // First start with existing orders: fill the rollup in the background. revenue() reads orders
+    // until a full rebuild has succeeded.
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfEmpty() {
+        rebuilder.buildIfEmpty();
+    }
+
+    private void rebuildChunk(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM sales_daily WHERE sales_date >= ? AND sales_date < ?",
+                Date.valueOf(from), Date.valueOf(to));
+        Map<DayKey, Totals> totals = new TreeMap<>();
+        forEachOrder("WHERE o.created_at >= ? AND o.created_at < ? ORDER BY o.id, oi.id",
+                new Object[]{Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay())}, lines -> {
+                    if (counted(lines.get(0).status()) == 0) return;
+                    addOrder(totals, lines, 1);
+                    for (Line line : lines) {
+                        if (refunded(line.returnStatus()) == 1) addRefund(totals, line, 1);
+                    }
+                });
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        totals.forEach((k, t) -> {
+            if (!t.isZero()) rows.add(new Object[]{Date.valueOf(k.day()), k.storeId(), k.categoryId(), 0, t.revenue, t.orders, t.items});
+        });
+        jdbcTemplate.batchUpdate("INSERT INTO sales_daily (sales_date, store_id, category_id, slot, revenue, order_count, "
+                + "item_count) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    // Calls `action` with the lines of each order in turn
+    private void forEachOrder(String where, Object[] args, java.util.function.Consumer<List<Line>> action) {
+        List<Line> lines = new ArrayList<>();
+        jdbcTemplate.query(LINES_SQL + where, rs -> {
+            Line line = Line.of(rs);
+            if (!lines.isEmpty() && lines.get(0).orderId() != line.orderId()) {
+                action.accept(List.copyOf(lines));
+                lines.clear();
+            }
+            lines.add(line);
+        }, args);
+        if (!lines.isEmpty()) action.accept(lines);
+    }
+
+    // sign 1 counts the order in, -1 takes it out
+    private static void addOrder(Map<DayKey, Totals> totals, List<Line> lines, int sign) {
+        Line first = lines.get(0);
+        LocalDate day = first.day();
+        long units = 0;
+        Set<Long> stores = new HashSet<>();
+        Set<Long> categories = new HashSet<>();
+        for (Line line : lines) {
+            if (line.itemId() == null) continue;
+            units += line.quantity();
+            BigDecimal value = line.value().multiply(BigDecimal.valueOf(sign));
+            totals.computeIfAbsent(new DayKey(day, line.storeId(), SalesDaily.ALL), k -> new Totals())
+                    .add(value, stores.add(line.storeId()) ? sign : 0, (long) sign * line.quantity());
+            totals.computeIfAbsent(new DayKey(day, SalesDaily.ALL, line.categoryId()), k -> new Totals())
+                    .add(value, categories.add(line.categoryId()) ? sign : 0, (long) sign * line.quantity());
+        }
+        totals.computeIfAbsent(new DayKey(day, SalesDaily.ALL, SalesDaily.ALL), k -> new Totals())
+                .add(first.orderTotal().multiply(BigDecimal.valueOf(sign)), sign, sign * units);
+    }
+
+    // sign 1 takes the refund out of sales, -1 puts it back
+    private static void addRefund(Map<DayKey, Totals> totals, Line line, int sign) {
+        BigDecimal refund = line.refund().multiply(BigDecimal.valueOf(-sign));
+        long units = (long) -sign * line.quantity();
+        totals.computeIfAbsent(new DayKey(line.day(), SalesDaily.ALL, SalesDaily.ALL), k -> new Totals()).add(refund, 0, units);
+        totals.computeIfAbsent(new DayKey(line.day(), line.storeId(), SalesDaily.ALL), k -> new Totals()).add(refund, 0, units);
+        totals.computeIfAbsent(new DayKey(line.day(), SalesDaily.ALL, line.categoryId()), k -> new Totals()).add(refund, 0, units);
+    }
+
+    // Keys in sorted order, so two transactions touching the same rows lock them in the same order
+    private void apply(Map<DayKey, Totals> totals, int slot) {
+        totals.forEach((k, t) -> {
+            if (t.isZero()) return;
+            Object[] args = {t.revenue, t.orders, t.items, Date.valueOf(k.day()), k.storeId(), k.categoryId(), slot};
+            String update = "UPDATE sales_daily SET revenue = revenue + ?, order_count = order_count + ?, "
+                    + "item_count = item_count + ? WHERE sales_date = ? AND store_id = ? AND category_id = ? AND slot = ?";
+            if (jdbcTemplate.update(update, args) > 0) return;
+            try {
+                jdbcTemplate.update("INSERT INTO sales_daily (sales_date, store_id, category_id, slot, revenue, "
+                        + "order_count, item_count) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        Date.valueOf(k.day()), k.storeId(), k.categoryId(), slot, t.revenue, t.orders, t.items);
+            } catch (DuplicateKeyException e) {
+                // Another checkout created the row first
+                jdbcTemplate.update(update, args);
+            }
+        });
+    }
+
+    private List<Share> shares(String column, String otherColumn, String table, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT r." + column + ", t.name, SUM(r.revenue), SUM(r.order_count), SUM(r.item_count) "
+                        + "FROM sales_daily r LEFT JOIN " + table + " t ON t.id = r." + column + " "
+                        + "WHERE r.sales_date >= ? AND r.sales_date <= ? AND r." + otherColumn + " = ? AND r." + column + " <> ? "
+                        + "GROUP BY r." + column + ", t.name ORDER BY SUM(r.revenue) DESC",
+                (rs, i) -> new Share(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3), rs.getLong(4), rs.getLong(5)),
+                Date.valueOf(from), Date.valueOf(to), SalesDaily.ALL, SalesDaily.ALL);
+    }
+
+    // " AND column >= ? AND column < ?" for the bounds given, adding them to args
+    private static String range(String column, Object from, Object to, List<Object> args) {
+        StringBuilder sql = new StringBuilder();
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            args.add(to);
+        }
+        return sql.toString();
+    }
+
+    private static int counted(String status) {
+        return status != null && !"CANCELLED".equals(status) ? 1 : 0;
+    }
+
+    private static int refunded(String returnStatus) {
+        return "REFUNDED".equals(returnStatus) ? 1 : 0;
+    }
+}
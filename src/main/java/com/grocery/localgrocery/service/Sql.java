@@ -0,0 +1,13 @@
+package com.grocery.localgrocery.service;
+
+import java.util.Collections;
+
+final class Sql {
+
+    private Sql() {}
+
+    // "?,?,?" for an IN list of n values
+    static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+}
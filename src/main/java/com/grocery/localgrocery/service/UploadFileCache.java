@@ -0,0 +1,70 @@
+package com.grocery.localgrocery.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Byte-bounded LRU of small uploaded files (thumbnails, card images) so the hottest images are
+// served from memory. Entries are keyed by path and dropped as soon as size or mtime change.
+@Component
+public class UploadFileCache {
+
+    public static final int MAX_ENTRY_BYTES = 256 * 1024;
+    static final long DEFAULT_CAPACITY_BYTES = 64L * 1024 * 1024;
+
+    private record Entry(byte[] data, long lastModified) {}
+
+    private final long capacityBytes;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+
+    public UploadFileCache() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    UploadFileCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    // File contents, from memory when the cached copy is still current; null if too large to cache
+    public byte[] read(Path file, long size, long lastModified) throws IOException {
+        if (size > MAX_ENTRY_BYTES) return null;
+        synchronized (this) {
+            Entry e = entries.get(file);
+            if (e != null && e.lastModified == lastModified && e.data.length == size) {
+                return e.data;
+            }
+        }
+
+        byte[] data = Files.readAllBytes(file);
+        if (data.length != size) return data; // changed while reading; serve but don't keep
+        synchronized (this) {
+            Entry previous = entries.put(file, new Entry(data, lastModified));
+            if (previous != null) usedBytes -= previous.data.length;
+            usedBytes += data.length;
+            evict();
+        }
+        return data;
+    }
+
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        var it = entries.entrySet().iterator();
+        while (usedBytes > capacityBytes && it.hasNext()) {
+            Map.Entry<Path, Entry> eldest = it.next();
+            usedBytes -= eldest.getValue().data.length;
+            it.remove();
+        }
+    }
+}
@@ -158,9 +158,9 @@ function updateDashboardStats() {
     document.getElementById('totalReturns').textContent = dashboardData.pendingReturns || 0;
 
     // Update trends
-    document.getElementById('revenueTrend').textContent = `+${dashboardData.revenueGrowth || 0}%`;
-    document.getElementById('ordersTrend').textContent = `+${dashboardData.orderGrowth || 0}%`;
-    document.getElementById('customersTrend').textContent = `+${dashboardData.customerGrowth || 0}%`;
+    document.getElementById('revenueTrend').textContent = formatGrowth(dashboardData.revenueGrowth);
+    document.getElementById('ordersTrend').textContent = formatGrowth(dashboardData.orderGrowth);
+    document.getElementById('customersTrend').textContent = formatGrowth(dashboardData.customerGrowth);
     document.getElementById('returnsTrend').textContent = `${dashboardData.returnRate || 0}%`;
 
     // Update returns badge
@@ -171,6 +171,12 @@ function updateDashboardStats() {
     }
 }
 
+// Change against the previous 30 days; null when there is nothing to compare with
+function formatGrowth(value) {
+    if (value === null || value === undefined) return '—';
+    return `${value > 0 ? '+' : ''}${value}%`;
+}
+
 // Update sidebar stats
 function updateSidebarStats() {
     if (!dashboardData) return;
@@ -192,8 +198,8 @@ async function loadRecentOrders() {
     try {
         const response = await fetch('/api/admin/orders/recent?limit=10');
         if (response.ok) {
-            const orders = await response.json();
-            renderRecentOrders(orders);
+            const page = await response.json();
+            renderRecentOrders(page.orders);
         }
     } catch (error) {
         console.error('Error loading recent orders:', error);
@@ -220,8 +226,8 @@ function renderRecentOrders(orders) {
         row.innerHTML = `
             <td><strong>#${order.id}</strong></td>
             <td>
-                <div>${order.user?.name || 'Unknown'}</div>
-                <small class="text-muted">${order.user?.email || ''}</small>
+                <div>${order.customerName || 'Unknown'}</div>
+                <small class="text-muted">${order.customerEmail || ''}</small>
                 ${cancelledInfo}
             </td>
             <td>Rs. ${formatPrice(order.total)}</td>
@@ -315,6 +321,7 @@ function renderOrdersChart(data) {
         'PLACED': '#ffc107',
         'ASSIGNED': '#17a2b8',
         'PICKED_UP': '#007bff',
+        'PAYMENT_RECEIVED': '#6f42c1',
         'DELIVERED': '#28a745',
         'CANCELLED': '#dc3545'
     };
@@ -341,13 +348,60 @@ function renderOrdersChart(data) {
     });
 }
 
-// Returns Management
+// Returns Management: server-side queue, oldest request first, one page at a time
+const RETURN_PAGE_SIZE = 50;
+const RETURN_FILTERS = {
+    pending: 'REQUESTED',
+    approved: 'APPROVED',
+    rejected: 'REJECTED',
+    refunded: 'REFUNDED'
+};
+let returnFilter = 'all';
+let returnCursor = null;
+
 async function loadReturns() {
+    returnCursor = null;
+    await fetchReturnPage(false);
+}
+
+function loadMoreReturns() {
+    if (returnCursor) return fetchReturnPage(true);
+}
+
+function filterReturns(filter) {
+    returnFilter = filter;
+    document.querySelectorAll('#returns .admin-tabs .admin-tab').forEach(tab =>
+        tab.classList.toggle('active', tab.getAttribute('onclick') === `filterReturns('${filter}')`));
+    loadReturns();
+}
+
+function returnQueueParams() {
+    const params = new URLSearchParams({ limit: RETURN_PAGE_SIZE });
+    if (RETURN_FILTERS[returnFilter]) params.set('status', RETURN_FILTERS[returnFilter]);
+    const q = document.getElementById('returnSearchInput')?.value.trim();
+    const from = document.getElementById('returnFromDate')?.value;
+    const to = document.getElementById('returnToDate')?.value;
+    if (q) params.set('q', q);
+    if (from) params.set('from', from);
+    if (to) params.set('to', to);
+    if (returnCursor) {
+        if (returnCursor.requestedAt) params.set('afterRequestedAt', returnCursor.requestedAt);
+        params.set('afterId', returnCursor.id);
+    }
+    return params;
+}
+
+async function fetchReturnPage(append) {
     try {
-        const response = await fetch('/api/admin/returns');
+        const response = await fetch(`/api/admin/returns?${returnQueueParams()}`);
         if (response.ok) {
-            const returns = await response.json();
-            renderReturnsTable(returns);
+            const page = await response.json();
+            returnCursor = page.nextAfterId
+                ? { requestedAt: page.nextAfterRequestedAt, id: page.nextAfterId }
+                : null;
+            renderReturnsTable(page.returns, append);
+            const moreBtn = document.getElementById('loadMoreReturnsBtn');
+            if (moreBtn) moreBtn.style.display = returnCursor ? 'inline-block' : 'none';
         }
     } catch (error) {
         console.error('Error loading returns:', error);
@@ -355,13 +409,19 @@ async function loadReturns() {
 }
 
 // Render returns table
-function renderReturnsTable(returns) {
+function renderReturnsTable(returns, append = false) {
     const tbody = document.querySelector('#returnsTable tbody');
-    tbody.innerHTML = '';
+    if (!append) {
+        tbody.innerHTML = '';
+        const selectAll = document.getElementById('selectAllReturns');
+        if (selectAll) selectAll.checked = false;
+    }
 
     returns.forEach(ret => {
         const row = document.createElement('tr');
+        const selectable = ret.returnStatus === 'REQUESTED' || ret.returnStatus === 'APPROVED';
         row.innerHTML = `
+            <td>${selectable ? `<input type="checkbox" class="return-select" value="${ret.id}">` : ''}</td>
             <td>#${ret.id}</td>
             <td>#${ret.orderId}</td>
             <td>${ret.customerName}</td>
@@ -421,6 +481,45 @@ async function processReturn(returnId, action) {
     }
 }
 
+function toggleAllReturns(checked) {
+    document.querySelectorAll('#returnsTable .return-select').forEach(box => box.checked = checked);
+}
+
+// Process every checked return with one request; the server applies all of them or none
+async function processSelectedReturns(action) {
+    const ids = [...document.querySelectorAll('#returnsTable .return-select:checked')].map(box => Number(box.value));
+    if (ids.length === 0) {
+        alert('Select at least one return first.');
+        return;
+    }
+    if (!confirm(`Are you sure you want to ${action.toLowerCase()} ${ids.length} return(s)?`)) {
+        return;
+    }
+
+    try {
+        const response = await fetch('/api/admin/returns/process', {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({ ids, action })
+        });
+
+        if (response.ok) {
+            const result = await response.json();
+            alert(`${result.processed} return(s) ${action.toLowerCase()} successfully!`);
+            await loadReturns();
+            await loadDashboardData(); // Refresh stats
+        } else {
+            const error = await response.text();
+            alert(`Error: ${error}`);
+        }
+    } catch (error) {
+        console.error('Error processing returns:', error);
+        alert('Failed to process returns. Please try again.');
+    }
+}
+
 // View return details
 function viewReturnDetails(returnId) {
     alert('View return details for ID: ' + returnId);
@@ -437,13 +536,59 @@ function viewOrderDetails(orderId) {
    ADDED: Orders Tab Functions
    =========================== */
 
-// Load all orders for the Orders tab
+// Orders tab: server-side search, one page at a time
+const ORDER_PAGE_SIZE = 50;
+let orderQuickFilter = 'all';
+let orderNextBefore = null;
+
 async function loadOrders() {
+    orderNextBefore = null;
+    await fetchOrderPage(false);
+}
+
+function searchAdminOrders() {
+    return loadOrders();
+}
+
+function loadMoreAdminOrders() {
+    if (orderNextBefore) return fetchOrderPage(true);
+}
+
+function orderSearchParams() {
+    const params = new URLSearchParams({ limit: ORDER_PAGE_SIZE });
+    const today = new Date().toISOString().slice(0, 10);
+    if (orderQuickFilter === 'today') {
+        params.set('from', today);
+        params.set('to', today);
+    } else if (orderQuickFilter === 'pending') {
+        params.set('status', 'PLACED,ASSIGNED,PICKED_UP');
+    } else if (orderQuickFilter === 'delivered') {
+        params.set('status', 'DELIVERED');
+    } else if (orderQuickFilter === 'cancelled') {
+        params.set('status', 'CANCELLED');
+    }
+
+    const q = document.getElementById('orderSearchInput')?.value.trim();
+    const from = document.getElementById('orderFromDate')?.value;
+    const to = document.getElementById('orderToDate')?.value;
+    const paymentMethod = document.getElementById('orderPaymentMethod')?.value;
+    if (q) params.set('q', q);
+    if (from && !params.has('from')) params.set('from', from);
+    if (to && !params.has('to')) params.set('to', to);
+    if (paymentMethod) params.set('paymentMethod', paymentMethod);
+    if (orderNextBefore) params.set('before', orderNextBefore);
+    return params;
+}
+
+async function fetchOrderPage(append) {
     try {
-        const response = await fetch('/api/orders');
+        const response = await fetch(`/api/admin/orders/search?${orderSearchParams()}`);
         if (response.ok) {
-            const orders = await response.json();
-            renderOrdersTable(orders);
+            const page = await response.json();
+            orderNextBefore = page.nextBefore;
+            renderOrdersTable(page.orders, append);
+            const moreBtn = document.getElementById('loadMoreOrdersBtn');
+            if (moreBtn) moreBtn.style.display = orderNextBefore ? 'inline-block' : 'none';
         } else {
             console.error('Failed to load orders');
         }
@@ -453,13 +598,13 @@ async function loadOrders() {
 }
 
 // Render orders in the admin orders table
-function renderOrdersTable(orders) {
+function renderOrdersTable(orders, append = false) {
     const tbody = document.querySelector('#ordersTable tbody');
-    tbody.innerHTML = '';
+    if (!append) tbody.innerHTML = '';
 
     orders.forEach(order => {
         const row = document.createElement('tr');
-        const itemsCount = order.items ? order.items.length : 0;
+        const itemsCount = order.itemCount || 0;
 
         const cancelledInfo = order.status === 'CANCELLED'
             ? `<div style="margin-top:4px;">
@@ -471,8 +616,8 @@ function renderOrdersTable(orders) {
         row.innerHTML = `
             <td><strong>#${order.id}</strong></td>
             <td>
-                <div>${order.user?.name || 'Unknown'}</div>
-                <small class="text-muted">${order.user?.email || ''}</small>
+                <div>${order.customerName || 'Unknown'}</div>
+                <small class="text-muted">${order.customerEmail || ''}</small>
                 ${cancelledInfo}
             </td>
             <td>${itemsCount} item${itemsCount !== 1 ? 's' : ''}</td>
@@ -512,6 +657,14 @@ async function loadAnalytics() {
             renderTopProducts(topProducts);
         }
 
+        // Distinct customers (estimates from daily sketches)
+        const activeResponse = await fetch('/api/admin/customers/active');
+        const activeEl = document.getElementById('activeCustomers');
+        if (activeResponse.ok && activeEl) {
+            const active = await activeResponse.json();
+            activeEl.textContent = `Active customers: ${active.daily} today · ${active.weekly} in 7 days · ${active.monthly} in 30 days`;
+        }
+
         // Load customer analytics (placeholder)
         const tbody = document.querySelector('#customerAnalyticsTable tbody');
         if (tbody) {
@@ -578,13 +731,19 @@ async function loadStores() {
     }
 }
 
-// Load products
-async function loadProducts() {
+// Load products one page at a time (keyset cursor from /api/products/page)
+let productsCursor = null;
+
+async function loadProducts(append = false) {
     try {
-        const response = await fetch('/api/products');
+        const params = new URLSearchParams({ sort: 'name', limit: '50' });
+        if (append && productsCursor) params.set('after', productsCursor);
+
+        const response = await fetch(`/api/products/page?${params}`);
         if (response.ok) {
-            const products = await response.json();
-            renderProductsList(products);
+            const page = await response.json();
+            productsCursor = page.nextCursor;
+            renderProductsList(page.items, append);
         }
     } catch (error) {
         console.error('Error loading products:', error);
@@ -592,9 +751,10 @@ async function loadProducts() {
 }
 
 // Render products list
-function renderProductsList(products) {
+function renderProductsList(products, append = false) {
     const container = document.getElementById('productsList');
-    container.innerHTML = '';
+    if (!append) container.innerHTML = '';
+    document.getElementById('productsLoadMore')?.remove();
 
     products.forEach(product => {
         const item = document.createElement('div');
@@ -607,7 +767,7 @@ function renderProductsList(products) {
             <div style="display: flex; gap: 15px; margin-top: 10px;">
                 <div style="width: 60px; height: 60px; background: #f0f2f2; border-radius: 4px; display: flex; align-items: center; justify-content: center;">
                     ${product.imageUrl ?
-                        `<img src="${product.imageUrl}" style="width: 100%; height: 100%; object-fit: cover; border-radius: 4px;">` :
+                        `<img src="${product.thumbnailUrl || product.imageUrl}" loading="lazy" style="width: 100%; height: 100%; object-fit: cover; border-radius: 4px;">` :
                         `<i class="fas fa-box" style="color: #999;"></i>`
                     }
                 </div>
@@ -628,6 +788,15 @@ function renderProductsList(products) {
         `;
         container.appendChild(item);
     });
+
+    if (productsCursor) {
+        const more = document.createElement('button');
+        more.id = 'productsLoadMore';
+        more.className = 'action-btn';
+        more.textContent = 'Load more';
+        more.onclick = () => loadProducts(true);
+        container.appendChild(more);
+    }
 }
 
 // Add product
@@ -825,12 +994,12 @@ async function loadDelivery() {
 // Load unassigned orders
 async function loadUnassignedOrders() {
     try {
-        const response = await fetch('/api/admin/orders/unassigned');
+        const response = await fetch('/api/admin/orders/unassigned?limit=200');
         if (response.ok) {
-            const orders = await response.json();
+            const page = await response.json();
             const select = document.getElementById('assignOrderSelect');
             select.innerHTML = '<option value="">Choose order...</option>' +
-                orders.map(order => `<option value="${order.id}">Order #${order.id} - ${order.user?.name} - Rs. ${formatPrice(order.total)}</option>`).join('');
+                page.orders.map(order => `<option value="${order.id}">Order #${order.id} - ${order.customerName} - Rs. ${formatPrice(order.total)}</option>`).join('');
         }
     } catch (error) {
         console.error('Error loading unassigned orders:', error);
@@ -1276,38 +1445,20 @@ function setupRealtimeUpdates() {
 }
 
 /* ===========================
-   UPDATED: Orders Filter Stub
+   UPDATED: Orders Quick Filters
    =========================== */
 
 function filterOrders(filter) {
-    const rows = document.querySelectorAll('#ordersTable tbody tr');
-    rows.forEach(row => {
-        const statusCell = row.querySelector('td:nth-child(5) .status-badge-admin');
-        if (!statusCell) return;
-
-        const status = statusCell.textContent.trim().toLowerCase();
-
-        if (filter === 'all') {
-            row.style.display = '';
-        } else if (filter === 'today') {
-            const dateCell = row.querySelector('td:nth-child(7)');
-            if (dateCell && new Date(dateCell.textContent).toDateString() === new Date().toDateString()) {
-                row.style.display = '';
-            } else {
-                row.style.display = 'none';
-            }
-        } else if (filter === 'pending') {
-            row.style.display = ['placed', 'assigned', 'picked_up'].includes(status) ? '' : 'none';
-        } else if (filter === 'delivered') {
-            row.style.display = status === 'delivered' ? '' : 'none';
-        } else if (filter === 'cancelled') {
-            row.style.display = status === 'cancelled' ? '' : 'none';
-        }
-    });
+    orderQuickFilter = filter;
+    loadOrders();
 }
 
 // Export for global use
 window.processReturn = processReturn;
+window.processSelectedReturns = processSelectedReturns;
+window.toggleAllReturns = toggleAllReturns;
+window.loadMoreReturns = loadMoreReturns;
+window.loadReturns = loadReturns;
 window.addProduct = addProduct;
 window.sendNotification = sendNotification;
 window.scheduleNotification = scheduleNotification;
@@ -1325,6 +1476,8 @@ window.searchUsers = searchUsers;
 window.filterReturns = filterReturns;
 window.exportReturns = exportReturns;
 window.filterOrders = filterOrders;
+window.searchAdminOrders = searchAdminOrders;
+window.loadMoreAdminOrders = loadMoreAdminOrders;
 window.showCatalogTab = showCatalogTab;
 window.addStore = addStore;
 window.searchProducts = searchProducts;
@@ -1335,10 +1488,6 @@ window.loadMarketing = loadMarketing;
 window.loadAnalytics = loadAnalytics;
 
 // Stub functions for unimplemented features
-function filterReturns(filter) {
-    alert('Filter returns by: ' + filter);
-}
-
 function exportReturns() {
     alert('Export returns as CSV');
 }
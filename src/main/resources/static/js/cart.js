@@ -1,5 +1,6 @@
 let cart = JSON.parse(localStorage.getItem('cart')) || [];
 let promoDiscount = 0;
+let appliedPromoCode = null;
 
 document.addEventListener('DOMContentLoaded', () => {
     const user = JSON.parse(localStorage.getItem('user'));
@@ -147,7 +148,7 @@ function saveCart() {
     localStorage.setItem('cart', JSON.stringify(cart));
 }
 
-// Calculate shipping fee based on weight (matches backend logic)
+// Instant estimate while the server quote is in flight (matches backend logic)
 function calculateShippingFee(totalWeight) {
     if (totalWeight <= 0) return 0;
     if (totalWeight <= 1) return 100;
@@ -163,13 +164,33 @@ function updateOrderSummary(subtotal) {
         return sum;
     }, 0);
 
-    // Calculate shipping based on weight (matching backend logic)
     const shipping = calculateShippingFee(totalWeight);
     const tax = subtotal * 0.13;
     const discount = subtotal * promoDiscount;
-    const total = subtotal + shipping + tax - discount;
+    renderSummary({
+        subtotal: subtotal,
+        totalWeightKg: totalWeight,
+        shippingFee: shipping,
+        tax: tax,
+        discount: discount,
+        total: subtotal + shipping + tax - discount
+    });
+
+    const selectedCount = cart.filter(item => item.selected).length;
+    const itemCountEl = document.getElementById('itemCount');
+    if (itemCountEl) {
+        itemCountEl.textContent = selectedCount;
+    }
 
-    // Update all summary elements
+    const checkoutBtn = document.getElementById('checkoutBtn');
+    if (checkoutBtn) {
+        checkoutBtn.textContent = `Proceed to Checkout (${selectedCount} item${selectedCount !== 1 ? 's' : ''})`;
+    }
+
+    refreshQuote();
+}
+
+function renderSummary(quote) {
     const itemsSubtotalEl = document.getElementById('itemsSubtotal');
     const shippingFeeEl = document.getElementById('shippingFee');
     const weightInfoEl = document.getElementById('weightInfo');
@@ -177,34 +198,47 @@ function updateOrderSummary(subtotal) {
     const promoDiscountEl = document.getElementById('promoDiscount');
     const orderTotalEl = document.getElementById('orderTotal');
 
-    if (itemsSubtotalEl) itemsSubtotalEl.textContent = `Rs. ${subtotal.toFixed(2)}`;
-    if (shippingFeeEl) shippingFeeEl.textContent = `Rs. ${shipping.toFixed(2)}`;
-    if (taxAmountEl) taxAmountEl.textContent = `Rs. ${tax.toFixed(2)}`;
-    if (promoDiscountEl) promoDiscountEl.textContent = `- Rs. ${discount.toFixed(2)}`;
-    if (orderTotalEl) orderTotalEl.textContent = `Rs. ${total.toFixed(2)}`;
+    if (itemsSubtotalEl) itemsSubtotalEl.textContent = `Rs. ${quote.subtotal.toFixed(2)}`;
+    if (shippingFeeEl) shippingFeeEl.textContent = `Rs. ${quote.shippingFee.toFixed(2)}`;
+    if (taxAmountEl) taxAmountEl.textContent = `Rs. ${quote.tax.toFixed(2)}`;
+    if (promoDiscountEl) promoDiscountEl.textContent = `- Rs. ${quote.discount.toFixed(2)}`;
+    if (orderTotalEl) orderTotalEl.textContent = `Rs. ${quote.total.toFixed(2)}`;
 
     // Display weight info
     if (weightInfoEl) {
         weightInfoEl.innerHTML = `
             <span>Total weight:</span>
-            <span>${totalWeight.toFixed(2)} kg</span>
-            <span style="font-size: 11px; color: #666; margin-left: 10px;">(Shipping: Rs. ${shipping.toFixed(2)})</span>
+            <span>${quote.totalWeightKg.toFixed(2)} kg</span>
+            <span style="font-size: 11px; color: #666; margin-left: 10px;">(Shipping: Rs. ${quote.shippingFee.toFixed(2)})</span>
         `;
     }
 
-    const selectedCount = cart.filter(item => item.selected).length;
-    const itemCountEl = document.getElementById('itemCount');
-    if (itemCountEl) {
-        itemCountEl.textContent = selectedCount;
-    }
+    // Update the shipping breakdown in checkout summary if it exists
+    updateShippingBreakdown(quote.totalWeightKg, quote.shippingFee);
+}
 
-    const checkoutBtn = document.getElementById('checkoutBtn');
-    if (checkoutBtn) {
-        checkoutBtn.textContent = `Proceed to Checkout (${selectedCount} item${selectedCount !== 1 ? 's' : ''})`;
-    }
+// The authoritative prices: one request for the whole cart, answered from the server's quote cache
+let quoteSeq = 0;
+async function refreshQuote() {
+    const items = cart.filter(item => item.selected)
+        .map(item => ({ productId: item.productId, quantity: item.quantity }));
+    if (items.length === 0) return null;
 
-    // Update the shipping breakdown in checkout summary if it exists
-    updateShippingBreakdown(totalWeight, shipping);
+    const seq = ++quoteSeq;
+    try {
+        const response = await fetch('/api/orders/quote', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ items: items, promoCode: appliedPromoCode })
+        });
+        if (!response.ok || seq !== quoteSeq) return null;
+        const quote = await response.json();
+        renderSummary(quote);
+        return quote;
+    } catch (error) {
+        console.error('Error fetching quote:', error);
+        return null;
+    }
 }
 
 // Optional: Add a detailed shipping breakdown
@@ -226,52 +260,22 @@ function updateShippingBreakdown(totalWeight, shipping) {
     }
 }
 
-function applyPromoCode() {
-    const promoCode = document.getElementById('promoCode').value.toUpperCase();
+async function applyPromoCode() {
+    const promoCode = document.getElementById('promoCode').value.trim().toUpperCase();
     const promoMessage = document.getElementById('promoMessage');
 
-    const validCodes = {
-      // Festivals
-      'DASHAIN10': 0.10,
-      'TIHAR20': 0.20,
-      'HOLI15': 0.15,
-      'CHHATH20': 0.20,
-      'MAGHESANKRANTI10': 0.10,
-      'TEEJ15': 0.15,
-
-      // Nepal's Day
-      'REPUBLIC20': 0.20,
-      'CONSTITUTION25': 0.25,
-      'DEMOCRACY15': 0.15,
-      'NATIONALDAY30': 0.30,
-
-      // Tourism & Pride
-      'EVEREST30': 0.30,
-      'VISITNEPAL20': 0.20,
-      'ANNAPURNA15': 0.15,
-      'LUMBINI25': 0.25,
-
-      // Shopping & Seasonal Sales
-      'NEWYEAR20': 0.20,
-      'MONSOON15': 0.15,
-      'WINTER25': 0.25,
-      'SUMMER10': 0.10,
-
-      // Special Days
-      'STUDENT20': 0.20,
-      'FAMILY40': 0.40
-    };
+    appliedPromoCode = promoCode || null;
+    const quote = await refreshQuote();
+    if (!quote) return;
 
-    if (validCodes[promoCode]) {
-        promoDiscount = validCodes[promoCode];
-        promoMessage.innerHTML = `<span style="color: green;"><i class="fas fa-check-circle"></i> Promo code applied! ${promoCode} discount: ${promoDiscount * 100}%</span>`;
+    if (quote.promoValid) {
+        promoDiscount = quote.subtotal > 0 ? quote.discount / quote.subtotal : 0;
+        promoMessage.innerHTML = `<span style="color: green;"><i class="fas fa-check-circle"></i> Promo code applied! ${quote.promoCode} discount: ${Math.round(promoDiscount * 100)}%</span>`;
     } else {
+        appliedPromoCode = null;
         promoDiscount = 0;
         promoMessage.innerHTML = `<span style="color: red;"><i class="fas fa-times-circle"></i> Invalid promo code</span>`;
     }
-
-    const subtotal = cart.reduce((sum, item) => sum + (item.selected ? item.price * item.quantity : 0), 0);
-    updateOrderSummary(subtotal);
 }
 
 function setupPaymentToggle() {
@@ -296,15 +300,15 @@ async function loadRecommendedItems() {
     if (!recommendedItems) return;
 
     try {
-        const response = await fetch('/api/products');
-        const products = await response.json();
-
-        const randomProducts = [...products].sort(() => Math.random() - 0.5).slice(0, 4);
+        // Items frequently bought with what's in the cart (best sellers when there's no history)
+        const cartIds = cart.map(item => item.productId).join(',');
+        const response = await fetch(`/api/products/recommended?limit=4&cart=${cartIds}`);
+        const randomProducts = await response.json();
 
         recommendedItems.innerHTML = '';
         randomProducts.forEach(product => {
             const imageHtml = product.imageUrl
-              ? `<img src="${product.imageUrl}" alt="${product.name}" style="width: 100%; height: 120px; object-fit: cover; border-radius: 4px;">`
+              ? `<img src="${product.cardImageUrl || product.imageUrl}" alt="${product.name}" loading="lazy" style="width: 100%; height: 120px; object-fit: cover; border-radius: 4px;">`
               : `<i class="fas fa-shopping-basket" style="font-size: 40px; color: #ddd;"></i>`;
 
             recommendedItems.innerHTML += `
@@ -355,7 +359,7 @@ function addToCart(product) {
             name: product.name,
             price: product.price,
             weightKg: product.weightKg || 0,
-            imageUrl: product.imageUrl,
+            imageUrl: product.thumbnailUrl || product.imageUrl,
             quantity: 1,
             selected: true
         });
@@ -414,36 +418,19 @@ async function placeOrder() {
         quantity: item.quantity
     }));
 
-    // Calculate totals (matching backend calculation)
-    const subtotal = selectedItems.reduce((sum, item) => sum + (item.price * item.quantity), 0);
-    const totalWeight = selectedItems.reduce((sum, item) => sum + ((item.weightKg || 0) * item.quantity), 0);
-    const shipping = calculateShippingFee(totalWeight);
-    const tax = subtotal * 0.13;
-    const discount = subtotal * promoDiscount;
-    const total = subtotal + shipping + tax - discount;
-
-    const promoCode = document.getElementById('promoCode');
-
+    // Totals are priced by the server from the same quote the summary shows
     const orderData = {
         userId: user.id,
         deliveryAddress: deliveryAddress.value.trim(),
         items: items,
-        subtotal: subtotal,
-        tax: tax,
-        shippingFee: shipping,
-        total: total,
-        promoCode: promoCode ? promoCode.value || null : null,
+        promoCode: appliedPromoCode,
         paymentMethod: paymentMethod.value
     };
 
     try {
-        const response = await fetch('/api/orders', {
-            method: 'POST',
-            headers: {
-                'Content-Type': 'application/json'
-            },
-            body: JSON.stringify(orderData)
-        });
+        // One key per checkout: retries reuse it, so the server places the order at most once
+        const idempotencyKey = crypto.randomUUID ? crypto.randomUUID() : `${user.id}-${Date.now()}-${Math.random()}`;
+        const response = await postOrderWithRetry(orderData, idempotencyKey);
 
         if (response.ok) {
             const order = await response.json();
@@ -452,7 +439,7 @@ async function placeOrder() {
             cart = cart.filter(item => !item.selected);
             saveCart();
 
-            alert(`Order placed successfully! Order ID: ${order.id}\nTotal: Rs. ${total.toFixed(2)}`);
+            alert(`Order placed successfully! Order ID: ${order.id}\nTotal: Rs. ${Number(order.total).toFixed(2)}`);
 
             window.location.href = `/order-confirmation.html?orderId=${order.id}`;
         } else {
@@ -465,6 +452,27 @@ async function placeOrder() {
     }
 }
 
+// Retries network failures, 5xx and "still being processed" (409) with the same Idempotency-Key
+async function postOrderWithRetry(orderData, idempotencyKey, attempts = 3) {
+    for (let attempt = 1; ; attempt++) {
+        try {
+            const response = await fetch('/api/orders', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'Idempotency-Key': idempotencyKey
+                },
+                body: JSON.stringify(orderData)
+            });
+            const retryable = response.status >= 500 || response.status === 409;
+            if (!retryable || attempt >= attempts) return response;
+        } catch (error) {
+            if (attempt >= attempts) throw error;
+        }
+        await new Promise(resolve => setTimeout(resolve, 500 * attempt));
+    }
+}
+
 // Make functions globally available
 window.toggleItemSelection = toggleItemSelection;
 window.toggleSelectAll = toggleSelectAll;
@@ -64,7 +64,7 @@ document.addEventListener("DOMContentLoaded", async () => {
 
   updateCartCount();
 
-  await Promise.all([loadStores(), loadCategories(), loadProducts()]);
+  await loadCatalog();
   setupFilters();
 
   // ===========================
@@ -149,27 +149,72 @@ function viewOrders() {
   if (dropdown) dropdown.style.display = "none";
 }
 
-async function loadProducts() {
+// One request for products, stores and categories. Products arrive as slim rows carrying
+// categoryId/storeId; link them back to the shared objects so the rest of the page can keep
+// using product.category / product.store.
+// The catalog is kept in localStorage and brought up to date with /changes, so a
+// returning visitor downloads only what changed since their last visit
+const CATALOG_CACHE_KEY = "catalogCache";
+
+async function loadCatalog() {
   try {
-    const response = await fetch("/api/products");
-    products = await response.json();
+    let catalog = await syncCachedCatalog();
+    if (!catalog) {
+      const response = await fetch("/api/products/catalog");
+      catalog = await response.json();
+    }
+    try {
+      localStorage.setItem(CATALOG_CACHE_KEY, JSON.stringify(catalog));
+    } catch (e) {
+      localStorage.removeItem(CATALOG_CACHE_KEY); // over quota: just fetch in full next time
+    }
+
+    stores = catalog.stores;
+    categories = catalog.categories;
+
+    const storeById = new Map(stores.map((s) => [s.id, s]));
+    const categoryById = new Map(categories.map((c) => [c.id, c]));
+    products = catalog.products.map((p) => ({
+      ...p,
+      category: categoryById.get(p.categoryId) || null,
+      store: storeById.get(p.storeId) || null
+    }));
+
     displayProducts(products);
     loadSuggestions();
   } catch (error) {}
 }
 
-async function loadStores() {
+// Cached catalog with the delta applied, or null when a full reload is needed
+async function syncCachedCatalog() {
+  let cached;
   try {
-    const response = await fetch("/api/stores");
-    stores = await response.json();
-  } catch (error) {}
-}
-
-async function loadCategories() {
-  try {
-    const response = await fetch("/api/categories");
-    categories = await response.json();
-  } catch (error) {}
+    cached = JSON.parse(localStorage.getItem(CATALOG_CACHE_KEY));
+  } catch (e) {
+    return null;
+  }
+  if (!cached || typeof cached.version !== "number") return null;
+
+  const response = await fetch(`/api/products/changes?since=${cached.version}`);
+  if (!response.ok) return null;
+  const changes = await response.json();
+  if (changes.reset) return null;
+
+  // A product in a category or store we haven't seen means the side tables changed too
+  const categoryIds = new Set(cached.categories.map((c) => c.id));
+  const storeIds = new Set(cached.stores.map((s) => s.id));
+  const unknownRef = changes.products.some(
+    (p) => (p.categoryId != null && !categoryIds.has(p.categoryId)) ||
+           (p.storeId != null && !storeIds.has(p.storeId))
+  );
+  if (unknownRef) return null;
+
+  const byId = new Map(cached.products.map((p) => [p.id, p]));
+  changes.deleted.forEach((id) => byId.delete(id));
+  changes.products.forEach((p) => byId.set(p.id, p));
+  cached.products = [...byId.values()].sort((a, b) => a.id - b.id);
+  cached.version = changes.version;
+  return cached;
 }
 
 function setupFilters() {
@@ -330,7 +375,7 @@ function displayProducts(productsToDisplay) {
 
     // Use product image if available, otherwise fallback to category icon
     const imageHtml = product.imageUrl
-      ? `<img src="${product.imageUrl}" alt="${product.name}" style="width: 100%; height: 200px; object-fit: cover; border-radius: 4px;">`
+      ? `<img src="${product.cardImageUrl || product.imageUrl}" alt="${product.name}" loading="lazy" style="width: 100%; height: 200px; object-fit: cover; border-radius: 4px;">`
       : `<i class="${icon}" style="font-size: 60px; color: #ddd;"></i>`;
 
     productCard.innerHTML = `
@@ -387,7 +432,7 @@ function loadSuggestions() {
     const icon = getCategoryIcon(product.category?.name);
     // Use product image if available, otherwise fallback to category icon
     const imageHtml = product.imageUrl
-      ? `<img src="${product.imageUrl}" alt="${product.name}" style="width: 100%; height: 120px; object-fit: cover; border-radius: 4px;">`
+      ? `<img src="${product.cardImageUrl || product.imageUrl}" alt="${product.name}" loading="lazy" style="width: 100%; height: 120px; object-fit: cover; border-radius: 4px;">`
       : `<i class="${icon}" style="font-size: 40px; color: #ddd;"></i>`;
 
     suggestionsGrid.innerHTML += `
@@ -433,7 +478,7 @@ function addToCart(productId) {
       price: product.price,
       quantity: 1,
       storeId: product.store?.id,
-      imageUrl: product.imageUrl,
+      imageUrl: product.thumbnailUrl || product.imageUrl,
       weightKg: product.weightKg || 0
     });
   }
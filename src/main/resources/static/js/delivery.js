@@ -61,18 +61,9 @@ function updateUserGreeting() {
 
 async function loadMyOrders() {
   try {
-    let res = await fetch(`/api/delivery/my-orders?deliveryPersonId=${user.id}`);
-
-    if (!res.ok) {
-      res = await fetch(`/api/admin/orders/assigned`);
-      if (!res.ok) throw new Error("Failed to load orders");
-      const all = await res.json();
-      currentOrders = (all || []).filter(
-        (o) => o.deliveryPerson && o.deliveryPerson.id === user.id
-      );
-    } else {
-      currentOrders = await res.json();
-    }
+    const res = await fetch(`/api/delivery/my-orders?deliveryPersonId=${user.id}`);
+    if (!res.ok) throw new Error("Failed to load orders");
+    currentOrders = await res.json();
 
     renderOrderList();
     updateQuickStats();
@@ -1,5 +1,7 @@
 let user = null;
 let orders = [];
+let nextBefore = null; // keyset cursor for the next page of history; null when all are loaded
+const PAGE_SIZE = 20;
 let currentFilter = 'all';
 let currentCancelOrderId = null;
 
@@ -32,12 +34,14 @@ function updateCartCount() {
     }
 }
 
+// First page of order history; older orders come in with loadMoreOrders()
 async function loadOrders() {
     try {
         showLoading();
-        const response = await fetch(`/api/orders/user/${user.id}`);
-        if (response.ok) {
-            orders = await response.json();
+        const page = await fetchOrderPage(null);
+        if (page) {
+            orders = page.orders;
+            nextBefore = page.nextBefore;
             displayOrders();
         } else {
             showEmptyState();
@@ -50,6 +54,38 @@ async function loadOrders() {
     }
 }
 
+async function loadMoreOrders() {
+    if (!nextBefore) return;
+    try {
+        const page = await fetchOrderPage(nextBefore);
+        if (page) {
+            orders = orders.concat(page.orders);
+            nextBefore = page.nextBefore;
+            displayOrders();
+        }
+    } catch (error) {
+        console.error('Error loading more orders:', error);
+    }
+}
+
+async function fetchOrderPage(before) {
+    const cursor = before ? `&before=${before}` : '';
+    const response = await fetch(`/api/orders/user/${user.id}/history?limit=${PAGE_SIZE}${cursor}`);
+    return response.ok ? response.json() : null;
+}
+
+function loadMoreButton() {
+    const wrapper = document.createElement('div');
+    wrapper.style.cssText = 'text-align: center; padding: 20px;';
+    wrapper.innerHTML = `
+        <button class="auth-button" style="padding: 8px 16px; font-size: 14px; background: #f0f2f2; color: #0f1111;"
+                onclick="loadMoreOrders()">
+            <i class="fas fa-chevron-down"></i> Show older orders
+        </button>
+    `;
+    return wrapper;
+}
+
 function displayOrders() {
     const ordersList = document.getElementById('ordersList');
     const emptyOrders = document.getElementById('emptyOrders');
@@ -84,12 +120,13 @@ function displayOrders() {
                 <p>Try a different filter</p>
             </div>
         `;
-        return;
+    } else {
+        filteredOrders.forEach(order => {
+            ordersList.appendChild(createOrderCard(order));
+        });
     }
 
-    filteredOrders.forEach(order => {
-        ordersList.appendChild(createOrderCard(order));
-    });
+    if (nextBefore) ordersList.appendChild(loadMoreButton());
 }
 
 function createOrderCard(order) {
@@ -396,7 +433,7 @@ function searchOrders() {
 
         if (order.items) {
             const foundInItems = order.items.some(item => {
-                const itemName = item.product?.name || '';
+                const itemName = item.productName || item.product?.name || '';
                 return String(itemName).toLowerCase().includes(searchTerm);
             });
             if (foundInItems) return true;
@@ -525,6 +562,7 @@ function showEmptyState() {
 }
 
 window.filterOrders = filterOrders;
+window.loadMoreOrders = loadMoreOrders;
 window.requestReturn = requestReturn;
 window.closeReturnModal = closeReturnModal;
 window.submitReturnRequest = submitReturnRequest;
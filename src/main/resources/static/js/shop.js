@@ -89,7 +89,7 @@ async function loadProducts() {
 
     // Use product image if available
     const imageHtml = p.imageUrl
-      ? `<img src="${p.imageUrl}" alt="${p.name}" style="width: 100px; height: 100px; object-fit: cover; border-radius: 4px; margin-right: 15px;">`
+      ? `<img src="${p.thumbnailUrl || p.imageUrl}" alt="${p.name}" loading="lazy" style="width: 100px; height: 100px; object-fit: cover; border-radius: 4px; margin-right: 15px;">`
       : '';
 
     li.innerHTML = `
@@ -102,7 +102,7 @@ async function loadProducts() {
         </div>
       </div>
       <div class="actions">
-        <button ${p.stock <= 0 ? "disabled" : ""} onclick="addToCart(${p.id}, '${escapeQuotes(p.name)}', ${p.price}, ${p.stock}, ${p.store ? p.store.id : "null"}, '${escapeQuotes(p.imageUrl || '')}', ${p.weightKg || 0})">
+        <button ${p.stock <= 0 ? "disabled" : ""} onclick="addToCart(${p.id}, '${escapeQuotes(p.name)}', ${p.price}, ${p.stock}, ${p.store ? p.store.id : "null"}, '${escapeQuotes(p.thumbnailUrl || p.imageUrl || '')}', ${p.weightKg || 0})">
           Add
         </button>
       </div>
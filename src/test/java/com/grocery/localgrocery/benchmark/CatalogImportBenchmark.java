@@ -0,0 +1,89 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.service.CatalogBulkService;
+import com.grocery.localgrocery.service.CatalogService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Wall time to onboard a large catalog: streaming CSV import with JDBC batches vs one
+// productRepository.save per row (what DataSeeder and POST /api/products do), plus export.
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogImportBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int SAVE_ROWS = 10_000;
+
+    @Autowired
+    private CatalogBulkService bulkService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    void importAndExport() throws Exception {
+        Category category = categoryRepository.findByNameIgnoreCase("Bench Pulses")
+                .orElseGet(() -> categoryRepository.save(new Category("Bench Pulses")));
+        Store store = storeRepository.findByNameIgnoreCase("Bench Store")
+                .orElseGet(() -> storeRepository.save(new Store("Bench Store", "Kathmandu")));
+
+        StringBuilder csv = new StringBuilder("name,price,stock,category,store,weightKg,description\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("Product ").append(i).append(',').append(50 + i % 900).append(',').append(i % 200)
+                    .append(",Bench Pulses,Bench Store,1.0,\"Packed fresh, store dry\"\n");
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        long t0 = System.nanoTime();
+        CatalogBulkService.ImportResult result =
+                bulkService.importProducts(new ByteArrayInputStream(bytes), CatalogBulkService.Format.CSV);
+        long importMs = (System.nanoTime() - t0) / 1_000_000;
+        System.out.printf("bulk CSV import   rows=%,d  imported=%,d  %,d ms  (%,.0f rows/s)%n",
+                ROWS, result.imported, importMs, result.imported * 1000.0 / importMs);
+
+        // The import ends with a catalog reload; time one on its own to split the total
+        t0 = System.nanoTime();
+        catalogService.refresh();
+        System.out.printf("  of which catalog reload  %,d ms%n", (System.nanoTime() - t0) / 1_000_000);
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < SAVE_ROWS; i++) {
+            Product p = new Product();
+            p.setName("Saved " + i);
+            p.setPrice(50 + i % 900);
+            p.setStock(i % 200);
+            p.setCategory(category);
+            p.setStore(store);
+            productRepository.save(p);
+        }
+        long saveMs = (System.nanoTime() - t0) / 1_000_000;
+        System.out.printf("save() per row    rows=%,d  %,d ms  (%,.0f rows/s)%n",
+                SAVE_ROWS, saveMs, SAVE_ROWS * 1000.0 / saveMs);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        t0 = System.nanoTime();
+        bulkService.exportProducts(out, CatalogBulkService.Format.CSV);
+        System.out.printf("CSV export        %,d bytes  %,d ms%n", out.size(), (System.nanoTime() - t0) / 1_000_000);
+    }
+}
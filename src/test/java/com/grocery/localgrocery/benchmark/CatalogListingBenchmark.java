@@ -0,0 +1,97 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.service.CatalogSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Filtered listing latency: the old stream filters over a full product list vs CatalogSnapshot.
+// The stream numbers exclude the findAll() round trip, so the real-world gap is larger.
+class CatalogListingBenchmark {
+
+    private static final int CATEGORIES = 12;
+    private static final int STORES = 30;
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    void listingLatencyByCatalogSize() {
+        for (int size : new int[]{1_000, 50_000, 500_000}) {
+            List<Product> products = catalog(size);
+            CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+            Random random = new Random(42);
+
+            LatencyRecorder streams = new LatencyRecorder("streams    category+store  skus=" + size, ITERATIONS);
+            LatencyRecorder indexed = new LatencyRecorder("snapshot   category+store  skus=" + size, ITERATIONS);
+            LatencyRecorder indexedCategory = new LatencyRecorder("snapshot   category        skus=" + size, ITERATIONS);
+
+            long sink = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                Long categoryId = (long) random.nextInt(CATEGORIES);
+                Long storeId = (long) random.nextInt(STORES);
+
+                long t0 = System.nanoTime();
+                sink += streamFilter(products, categoryId, storeId).size();
+                long t1 = System.nanoTime();
+                sink += snapshot.list(categoryId, storeId).size();
+                long t2 = System.nanoTime();
+                sink += snapshot.list(categoryId, null).size();
+                long t3 = System.nanoTime();
+
+                streams.record(t1 - t0);
+                indexed.record(t2 - t1);
+                indexedCategory.record(t3 - t2);
+            }
+
+            streams.print();
+            indexed.print();
+            indexedCategory.print();
+            System.out.println("(checksum " + sink + ")");
+        }
+    }
+
+    // Mirrors the pre-snapshot ProductController.getAll
+    private static List<Product> streamFilter(List<Product> all, Long categoryId, Long storeId) {
+        all = all.stream()
+                .filter(p -> p.getCategory() != null && categoryId.equals(p.getCategory().getId()))
+                .toList();
+        all = all.stream()
+                .filter(p -> p.getStore() != null && storeId.equals(p.getStore().getId()))
+                .toList();
+        return all;
+    }
+
+    static List<Product> catalog(int size) {
+        List<Category> categories = new ArrayList<>();
+        for (long i = 0; i < CATEGORIES; i++) {
+            Category c = new Category("Category " + i);
+            ReflectionTestUtils.setField(c, "id", i);
+            categories.add(c);
+        }
+        List<Store> stores = new ArrayList<>();
+        for (long i = 0; i < STORES; i++) {
+            Store s = new Store("Store " + i, "Kathmandu");
+            ReflectionTestUtils.setField(s, "id", i);
+            stores.add(s);
+        }
+
+        Random random = new Random(7);
+        List<Product> products = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Product p = new Product();
+            ReflectionTestUtils.setField(p, "id", i);
+            p.setName("Product " + i);
+            p.setPrice(10 + random.nextInt(2000));
+            p.setStock(random.nextInt(200));
+            p.setCategory(categories.get(random.nextInt(CATEGORIES)));
+            p.setStore(stores.get(random.nextInt(STORES)));
+            products.add(p);
+        }
+        return products;
+    }
+}
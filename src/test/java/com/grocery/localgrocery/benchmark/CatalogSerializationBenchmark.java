@@ -0,0 +1,79 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grocery.localgrocery.controller.ProductController;
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.repository.ProductSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Payload bytes and Jackson time: full Product entities vs the slim /api/products/catalog shape.
+class CatalogSerializationBenchmark {
+
+    private static final String DESCRIPTION =
+            "Carefully sourced from local farms and packed fresh. Store in a cool, dry place away from direct "
+                    + "sunlight. Best before six months from the packing date printed on the pack.";
+    private static final int ROUNDS = 30;
+
+    @Test
+    void payloadSizeAndSerializationTime() throws Exception {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        for (int size : new int[]{1_000, 50_000}) {
+            List<Product> products = CatalogListingBenchmark.catalog(size);
+            products.forEach(p -> {
+                p.setDescription(DESCRIPTION);
+                p.setImageUrl("/uploads/products/" + p.getId() + ".png");
+                p.setWeightKg(1.0);
+            });
+
+            ProductController.CatalogResponse slim = slim(products);
+
+            byte[] fullBytes = mapper.writeValueAsBytes(products);
+            byte[] slimBytes = mapper.writeValueAsBytes(slim);
+
+            LatencyRecorder fullTime = new LatencyRecorder("jackson full entities   skus=" + size, ROUNDS);
+            LatencyRecorder slimTime = new LatencyRecorder("jackson slim catalog    skus=" + size, ROUNDS);
+            long sink = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                long t0 = System.nanoTime();
+                sink += mapper.writeValueAsBytes(products).length;
+                long t1 = System.nanoTime();
+                sink += mapper.writeValueAsBytes(slim).length;
+                long t2 = System.nanoTime();
+                fullTime.record(t1 - t0);
+                slimTime.record(t2 - t1);
+            }
+
+            System.out.printf("skus=%d  full=%,d bytes  slim=%,d bytes  (%.1fx smaller)%n",
+                    size, fullBytes.length, slimBytes.length, (double) fullBytes.length / slimBytes.length);
+            fullTime.print();
+            slimTime.print();
+            System.out.println("(checksum " + sink + ")");
+        }
+    }
+
+    private static ProductController.CatalogResponse slim(List<Product> products) {
+        Set<Category> categories = new LinkedHashSet<>();
+        Set<Store> stores = new LinkedHashSet<>();
+        List<ProductSummary> rows = new ArrayList<>(products.size());
+        for (Product p : products) {
+            categories.add(p.getCategory());
+            stores.add(p.getStore());
+            rows.add(new ProductSummary(p.getId(), p.getName(), p.getPrice(), p.getStock(), p.getWeightKg(),
+                    p.getImageUrl(), null, null, p.getCategory().getId(), p.getStore().getId()));
+        }
+        ProductController.CatalogResponse response = new ProductController.CatalogResponse();
+        response.products = rows;
+        response.categories = new ArrayList<>(categories);
+        response.stores = new ArrayList<>(stores);
+        return response;
+    }
+}
@@ -0,0 +1,127 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.controller.OrderController.PlaceOrderRequest;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import com.grocery.localgrocery.service.CatalogService;
+import com.grocery.localgrocery.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Checkout latency against cart size: OrderService (one product select, one transaction, batched
+// writes) vs the previous per-line loop of findById + save + save with no transaction.
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class CheckoutBenchmark {
+
+    private static final int[] CART_SIZES = {1, 5, 20, 50};
+    private static final int WARMUP = 50;
+    private static final int ORDERS = 300;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void checkoutLatency() {
+        User user = userRepository.findByEmail("checkout-bench@test.com").orElseGet(() -> {
+            User u = new User();
+            u.setEmail("checkout-bench@test.com");
+            u.setPassword("pass");
+            u.setRole("CUSTOMER");
+            u.setName("Bench Buyer");
+            u.setPhone("9800000000");
+            return userRepository.save(u);
+        });
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Product p = new Product();
+            p.setName("Checkout " + i);
+            p.setPrice(50 + i);
+            p.setStock(100_000_000);
+            p.setWeightKg(0.5);
+            products.add(productRepository.save(p));
+        }
+        catalogService.refresh();
+
+        for (int size : CART_SIZES) {
+            PlaceOrderRequest req = new PlaceOrderRequest();
+            req.userId = user.getId();
+            req.deliveryAddress = "Kathmandu";
+            req.items = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+                item.productId = products.get(i).getId();
+                item.quantity = 1;
+                req.items.add(item);
+            }
+
+            LatencyRecorder legacy = new LatencyRecorder("per-line loop, cart=" + size, ORDERS);
+            LatencyRecorder batched = new LatencyRecorder("OrderService,  cart=" + size, ORDERS);
+            for (int i = 0; i < WARMUP + ORDERS; i++) {
+                long t0 = System.nanoTime();
+                legacyPlaceOrder(req);
+                long t1 = System.nanoTime();
+                orderService.placeOrder(req);
+                long t2 = System.nanoTime();
+                if (i >= WARMUP) {
+                    legacy.record(t1 - t0);
+                    batched.record(t2 - t1);
+                }
+            }
+            legacy.print();
+            batched.print();
+        }
+    }
+
+    // The OrderController.placeOrder body before OrderService, minus the totals arithmetic
+    private void legacyPlaceOrder(PlaceOrderRequest req) {
+        User user = userRepository.findById(req.userId).orElseThrow();
+        for (PlaceOrderRequest.Item i : req.items) {
+            productRepository.findById(i.productId).orElseThrow();
+        }
+        Order order = new Order();
+        order.setUser(user);
+        order.setDeliveryAddress(req.deliveryAddress);
+        order = orderRepository.save(order);
+        for (PlaceOrderRequest.Item i : req.items) {
+            Product p = productRepository.findById(i.productId).orElseThrow();
+            p.setStock(p.getStock() - i.quantity);
+            p.setSalesCount(p.getSalesCount() + i.quantity);
+            p = productRepository.save(p);
+            catalogService.productSaved(p);
+
+            OrderItem oi = new OrderItem();
+            oi.setOrder(order);
+            oi.setProduct(p);
+            oi.setQuantity(i.quantity);
+            oi.setPriceAtPurchase(p.getPrice());
+            orderItemRepository.save(oi);
+        }
+    }
+}
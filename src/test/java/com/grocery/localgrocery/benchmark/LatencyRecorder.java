@@ -0,0 +1,41 @@
+package com.grocery.localgrocery.benchmark;
+
+import java.util.Arrays;
+
+// Collects per-call timings and prints percentiles.
+// Benchmarks in this package are named *Benchmark so surefire skips them by default; run one with
+//   mvn test -Dtest=CatalogListingBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] samples;
+    private int count;
+
+    public LatencyRecorder(String name, int expectedSamples) {
+        this.name = name;
+        this.samples = new long[Math.max(16, expectedSamples)];
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public long percentileNanos(double p) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(idx, count - 1))];
+    }
+
+    public void print() {
+        System.out.printf("%-48s n=%-7d p50=%10.1fus  p90=%10.1fus  p99=%10.1fus  max=%10.1fus%n",
+                name, count,
+                percentileNanos(50) / 1000.0,
+                percentileNanos(90) / 1000.0,
+                percentileNanos(99) / 1000.0,
+                percentileNanos(100) / 1000.0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.controller.AdminController;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Admin order search latency over a large orders table: first page, a deep page reached by the
+// cursor, and each filter on its own. Note that H2 cannot stop a descending scan early, so here a
+// filtered page still reads every matching row below the cursor; MySQL walks the (filter, id)
+// index backwards and reads only the page.
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class OrderSearchBenchmark {
+
+    private static final int ORDERS = 300_000;
+    private static final int CUSTOMERS = 2_000;
+    private static final int RUNS = 200;
+    private static final String[] STATUSES = {"PLACED", "ASSIGNED", "PICKED_UP", "DELIVERED", "CANCELLED"};
+
+    @Autowired
+    private AdminController adminController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void searchLatency() {
+        long firstUser = seedUsers();
+        Store store = new Store();
+        store.setName("Search Bench Store");
+        store = storeRepository.save(store);
+        Product product = new Product();
+        product.setName("Search Bench Product");
+        product.setStore(store);
+        product = productRepository.save(product);
+        seedOrders(firstUser, product.getId());
+
+        Long storeId = store.getId();
+        LocalDate today = LocalDate.now();
+        measure("first page, no filters", () -> adminController.searchOrders(null, null, null, null, null, null, null, null, 50));
+        measure("status=DELIVERED", () -> adminController.searchOrders(List.of("DELIVERED"), null, null, null, null, null, null, null, 50));
+        Long before = null;
+        for (int i = 0; i < 20; i++) {
+            before = adminController.searchOrders(List.of("DELIVERED"), null, null, null, null, null, null, before, 50).nextBefore;
+        }
+        Long page20 = before;
+        measure("status=DELIVERED, page 21", () -> adminController.searchOrders(List.of("DELIVERED"), null, null, null, null, null, null, page20, 50));
+        measure("one day", () -> adminController.searchOrders(null, today.minusDays(30), today.minusDays(30), null, null, null, null, null, 50));
+        measure("paymentMethod=CARD", () -> adminController.searchOrders(null, null, null, null, null, "CARD", null, null, 50));
+        measure("customer prefix", () -> adminController.searchOrders(null, null, null, null, null, null, "search-bench-1234", null, 50));
+        measure("store", () -> adminController.searchOrders(null, null, null, storeId, null, null, null, null, 50));
+    }
+
+    private void measure(String name, Supplier<AdminController.OrderSearchPage> search) {
+        for (int i = 0; i < 20; i++) search.get();
+        LatencyRecorder latency = new LatencyRecorder("admin order search: " + name + " (" + ORDERS + " orders)", RUNS);
+        AdminController.OrderSearchPage page = null;
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            page = search.get();
+            latency.record(System.nanoTime() - t0);
+        }
+        latency.print();
+        assertThat(page.orders).isNotEmpty();
+    }
+
+    private long seedUsers() {
+        List<Object[]> users = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            users.add(new Object[]{"search-bench-" + i + "@test.com", "pass", "CUSTOMER", "Customer " + i, "9800000000"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, password, role, name, phone) VALUES (?, ?, ?, ?, ?)", users);
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE email LIKE 'search-bench-%'", Long.class);
+    }
+
+    // Orders spread over the past year, oldest first so ids follow created_at as they do in production
+    private void seedOrders(long firstUser, Long productId) {
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        long step = 365L * 24 * 3600 / ORDERS;
+        for (int from = 0; from < ORDERS; from += 10_000) {
+            List<Object[]> rows = new ArrayList<>(10_000);
+            for (int i = from; i < from + 10_000; i++) {
+                rows.add(new Object[]{firstUser + i % CUSTOMERS, "Kathmandu", STATUSES[i % STATUSES.length],
+                        Timestamp.valueOf(start.plusSeconds(i * step)), i % 3 == 0 ? "CARD" : "COD"});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO orders (user_id, delivery_address, status, created_at, subtotal, tax, "
+                    + "shipping_fee, total, payment_method, payment_status) VALUES (?, ?, ?, ?, 100, 13, 100, 213, ?, 'PENDING')", rows);
+        }
+        // One order in 100 has a line from the benchmark store
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, price_at_purchase, return_status, stock_applied) "
+                + "SELECT id, ?, 1, 100, 'NONE', TRUE FROM orders WHERE MOD(id, 100) = 0", productId);
+    }
+}
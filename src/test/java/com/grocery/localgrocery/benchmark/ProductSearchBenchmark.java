@@ -0,0 +1,68 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.service.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Search latency percentiles per query shape, against the old name.contains() scan.
+class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "basmati", "jeera", "masino", "rice", "atta", "maida", "besan", "masoor", "moong", "chana",
+            "rajma", "daal", "turmeric", "cumin", "coriander", "garam", "masala", "timur", "jimbu", "mustard",
+            "chilli", "oil", "ghee", "tea", "coffee", "milk", "curd", "paneer", "noodles", "pasta",
+            "bhujia", "biscuits", "rusks", "frooti", "water", "detergent", "soap", "shampoo", "toothpaste", "sunflower"};
+    private static final String[] QUERIES = {"daal", "dal", "jira", "mas", "basmti", "moong dal", "garam masala", "chili oil"};
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    void searchLatencyByCatalogSize() {
+        for (int size : new int[]{1_000, 50_000}) {
+            List<Product> products = catalog(size);
+            ProductSearchIndex index = new ProductSearchIndex();
+
+            long t0 = System.nanoTime();
+            index.rebuild(products);
+            System.out.printf("index build skus=%d: %.1f ms%n", size, (System.nanoTime() - t0) / 1e6);
+
+            LatencyRecorder scan = new LatencyRecorder("contains scan          skus=" + size, ITERATIONS);
+            long sink = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                String q = QUERIES[i % QUERIES.length];
+                long start = System.nanoTime();
+                sink += products.stream().filter(p -> p.getName().toLowerCase().contains(q)).count();
+                scan.record(System.nanoTime() - start);
+            }
+            scan.print();
+
+            for (String q : QUERIES) {
+                LatencyRecorder recorder = new LatencyRecorder(String.format("index %-16s skus=%d", '"' + q + '"', size), ITERATIONS);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    sink += index.search(q, 20).size();
+                    recorder.record(System.nanoTime() - start);
+                }
+                recorder.print();
+            }
+            System.out.println("(checksum " + sink + ")");
+        }
+    }
+
+    private static List<Product> catalog(int size) {
+        Random random = new Random(11);
+        List<Product> products = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Product p = new Product();
+            ReflectionTestUtils.setField(p, "id", i);
+            p.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i + "g");
+            p.setDescription("Fresh " + WORDS[random.nextInt(WORDS.length)] + " from local farms");
+            products.add(p);
+        }
+        return products;
+    }
+}
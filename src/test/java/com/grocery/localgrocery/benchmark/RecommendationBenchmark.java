@@ -0,0 +1,48 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.service.CoPurchaseIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Co-purchase lookup latency for a 4-item cart over synthetic order history.
+class RecommendationBenchmark {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int ORDERS = 200_000;
+    private static final int LOOKUPS = 20_000;
+
+    @Test
+    void recommendLatency() {
+        Random random = new Random(11);
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        long t0 = System.nanoTime();
+        for (int o = 0; o < ORDERS; o++) {
+            index.addBasket(basket(random, 2 + random.nextInt(8)));
+        }
+        System.out.printf("built from %,d orders in %d ms%n", ORDERS, (System.nanoTime() - t0) / 1_000_000);
+
+        LatencyRecorder latency = new LatencyRecorder("recommend cart=4 limit=4", LOOKUPS);
+        long sink = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            List<Long> cart = basket(random, 4);
+            long start = System.nanoTime();
+            sink += index.recommend(cart, 4, id -> id % 17 != 0).size();
+            latency.record(System.nanoTime() - start);
+        }
+        latency.print();
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    // Skewed towards popular products, like real baskets
+    private static List<Long> basket(Random random, int size) {
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double u = random.nextDouble();
+            ids.add(1 + (long) (PRODUCTS * u * u * u));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,169 @@
+package com.grocery.localgrocery.benchmark;
+
+import com.grocery.localgrocery.controller.OrderController.PlaceOrderRequest;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import com.grocery.localgrocery.service.FlashSaleService;
+import com.grocery.localgrocery.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Stress harness for a hot SKU: thousands of simultaneous one-unit orders for a product with less
+// stock than demand, with the product in plain and in flash-sale mode. Every unit must be sold
+// exactly once - accepted orders == starting stock, no negative stock, sales_count and order_items
+// agree - and the rest must be turned away cleanly.
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class StockContentionBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int ORDERS = 5_000;
+    private static final int STOCK = 2_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void hotProductUnderConcurrentCheckout() throws Exception {
+        run(product("Mineral Water 1L", STOCK), "plain");
+    }
+
+    @Test
+    void flashSaleProductUnderConcurrentCheckout() throws Exception {
+        Long id = product("Mineral Water 1L (flash sale)", STOCK);
+        flashSaleService.enable(id);
+        run(id, "flash sale");
+    }
+
+    // Reservation rate of one flash-sale counter on its own, without the order writes around it
+    @Test
+    void flashSaleCounterReservations() throws Exception {
+        int perThread = 1_000_000;
+        Long id = product("Counter only", THREADS * perThread);
+        flashSaleService.enable(id);
+        FlashSaleService.Counter counter = flashSaleService.counter(id);
+
+        long elapsedMs = concurrently(THREADS, () -> {
+            for (int i = 0; i < perThread; i++) {
+                if (counter.tryReserve(1)) counter.settle();
+            }
+        });
+        System.out.printf("counter reservations=%,d  %,d ms  (%,.0f reservations/s)%n",
+                (long) THREADS * perThread, elapsedMs, (double) THREADS * perThread * 1000 / elapsedMs);
+        assertThat(counter.available()).isZero();
+        flashSaleService.disable(id);
+    }
+
+    private void run(Long id, String mode) throws Exception {
+        User user = userRepository.findByEmail("stock-bench@test.com").orElseGet(() -> {
+            User u = new User();
+            u.setEmail("stock-bench@test.com");
+            u.setPassword("pass");
+            u.setRole("CUSTOMER");
+            u.setName("Bench Buyer");
+            u.setPhone("9800000000");
+            return userRepository.save(u);
+        });
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long[] nanos = new long[ORDERS];
+        long elapsedMs = concurrently(THREADS, () -> {
+            for (int n = next.getAndIncrement(); n < ORDERS; n = next.getAndIncrement()) {
+                PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+                item.productId = id;
+                item.quantity = 1;
+                PlaceOrderRequest req = new PlaceOrderRequest();
+                req.userId = user.getId();
+                req.deliveryAddress = "Kathmandu";
+                req.items = List.of(item);
+
+                long t0 = System.nanoTime();
+                try {
+                    orderService.placeOrder(req);
+                    accepted.incrementAndGet();
+                } catch (ResponseStatusException e) {
+                    rejected.incrementAndGet();
+                }
+                nanos[n] = System.nanoTime() - t0;
+            }
+        });
+        flashSaleService.disable(id); // writes back anything still pending; no-op in plain mode
+
+        int stock = jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, id);
+        long sold = jdbcTemplate.queryForObject("SELECT sales_count FROM products WHERE id = ?", Long.class, id);
+        long items = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE product_id = ?", Long.class, id);
+
+        System.out.printf("%s: orders=%,d accepted=%,d rejected=%,d  %,d ms  (%,.0f orders/s)%n",
+                mode, ORDERS, accepted.get(), rejected.get(), elapsedMs, ORDERS * 1000.0 / elapsedMs);
+        System.out.printf("%s: final stock=%d sales_count=%d units in order_items=%d%n", mode, stock, sold, items);
+        LatencyRecorder latency = new LatencyRecorder("checkout (" + mode + "), " + THREADS + " threads on one SKU", ORDERS);
+        for (long n : nanos) latency.record(n);
+        latency.print();
+
+        assertThat(accepted.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(ORDERS - STOCK);
+        assertThat(stock).isZero();
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(items).isEqualTo(STOCK);
+    }
+
+    private Long product(String name, int stock) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(25);
+        p.setStock(stock);
+        p.setWeightKg(1);
+        return productRepository.save(p).getId();
+    }
+
+    // Runs the task on `threads` threads released together; returns wall time in ms.
+    // Rethrows anything a task threw (a clean stock rejection is not an error).
+    private static long concurrently(int threads, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        return Math.max(1, (System.nanoTime() - t0) / 1_000_000);
+    }
+}
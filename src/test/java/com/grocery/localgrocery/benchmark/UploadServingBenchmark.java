@@ -0,0 +1,123 @@
+package com.grocery.localgrocery.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Requests/s and MB/s over real HTTP: the previous ResourceHandler setup (mounted at /legacy-uploads/**)
+// vs UploadController, for a small card image (memory LRU) and a large original (sendfile).
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class UploadServingBenchmark {
+
+    private static final Path DIR;
+    private static final String SMALL = "0f8fad5b-d9cb-469f-a165-70867728950e_rice_card.jpg";
+    private static final String LARGE = "7c9e6679-7425-40de-944b-e07fc1f90ae7_rice.png";
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 2_000;
+
+    static {
+        try {
+            DIR = Files.createTempDirectory("uploads-bench");
+            Random random = new Random(42);
+            byte[] small = new byte[24 * 1024];
+            byte[] large = new byte[2 * 1024 * 1024];
+            random.nextBytes(small);
+            random.nextBytes(large);
+            Files.write(DIR.resolve(SMALL), small);
+            Files.write(DIR.resolve(LARGE), large);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void uploadsDir(DynamicPropertyRegistry registry) {
+        registry.add("app.uploads.dir", DIR::toString);
+    }
+
+    @TestConfiguration
+    static class LegacyHandler {
+        @Bean
+        WebMvcConfigurer legacyUploads() {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                    registry.addResourceHandler("/legacy-uploads/**")
+                            .addResourceLocations(DIR.toUri().toString());
+                }
+            };
+        }
+    }
+
+    @Test
+    void throughput() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        for (String file : new String[]{SMALL, LARGE}) {
+            int rounds = file.equals(LARGE) ? REQUESTS_PER_THREAD / 10 : REQUESTS_PER_THREAD;
+            // Warm both paths before measuring
+            run(client, "/legacy-uploads/" + file, rounds / 4, false);
+            run(client, "/uploads/" + file, rounds / 4, false);
+            run(client, "/legacy-uploads/" + file, rounds, true);
+            run(client, "/uploads/" + file, rounds, true);
+        }
+    }
+
+    private void run(HttpClient client, String path, int rounds, boolean print) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + path);
+        String label = path.substring(0, path.indexOf('/', 1) + 1) + (path.contains("card") ? " (24KB)" : " (2MB)");
+        LatencyRecorder latency = new LatencyRecorder(label, THREADS * rounds);
+        AtomicLong bytes = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        Future<?>[] workers = new Future<?>[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            workers[t] = pool.submit(() -> {
+                HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+                for (int i = 0; i < rounds; i++) {
+                    long t0 = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long elapsed = System.nanoTime() - t0;
+                    if (response.statusCode() != 200) throw new IllegalStateException(path + " -> " + response.statusCode());
+                    bytes.addAndGet(response.body().length);
+                    synchronized (latency) {
+                        latency.record(elapsed);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<?> w : workers) w.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        if (print) {
+            System.out.printf("%-28s %,10.0f req/s  %,8.1f MB/s%n", label, THREADS * rounds / seconds, bytes.get() / seconds / (1024 * 1024));
+            latency.print();
+        }
+    }
+}
@@ -2,20 +2,44 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.*;
 import com.grocery.localgrocery.repository.*;
+import com.grocery.localgrocery.service.BestSellerTracker;
+import com.grocery.localgrocery.service.CatalogBulkService;
+import com.grocery.localgrocery.service.CatalogService;
+import com.grocery.localgrocery.service.CatalogSnapshot;
+import com.grocery.localgrocery.service.CustomerSketchService;
+import com.grocery.localgrocery.service.DashboardService;
+import com.grocery.localgrocery.service.FlashSaleService;
+import com.grocery.localgrocery.service.ImageVariantService;
+import com.grocery.localgrocery.service.OrderEventService;
+import com.grocery.localgrocery.service.OrderStatusCounters;
+import com.grocery.localgrocery.service.PostCheckoutPipeline;
+import com.grocery.localgrocery.service.ReturnService;
+import com.grocery.localgrocery.service.SalesRollupService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -52,44 +76,159 @@ class AdminControllerTest {
     @MockBean
     private NotificationLogRepository notificationLogRepository;
 
+    @MockBean
+    private CatalogService catalogService;
+
+    @MockBean
+    private ImageVariantService imageVariantService;
+
+    @MockBean
+    private CatalogBulkService catalogBulkService;
+
+    @MockBean
+    private FlashSaleService flashSaleService;
+
+    @MockBean
+    private OrderEventService orderEventService;
+
+    @MockBean
+    private ReturnService returnService;
+
+    @MockBean
+    private PostCheckoutPipeline postCheckoutPipeline;
+
+    @MockBean
+    private SalesRollupService salesRollupService;
+
+    @MockBean
+    private DashboardService dashboardService;
+
+    @MockBean
+    private BestSellerTracker bestSellerTracker;
+
+    @MockBean
+    private OrderStatusCounters orderStatusCounters;
+
+    @MockBean
+    private CustomerSketchService customerSketchService;
+
     @Test
-    void getDashboardStatsShouldReturnStats() throws Exception {
-        when(orderRepository.findAll()).thenReturn(Collections.emptyList());
-        when(orderRepository.count()).thenReturn(0L);
-        when(userRepository.countByRole("CUSTOMER")).thenReturn(0L);
-        when(orderItemRepository.findAll()).thenReturn(Collections.emptyList());
+    void getDashboardStatsShouldReturnTheSharedSnapshot() throws Exception {
+        DashboardService.Stats stats = new DashboardService.Stats();
+        stats.totalRevenue = BigDecimal.ZERO;
+        stats.orderGrowth = -12.5;
+        stats.returnRate = 2.0;
+        when(dashboardService.stats()).thenReturn(stats);
 
         mockMvc.perform(get("/api/admin/dashboard"))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.totalRevenue").value(0))
                .andExpect(jsonPath("$.totalOrders").value(0))
                .andExpect(jsonPath("$.totalCustomers").value(0))
-               .andExpect(jsonPath("$.pendingReturns").value(0));
+               .andExpect(jsonPath("$.pendingReturns").value(0))
+               .andExpect(jsonPath("$.orderGrowth").value(-12.5))
+               .andExpect(jsonPath("$.revenueGrowth").isEmpty())
+               .andExpect(jsonPath("$.returnRate").value(2.0));
     }
 
     @Test
-    void getRecentOrdersShouldReturnSortedOrders() throws Exception {
+    void recentAndUnassignedOrdersShouldBePagedInTheDatabase() throws Exception {
         Order o1 = new Order();
+        ReflectionTestUtils.setField(o1, "id", 5L);
         Order o2 = new Order();
+        ReflectionTestUtils.setField(o2, "id", 4L);
 
-        when(orderRepository.findAll()).thenReturn(List.of(o1, o2));
+        when(orderRepository.findBy(any(Specification.class), any())).thenReturn(List.of(o1, o2));
 
         mockMvc.perform(get("/api/admin/orders/recent?limit=5"))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$.length()").value(2));
+               .andExpect(jsonPath("$.orders.length()").value(2))
+               .andExpect(jsonPath("$.nextBefore").isEmpty());
+        mockMvc.perform(get("/api/admin/orders/unassigned?limit=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.orders[0].id").value(5))
+               .andExpect(jsonPath("$.nextBefore").value(5));
+        verify(orderRepository, never()).findAll();
     }
 
     @Test
-    void processReturnShouldApproveReturn() throws Exception {
-        Order order = new Order();
+    void topProductsShouldComeFromTheTrackerAndTheCatalog() throws Exception {
+        Product tea = new Product();
+        ReflectionTestUtils.setField(tea, "id", 7L);
+        tea.setName("Tea");
+        when(catalogService.snapshot()).thenReturn(CatalogSnapshot.of(List.of(tea)));
+        when(bestSellerTracker.top(BestSellerTracker.Window.WEEK, 5)).thenReturn(List.of(
+                new BestSellerTracker.Entry(7L, 12), new BestSellerTracker.Entry(99L, 4)));
+
+        mockMvc.perform(get("/api/admin/products/top?limit=5&window=7d"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].product.name").value("Tea"))
+               .andExpect(jsonPath("$[0].salesCount").value(12));
 
-        OrderItem item = new OrderItem();
-        item.setOrder(order);
-        item.setReturnStatus("REQUESTED");
+        mockMvc.perform(get("/api/admin/products/top?window=year"))
+               .andExpect(status().isBadRequest());
+    }
 
-        when(orderItemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(orderItemRepository.save(any(OrderItem.class))).thenReturn(item);
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+    @Test
+    void statusChartShouldReadTheCountersWithoutLoadingOrders() throws Exception {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("PLACED", 4L);
+        counts.put("ASSIGNED", 0L);
+        counts.put("PICKED_UP", 1L);
+        counts.put("PAYMENT_RECEIVED", 3L);
+        counts.put("DELIVERED", 9L);
+        counts.put("CANCELLED", 2L);
+        when(orderStatusCounters.counts()).thenReturn(counts);
+
+        mockMvc.perform(get("/api/admin/charts/orders-by-status"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.labels[3]").value("PAYMENT_RECEIVED"))
+               .andExpect(jsonPath("$.labels[4]").value("DELIVERED"))
+               .andExpect(jsonPath("$.values[0]").value(4))
+               .andExpect(jsonPath("$.values[3]").value(3))
+               .andExpect(jsonPath("$.values[4]").value(9));
+        verify(orderRepository, never()).findAll();
+    }
+
+    @Test
+    void salesChartShouldReadTheRollupAndFillEmptyDays() throws Exception {
+        LocalDate today = LocalDate.now();
+        when(salesRollupService.daily(today.minusDays(2), today)).thenReturn(List.of(
+                new SalesRollupService.DayTotals(today.minusDays(1), new BigDecimal("450.50"), 3, 7)));
+
+        mockMvc.perform(get("/api/admin/charts/sales?days=3"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.labels[1]").value(today.minusDays(1).toString()))
+               .andExpect(jsonPath("$.values[0]").value(0.0))
+               .andExpect(jsonPath("$.values[1]").value(450.5))
+               .andExpect(jsonPath("$.values[2]").value(0.0));
+
+        mockMvc.perform(get("/api/admin/charts/sales?days=0"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void uniqueCustomersShouldComeFromTheSketches() throws Exception {
+        LocalDate today = LocalDate.now();
+        when(customerSketchService.uniqueCustomers(today.minusDays(6), today)).thenReturn(42L);
+        when(customerSketchService.byStore(today.minusDays(6), today)).thenReturn(List.of(
+                new CustomerSketchService.Share(3L, "Dairy Depot", 30L)));
+        when(customerSketchService.byCategory(today.minusDays(6), today)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/admin/customers/unique?days=7"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total").value(42))
+               .andExpect(jsonPath("$.byStore[0].name").value("Dairy Depot"))
+               .andExpect(jsonPath("$.byStore[0].customers").value(30));
+
+        mockMvc.perform(post("/api/admin/customer-sketches/rebuild").param("from", today.toString()))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void processReturnShouldApproveReturn() throws Exception {
+        when(returnService.process(List.of(1L), "APPROVED")).thenReturn(1);
 
         String json = """
             {"action":"APPROVED"}
@@ -99,36 +238,29 @@ class AdminControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json))
                .andExpect(status().isOk());
+        verify(returnService).process(List.of(1L), "APPROVED");
     }
 
     @Test
-    void processReturnShouldRefundAndUpdateOrder() throws Exception {
-        Order order = new Order();
-        order.setPaymentStatus("COMPLETED");
-
-        OrderItem item = new OrderItem();
-        item.setOrder(order);
-        item.setReturnStatus("REQUESTED");
-
-        when(orderItemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(orderItemRepository.save(any(OrderItem.class))).thenReturn(item);
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+    void processReturnsShouldHandleTheWholeBatchInOneCall() throws Exception {
+        when(returnService.process(List.of(4L, 5L, 9L), "REFUNDED")).thenReturn(3);
 
         String json = """
-            {"action":"REFUNDED"}
+            {"ids":[4,5,9],"action":"REFUNDED"}
             """;
 
-        mockMvc.perform(post("/api/admin/returns/1/process")
+        mockMvc.perform(post("/api/admin/returns/process")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json))
-               .andExpect(status().isOk());
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.processed").value(3));
+        verify(returnService).process(List.of(4L, 5L, 9L), "REFUNDED");
     }
 
     @Test
     void processReturnShouldRejectInvalidAction() throws Exception {
-        OrderItem item = new OrderItem();
-
-        when(orderItemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(returnService.process(List.of(1L), "INVALID"))
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid action"));
 
         String json = """
             {"action":"INVALID"}
@@ -140,6 +272,40 @@ class AdminControllerTest {
                .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void returnQueueShouldPageWithRequestTimeAndIdCursor() throws Exception {
+        LocalDateTime t = LocalDateTime.of(2026, 10, 1, 9, 30);
+        when(orderItemRepository.findReturnQueue(eq(List.of("REQUESTED")), any(), any(), isNull(), eq("sita%"),
+                isNull(), isNull(), eq(Limit.of(3)))).thenReturn(List.of(
+                returnRow(11L, t), returnRow(12L, t), returnRow(13L, t.plusHours(1))));
+
+        mockMvc.perform(get("/api/admin/returns?status=requested&q=sita&from=2026-10-01&limit=2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.returns.length()").value(2))
+               .andExpect(jsonPath("$.returns[0].customerName").value("Sita"))
+               .andExpect(jsonPath("$.nextAfterRequestedAt").value("2026-10-01T09:30:00"))
+               .andExpect(jsonPath("$.nextAfterId").value(12));
+    }
+
+    @Test
+    void returnQueueShouldContinueFromALineWithoutARequestTime() throws Exception {
+        when(orderItemRepository.findReturnQueue(any(), isNull(), isNull(), isNull(), isNull(),
+                isNull(), eq(11L), eq(Limit.of(2)))).thenReturn(List.of(returnRow(12L, null), returnRow(13L, null)));
+
+        mockMvc.perform(get("/api/admin/returns?afterId=11&limit=1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.returns[0].id").value(12))
+               .andExpect(jsonPath("$.nextAfterRequestedAt").doesNotExist())
+               .andExpect(jsonPath("$.nextAfterId").value(12));
+        mockMvc.perform(get("/api/admin/returns?afterRequestedAt=2026-10-01T09:30:00"))
+               .andExpect(status().isBadRequest());
+    }
+
+    private static ReturnSummary returnRow(Long id, LocalDateTime requestedAt) {
+        return new ReturnSummary(id, 100L + id, 7L, "Sita", "sita@test.com", "Ghee 1L", 1, 1200,
+                "REQUESTED", "Damaged", requestedAt, 1200.0);
+    }
+
     @Test
     void getUserStatsShouldReturnRoleCounts() throws Exception {
         User admin = new User();
@@ -210,4 +376,40 @@ class AdminControllerTest {
                .andExpect(jsonPath("$.length()").value(1))
                .andExpect(jsonPath("$[0].name").value("Rider One"));
     }
+
+    @Test
+    void startFlashSaleShouldReturnUnitsAvailable() throws Exception {
+        when(flashSaleService.enable(7L)).thenReturn(250);
+
+        mockMvc.perform(post("/api/admin/flash-sale/7"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.productId").value(7))
+               .andExpect(jsonPath("$.available").value(250));
+    }
+
+    @Test
+    void orderSearchShouldReturnSummariesWithCursor() throws Exception {
+        User customer = new User();
+        customer.setName("Sita");
+        customer.setEmail("sita@test.com");
+        Order newer = new Order();
+        ReflectionTestUtils.setField(newer, "id", 12L);
+        newer.setUser(customer);
+        Order older = new Order();
+        ReflectionTestUtils.setField(older, "id", 9L);
+        older.setUser(customer);
+
+        when(orderRepository.findBy(any(Specification.class), any())).thenReturn(List.of(newer, older));
+        when(orderItemRepository.countByOrderIds(List.of(12L))).thenReturn(List.<Object[]>of(new Object[]{12L, 3L}));
+
+        mockMvc.perform(get("/api/admin/orders/search").param("status", "placed").param("limit", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.orders.length()").value(1))
+               .andExpect(jsonPath("$.orders[0].customerEmail").value("sita@test.com"))
+               .andExpect(jsonPath("$.orders[0].itemCount").value(3))
+               .andExpect(jsonPath("$.nextBefore").value(12));
+
+        mockMvc.perform(get("/api/admin/orders/search").param("limit", "500"))
+               .andExpect(status().isBadRequest());
+    }
 }
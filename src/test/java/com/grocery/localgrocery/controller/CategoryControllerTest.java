@@ -2,10 +2,12 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Category;
 import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.service.CatalogVersion;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -20,6 +22,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CategoryController.class)
+@Import(CatalogVersion.class)
 class CategoryControllerTest {
 
     @Autowired
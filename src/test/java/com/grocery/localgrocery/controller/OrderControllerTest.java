@@ -1,25 +1,35 @@
 package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Order;
-import com.grocery.localgrocery.entity.OrderItem;
-import com.grocery.localgrocery.entity.Product;
 import com.grocery.localgrocery.entity.User;
 import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderLineSummary;
 import com.grocery.localgrocery.repository.OrderRepository;
-import com.grocery.localgrocery.repository.ProductRepository;
-import com.grocery.localgrocery.repository.UserRepository;
+import com.grocery.localgrocery.repository.OrderSummary;
+import com.grocery.localgrocery.service.OrderEventService;
+import com.grocery.localgrocery.service.OrderService;
+import com.grocery.localgrocery.service.QuoteService;
+import com.grocery.localgrocery.service.ReturnService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -39,22 +49,37 @@ class OrderControllerTest {
     private OrderItemRepository orderItemRepository;
 
     @MockBean
-    private UserRepository userRepository;
+    private OrderService orderService;
 
     @MockBean
-    private ProductRepository productRepository;
+    private OrderEventService orderEventService;
+
+    @MockBean
+    private ReturnService returnService;
 
     @Test
-    void getAllOrdersShouldReturnList() throws Exception {
-        Order order = new Order();
-        order.setStatus("PLACED");
+    void listingEveryOrderShouldNotBeOffered() throws Exception {
+        mockMvc.perform(get("/api/orders"))
+               .andExpect(status().isMethodNotAllowed());
+        verify(orderRepository, never()).findAll();
+    }
 
-        when(orderRepository.findAll()).thenReturn(List.of(order));
+    @Test
+    void updateReturnStatusShouldGoThroughTheReturnRules() throws Exception {
+        when(orderItemRepository.findReturnStates(List.of(5L)))
+                .thenReturn(List.<Object[]>of(new Object[]{5L, "REFUNDED", 3L, "REFUNDED"}));
+        when(returnService.process(List.of(5L), "REFUNDED"))
+                .thenThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot REFUNDED returns: [5]"));
 
-        mockMvc.perform(get("/api/orders"))
-               .andExpect(status().isOk())
-               .andExpect(jsonPath("$.length()").value(1))
-               .andExpect(jsonPath("$[0].status").value("PLACED"));
+        mockMvc.perform(post("/api/orders/3/items/5/return-status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"REFUNDED\"}"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/orders/4/items/5/return-status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"APPROVED\"}"))
+               .andExpect(status().isBadRequest());
+        verify(returnService, never()).process(List.of(5L), "APPROVED");
     }
 
     @Test
@@ -66,7 +91,7 @@ class OrderControllerTest {
         order.setUser(user);
         order.setStatus("PLACED");
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findDetailById(1L)).thenReturn(Optional.of(order));
 
         mockMvc.perform(get("/api/orders/1"))
                .andExpect(status().isOk())
@@ -75,28 +100,37 @@ class OrderControllerTest {
 
     @Test
     void getOrderByIdShouldReturnNotFound() throws Exception {
-        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
+        when(orderRepository.findDetailById(99L)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/orders/99"))
                .andExpect(status().isNotFound());
     }
 
     @Test
-    void placeOrderShouldCreateOrder() throws Exception {
-        User user = new User();
-        user.setEmail("user@test.com");
+    void orderHistoryShouldPageAndAttachLines() throws Exception {
+        when(orderRepository.findHistoryPage(eq(1L), eq(Long.MAX_VALUE), any())).thenReturn(List.of(
+                summary(12L), summary(9L), summary(4L)));
+        when(orderItemRepository.findLinesByOrderIds(any())).thenReturn(List.of(
+                new OrderLineSummary(12L, 100L, 5L, "Basmati Rice 5kg", 2, 900, "NONE", null, null),
+                new OrderLineSummary(9L, 101L, 6L, "Moong Daal 1kg", 1, 240, "NONE", null, null)));
+
+        mockMvc.perform(get("/api/orders/user/1/history").param("limit", "2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.orders.length()").value(2))
+               .andExpect(jsonPath("$.orders[0].items[0].productName").value("Basmati Rice 5kg"))
+               .andExpect(jsonPath("$.orders[0].items[0].orderId").doesNotExist())
+               .andExpect(jsonPath("$.orders[1].items[0].quantity").value(1))
+               .andExpect(jsonPath("$.nextBefore").value(9));
 
-        Product product = new Product();
-        product.setName("Rice");
-        product.setPrice(50.0);
-        product.setStock(10);
-        product.setWeightKg(5.0);
+        verify(orderRepository).findHistoryPage(1L, Long.MAX_VALUE, Limit.of(3));
+    }
+
+    @Test
+    void placeOrderShouldCreateOrder() throws Exception {
+        Order order = new Order();
+        order.setTotal(BigDecimal.valueOf(213.0));
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> inv.getArgument(0));
-        when(productRepository.save(any(Product.class))).thenReturn(product);
-        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(orderService.placeOrder(any(OrderController.PlaceOrderRequest.class), isNull())).thenReturn(order);
 
         String json = """
             {"userId":1,"deliveryAddress":"Kathmandu","items":[{"productId":1,"quantity":2}],"subtotal":100.0,"tax":13.0,"shippingFee":100.0,"total":213.0,"paymentMethod":"COD"}
@@ -105,7 +139,62 @@ class OrderControllerTest {
         mockMvc.perform(post("/api/orders")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json))
-               .andExpect(status().isOk());
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total").value(213.0));
+    }
+
+    @Test
+    void placeOrderShouldPassIdempotencyKeyThrough() throws Exception {
+        Order order = new Order();
+        order.setTotal(BigDecimal.valueOf(213.0));
+
+        when(orderService.placeOrder(any(OrderController.PlaceOrderRequest.class), eq("checkout-42"))).thenReturn(order);
+
+        String json = """
+            {"userId":1,"deliveryAddress":"Kathmandu","items":[{"productId":1,"quantity":2}]}
+            """;
+
+        mockMvc.perform(post("/api/orders")
+                .header("Idempotency-Key", "checkout-42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total").value(213.0));
+
+        mockMvc.perform(post("/api/orders")
+                .header("Idempotency-Key", "x".repeat(101))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+               .andExpect(status().isBadRequest());
+    }
+
+    private static OrderSummary summary(Long id) {
+        return new OrderSummary(id, LocalDateTime.now(), "PLACED", "Kathmandu", BigDecimal.TEN, BigDecimal.ONE,
+                BigDecimal.ZERO, BigDecimal.valueOf(11), null, null);
+    }
+
+    @Test
+    void quoteShouldReturnServerPricedTotals() throws Exception {
+        QuoteService.Quote quote = new QuoteService.Quote();
+        quote.subtotal = 900;
+        quote.shippingFee = 100;
+        quote.tax = 117;
+        quote.total = 1117;
+
+        when(orderService.quote(any(), isNull())).thenReturn(quote);
+
+        mockMvc.perform(post("/api/orders/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"items":[{"productId":1,"quantity":1}]}
+                    """))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total").value(1117.0));
+
+        mockMvc.perform(post("/api/orders/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\":[]}"))
+               .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -143,7 +232,7 @@ class OrderControllerTest {
         order.setStatus("PLACED");
 
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(orderEventService.save(any(Order.class), any())).thenReturn(order);
 
         String json = """
             {"reason":"Changed my mind"}
@@ -154,6 +243,9 @@ class OrderControllerTest {
                 .content(json))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.message").value("Order cancelled successfully"));
+
+        // The event diff is taken against the status before the cancellation
+        verify(orderEventService).save(order, new OrderEventService.Snapshot("PLACED", "PENDING"));
     }
 
     @Test
@@ -0,0 +1,80 @@
+package com.grocery.localgrocery.controller;
+
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.repository.OrderEventRepository;
+import com.grocery.localgrocery.service.OrderEventService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OrderEventController.class)
+class OrderEventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderEventService orderEventService;
+
+    @MockBean
+    private OrderEventRepository orderEventRepository;
+
+    @Test
+    void pollShouldReadAfterTheCommittedOffset() throws Exception {
+        when(orderEventService.offset("reports")).thenReturn(7L);
+        when(orderEventService.read(7L, 2)).thenReturn(List.of(event(8L, "ASSIGNED"), event(9L, "PICKED_UP")));
+
+        mockMvc.perform(get("/api/order-events/consumers/reports/poll?limit=2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.events.length()").value(2))
+               .andExpect(jsonPath("$.events[1].toValue").value("PICKED_UP"))
+               .andExpect(jsonPath("$.next").value(9));
+    }
+
+    @Test
+    void emptyReadShouldKeepThePosition() throws Exception {
+        when(orderEventService.read(12L, 100)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/order-events?after=12"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.events.length()").value(0))
+               .andExpect(jsonPath("$.next").value(12));
+    }
+
+    @Test
+    void readShouldRejectOversizedPage() throws Exception {
+        mockMvc.perform(get("/api/order-events?limit=5000"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void commitShouldReturnTheStoredOffset() throws Exception {
+        when(orderEventService.commit("reports", 9L)).thenReturn(9L);
+
+        mockMvc.perform(post("/api/order-events/consumers/reports/offset")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"offset\":9}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.offset").value(9));
+        verify(orderEventService).commit("reports", 9L);
+    }
+
+    private static OrderEvent event(Long id, String to) {
+        OrderEvent e = new OrderEvent(1L, null, OrderEvent.ORDER_STATUS, null, to);
+        ReflectionTestUtils.setField(e, "id", id);
+        return e;
+    }
+}
@@ -2,22 +2,38 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Category;
 import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.ProductChange;
 import com.grocery.localgrocery.entity.Store;
 import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.ProductChangeRepository;
 import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.ProductSummary;
 import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.service.CatalogService;
+import com.grocery.localgrocery.service.CatalogVersion;
+import com.grocery.localgrocery.service.ImageVariantService;
+import com.grocery.localgrocery.service.RecommendationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
@@ -25,20 +41,42 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
+@Import({CatalogService.class, CatalogVersion.class})
 class ProductControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CatalogService catalogService;
+
     @MockBean
     private ProductRepository productRepository;
 
     @MockBean
     private CategoryRepository categoryRepository;
 
+    @MockBean
+    private ProductChangeRepository productChangeRepository;
+
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+
     @MockBean
     private StoreRepository storeRepository;
 
+    @MockBean
+    private RecommendationService recommendationService;
+
+    @MockBean
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void resetCatalog() {
+        // The snapshot outlives a single test in the cached context
+        catalogService.invalidate();
+    }
+
     @Test
     void getAllShouldReturnProducts() throws Exception {
         Product p1 = new Product();
@@ -57,6 +95,198 @@ class ProductControllerTest {
                .andExpect(jsonPath("$[0].name").value("Apple"));
     }
 
+    @Test
+    void getAllWithQShouldKeepSubstringMatchesInIdOrder() throws Exception {
+        Product pineapple = new Product();
+        ReflectionTestUtils.setField(pineapple, "id", 1L);
+        pineapple.setName("Pineapple");
+
+        Product apple = new Product();
+        ReflectionTestUtils.setField(apple, "id", 2L);
+        apple.setName("Apple");
+
+        Product banana = new Product();
+        ReflectionTestUtils.setField(banana, "id", 3L);
+        banana.setName("Banana");
+
+        when(productRepository.findAll()).thenReturn(List.of(pineapple, apple, banana));
+
+        mockMvc.perform(get("/api/products?q=APPLE"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(2))
+               .andExpect(jsonPath("$[0].name").value("Pineapple"))
+               .andExpect(jsonPath("$[1].name").value("Apple"));
+    }
+
+    @Test
+    void getAllShouldAnswerNotModifiedUntilAProductChanges() throws Exception {
+        Product rice = new Product();
+        rice.setName("Rice");
+        when(productRepository.findAll()).thenReturn(List.of(rice));
+        when(storeRepository.findById(1L)).thenReturn(Optional.of(new Store("Fresh Mart", "KTM")));
+        when(categoryRepository.findById(1L)).thenReturn(Optional.of(new Category("Grains")));
+        when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        String etag = mockMvc.perform(get("/api/products"))
+               .andExpect(status().isOk())
+               .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/products?categoryId=1").header("If-None-Match", etag))
+               .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"name":"Oats","price":5.0,"stock":1,"categoryId":1,"storeId":1}
+                    """))
+               .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+               .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAllShouldFilterByCategoryAndStore() throws Exception {
+        Category fruits = new Category("Fruits");
+        ReflectionTestUtils.setField(fruits, "id", 1L);
+        Category dairy = new Category("Dairy");
+        ReflectionTestUtils.setField(dairy, "id", 2L);
+        Store store = new Store("Fresh Mart", "KTM");
+        ReflectionTestUtils.setField(store, "id", 5L);
+
+        Product apple = new Product();
+        ReflectionTestUtils.setField(apple, "id", 10L);
+        apple.setName("Apple");
+        apple.setCategory(fruits);
+        apple.setStore(store);
+
+        Product milk = new Product();
+        ReflectionTestUtils.setField(milk, "id", 11L);
+        milk.setName("Milk");
+        milk.setCategory(dairy);
+        milk.setStore(store);
+
+        when(productRepository.findAll()).thenReturn(List.of(milk, apple));
+
+        mockMvc.perform(get("/api/products?categoryId=2&storeId=5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].name").value("Milk"));
+
+        mockMvc.perform(get("/api/products?storeId=5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(2))
+               .andExpect(jsonPath("$[0].name").value("Apple"));
+    }
+
+    @Test
+    void searchShouldRankRomanizedMatches() throws Exception {
+        Product jeera = new Product();
+        ReflectionTestUtils.setField(jeera, "id", 1L);
+        jeera.setName("Cumin (Jeera) 200g");
+
+        Product rice = new Product();
+        ReflectionTestUtils.setField(rice, "id", 2L);
+        rice.setName("Jeera Masino Rice 5kg");
+        rice.setDescription("Fragrant rice");
+
+        Product salt = new Product();
+        ReflectionTestUtils.setField(salt, "id", 3L);
+        salt.setName("Salt 1kg");
+
+        when(productRepository.findAll()).thenReturn(List.of(jeera, rice, salt));
+
+        mockMvc.perform(get("/api/products/search?q=jira rice"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(2))
+               .andExpect(jsonPath("$[0].name").value("Jeera Masino Rice 5kg"));
+    }
+
+    @Test
+    void getPageShouldRejectUnknownSortAndForeignCursor() throws Exception {
+        mockMvc.perform(get("/api/products/page?sort=rating"))
+               .andExpect(status().isBadRequest());
+
+        // Cursor issued for a name-sorted page can't be replayed against price order
+        mockMvc.perform(get("/api/products/page?sort=price&after=TkFNRXxSaWNlfDQ"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getCatalogShouldReturnSlimProductsWithSideTables() throws Exception {
+        when(productRepository.findAllSummaries()).thenReturn(List.of(
+                new ProductSummary(1L, "Rice", 50.0, 10, 5.0, null, null, null, 2L, 3L)));
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category("Grains")));
+        when(storeRepository.findAll()).thenReturn(List.of(new Store("Fresh Mart", "KTM")));
+
+        mockMvc.perform(get("/api/products/catalog"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.products[0].categoryId").value(2))
+               .andExpect(jsonPath("$.products[0].storeId").value(3))
+               .andExpect(jsonPath("$.products[0].description").doesNotExist())
+               .andExpect(jsonPath("$.categories[0].name").value("Grains"))
+               .andExpect(jsonPath("$.stores[0].name").value("Fresh Mart"));
+    }
+
+    @Test
+    void getChangesShouldListEachChangedProductOnceWithTombstones() throws Exception {
+        Product rice = new Product();
+        ReflectionTestUtils.setField(rice, "id", 1L);
+        rice.setName("Rice");
+        rice.setStock(0);
+        when(productRepository.findAll()).thenReturn(List.of(rice));
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(eq(40L), any())).thenReturn(List.of(
+                change(41L, 1L, ProductChange.UPSERT),
+                change(42L, 7L, ProductChange.UPSERT),
+                change(43L, 1L, ProductChange.UPSERT),
+                change(44L, 7L, ProductChange.DELETE)));
+
+        mockMvc.perform(get("/api/products/changes").param("since", "40"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.version").value(44))
+               .andExpect(jsonPath("$.reset").value(false))
+               .andExpect(jsonPath("$.products.length()").value(1))
+               .andExpect(jsonPath("$.products[0].name").value("Rice"))
+               .andExpect(jsonPath("$.products[0].stock").value(0))
+               .andExpect(jsonPath("$.deleted[0]").value(7));
+    }
+
+    @Test
+    void getChangesShouldStopAtAJournalIdThatMayStillCommit() throws Exception {
+        Product rice = new Product();
+        ReflectionTestUtils.setField(rice, "id", 1L);
+        rice.setName("Rice");
+        when(productRepository.findAll()).thenReturn(List.of(rice));
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(eq(50L), any())).thenReturn(List.of(
+                change(51L, 1L, ProductChange.UPSERT),
+                change(53L, 1L, ProductChange.UPSERT)));
+
+        mockMvc.perform(get("/api/products/changes").param("since", "50"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.version").value(51))
+               .andExpect(jsonPath("$.products[0].name").value("Rice"));
+    }
+
+    @Test
+    void getChangesShouldAskForReloadAfterBulkChange() throws Exception {
+        when(productChangeRepository.findByIdGreaterThanOrderByIdAsc(eq(40L), any())).thenReturn(List.of(
+                change(41L, 1L, ProductChange.UPSERT),
+                change(42L, null, ProductChange.RESET)));
+
+        mockMvc.perform(get("/api/products/changes").param("since", "40"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.reset").value(true));
+    }
+
+    @Test
+    void deleteShouldReturnConflictWhenProductHasOrders() throws Exception {
+        when(productRepository.existsById(5L)).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("fk")).when(productRepository).deleteById(5L);
+
+        mockMvc.perform(delete("/api/products/5"))
+               .andExpect(status().isConflict());
+    }
+
     @Test
     void getByIdShouldReturnProduct() throws Exception {
         Product product = new Product();
@@ -70,6 +300,29 @@ class ProductControllerTest {
                .andExpect(jsonPath("$.name").value("Milk"));
     }
 
+    private static ProductChange change(Long id, Long productId, String type) {
+        ProductChange change = new ProductChange(productId, type);
+        ReflectionTestUtils.setField(change, "id", id);
+        return change;
+    }
+
+    @Test
+    void recommendedShouldPassCartIds() throws Exception {
+        Product dal = new Product();
+        dal.setName("Moong Dal");
+        when(recommendationService.recommend(List.of(1L, 2L), 4)).thenReturn(List.of(dal));
+
+        mockMvc.perform(get("/api/products/recommended").param("cart", "1,2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].name").value("Moong Dal"));
+    }
+
+    @Test
+    void recommendedShouldRejectOversizedLimit() throws Exception {
+        mockMvc.perform(get("/api/products/recommended").param("limit", "500"))
+               .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getByIdShouldReturnNotFound() throws Exception {
         when(productRepository.findById(99L)).thenReturn(Optional.empty());
@@ -129,4 +382,30 @@ class ProductControllerTest {
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.name").value("New Name"));
     }
+
+    @Test
+    void updateShouldQueueVariantsForANewImage() throws Exception {
+        Product existing = new Product();
+        ReflectionTestUtils.setField(existing, "id", 7L);
+        existing.setName("Ghee");
+        existing.setImageUrl("/uploads/products/old.jpg");
+        existing.setThumbnailUrl("/uploads/products/old_thumb.jpg");
+
+        when(productRepository.findById(7L)).thenReturn(Optional.of(existing));
+        when(productRepository.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
+
+        mockMvc.perform(put("/api/products/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\":-1,\"stock\":-1,\"imageUrl\":\"/uploads/products/new.jpg\"}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.thumbnailUrl").doesNotExist());
+        verify(imageVariantService).generateAsync(7L, "/uploads/products/new.jpg");
+
+        mockMvc.perform(put("/api/products/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"price\":-1,\"stock\":-1,\"imageUrl\":\"/uploads/products/new.jpg\"}"))
+               .andExpect(status().isOk());
+        // Same image again: nothing to regenerate
+        verify(imageVariantService).generateAsync(eq(7L), any(String.class));
+    }
 }
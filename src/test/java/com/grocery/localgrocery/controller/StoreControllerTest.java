@@ -2,23 +2,29 @@ package com.grocery.localgrocery.controller;
 
 import com.grocery.localgrocery.entity.Store;
 import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.service.CatalogVersion;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(StoreController.class)
+@Import(CatalogVersion.class)
 class StoreControllerTest {
 
     @Autowired
@@ -40,6 +46,40 @@ class StoreControllerTest {
                .andExpect(jsonPath("$[0].name").value("Fresh Mart"));
     }
 
+    @Test
+    void getAllShouldAnswerNotModifiedWithoutQueryingWhenEtagMatches() throws Exception {
+        when(storeRepository.findAll()).thenReturn(List.of(new Store("Fresh Mart", "Kathmandu")));
+
+        String etag = mockMvc.perform(get("/api/stores"))
+               .andExpect(status().isOk())
+               .andExpect(header().exists("ETag"))
+               .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/stores").header("If-None-Match", etag))
+               .andExpect(status().isNotModified());
+
+        verify(storeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void createShouldInvalidateEtag() throws Exception {
+        when(storeRepository.findAll()).thenReturn(List.of());
+        when(storeRepository.save(any(Store.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        String etag = mockMvc.perform(get("/api/stores"))
+               .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/api/stores")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"name":"New Store","location":"Bhaktapur"}
+                    """))
+               .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/stores").header("If-None-Match", etag))
+               .andExpect(status().isOk());
+    }
+
     @Test
     void createShouldSaveStore() throws Exception {
         when(storeRepository.save(any(Store.class))).thenAnswer(inv -> inv.getArgument(0));
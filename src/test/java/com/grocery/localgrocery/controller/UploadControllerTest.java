@@ -0,0 +1,130 @@
+package com.grocery.localgrocery.controller;
+
+import com.grocery.localgrocery.service.UploadFileCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UploadController.class)
+@Import(UploadFileCache.class)
+class UploadControllerTest {
+
+    private static final String IMAGE = "0f8fad5b-d9cb-469f-a165-70867728950e_rice.png";
+    // Delivery proofs keep the uploader's file name as-is
+    private static final String PROOF = "7c9e6679-7425-40de-944b-e07fc1f90ae7_IMG 1 (copy).jpg";
+
+    @TempDir
+    static Path uploads;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void uploadsDir(DynamicPropertyRegistry registry) {
+        registry.add("app.uploads.dir", () -> uploads.toString());
+    }
+
+    @BeforeAll
+    static void writeFiles() throws Exception {
+        Files.createDirectories(uploads.resolve("products"));
+        Files.write(uploads.resolve("products").resolve(IMAGE), "0123456789".getBytes());
+        Files.write(uploads.resolve("notes.txt"), "hello".getBytes());
+        Files.createDirectories(uploads.resolve("deliveries"));
+        Files.write(uploads.resolve("deliveries").resolve(PROOF), "proof".getBytes());
+    }
+
+    @Test
+    void uuidNamedUploadsAreServedWithImmutableCaching() throws Exception {
+        mockMvc.perform(get("/uploads/products/" + IMAGE))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType("image/png"))
+               .andExpect(content().string("0123456789"))
+               .andExpect(header().string("Accept-Ranges", "bytes"))
+               .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+               .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    void otherFilesMustRevalidate() throws Exception {
+        mockMvc.perform(get("/uploads/notes.txt"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void matchingEtagReturnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/uploads/products/" + IMAGE))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/uploads/products/" + IMAGE).header("If-None-Match", etag))
+               .andExpect(status().isNotModified())
+               .andExpect(content().string(""));
+    }
+
+    @Test
+    void byteRangeReturnsPartialContent() throws Exception {
+        mockMvc.perform(get("/uploads/products/" + IMAGE).header("Range", "bytes=2-5"))
+               .andExpect(status().isPartialContent())
+               .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+               .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/uploads/products/" + IMAGE).header("Range", "bytes=-3"))
+               .andExpect(status().isPartialContent())
+               .andExpect(content().string("789"));
+    }
+
+    @Test
+    void rangeBeyondEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/uploads/products/" + IMAGE).header("Range", "bytes=20-"))
+               .andExpect(status().isRequestedRangeNotSatisfiable())
+               .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    void encodedNamesAreDecodedBeforeLookup() throws Exception {
+        mockMvc.perform(get("/uploads/deliveries/" + PROOF))
+               .andExpect(status().isOk())
+               .andExpect(content().string("proof"));
+
+        mockMvc.perform(get(URI.create("/uploads/products/%2e%2e/notes.txt")))
+               .andExpect(status().isOk());
+        mockMvc.perform(get(URI.create("/uploads/%2e%2e/%2e%2e/etc/passwd")))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void missingFileReturnsNotFound() throws Exception {
+        mockMvc.perform(get("/uploads/products/nope.png"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(get("/uploads"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(get("/uploads/"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void parseRangeHandlesOpenAndMalformedRanges() {
+        assertArrayEquals(new long[]{5, 10}, UploadController.parseRange("bytes=5-", 10));
+        assertArrayEquals(new long[]{0, 10}, UploadController.parseRange("bytes=0-99", 10));
+        assertArrayEquals(new long[0], UploadController.parseRange("bytes=0-1,4-5", 10));
+        assertArrayEquals(new long[0], UploadController.parseRange("items=0-1", 10));
+        assertNull(UploadController.parseRange("bytes=10-", 10));
+    }
+}
@@ -1,10 +1,17 @@
 package com.grocery.localgrocery.repository;
 
 import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
 import com.grocery.localgrocery.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -22,6 +29,18 @@ class OrderRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     void shouldSaveAndFindOrder() {
         User user = new User();
@@ -129,4 +148,129 @@ class OrderRepositoryTest {
         assertThat(orderRepository.countByStatus("PLACED")).isEqualTo(2);
         assertThat(orderRepository.countByStatus("DELIVERED")).isEqualTo(1);
     }
+
+    @Test
+    void historyPagesShouldWalkBackwardsByKeyset() {
+        User user = new User();
+        user.setEmail("history@test.com");
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName("History");
+        user.setPhone("9811111111");
+        user = userRepository.save(user);
+
+        for (int i = 1; i <= 5; i++) {
+            Order o = new Order();
+            o.setUser(user);
+            o.setDeliveryAddress("Address " + i);
+            o.setTotal(BigDecimal.valueOf(i));
+            orderRepository.save(o);
+        }
+
+        List<OrderSummary> first = orderRepository.findHistoryPage(user.getId(), Long.MAX_VALUE, Limit.of(2));
+        assertThat(first).extracting(OrderSummary::deliveryAddress).containsExactly("Address 5", "Address 4");
+
+        List<OrderSummary> second = orderRepository.findHistoryPage(user.getId(), first.get(1).id(), Limit.of(2));
+        assertThat(second).extracting(OrderSummary::deliveryAddress).containsExactly("Address 3", "Address 2");
+        assertThat(second.get(0).items()).isEmpty();
+    }
+
+    @Test
+    void findDetailByIdShouldLoadUserAndItems() {
+        User user = new User();
+        user.setEmail("detail@test.com");
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName("Detail");
+        user.setPhone("9822222222");
+        user = userRepository.save(user);
+
+        Product product = new Product();
+        product.setName("Basmati Rice 5kg");
+        product.setPrice(900);
+        product = productRepository.save(product);
+
+        Order order = new Order();
+        order.setUser(user);
+        order.setDeliveryAddress("Lalitpur");
+        order = orderRepository.save(order);
+
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(2);
+        item.setPriceAtPurchase(900);
+        orderItemRepository.save(item);
+        entityManager.flush();
+        entityManager.clear();
+
+        Order detail = orderRepository.findDetailById(order.getId()).orElseThrow();
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        assertThat(util.isLoaded(detail, "items")).isTrue();
+        assertThat(detail.getItems()).extracting(i -> i.getProduct().getName()).containsExactly("Basmati Rice 5kg");
+        assertThat(detail.getUser().getEmail()).isEqualTo("detail@test.com");
+        assertThat(orderRepository.findDetailById(order.getId() + 1000)).isEmpty();
+    }
+
+    @Test
+    void searchSpecificationsShouldFilterAndSeek() {
+        User sita = customer("sita@test.com", "Sita Sharma");
+        User ram = customer("ram@test.com", "Ram Thapa");
+        Store store = new Store();
+        store.setName("Bhatbhateni");
+        store = storeRepository.save(store);
+        Product rice = new Product();
+        rice.setName("Basmati Rice 5kg");
+        rice.setStore(store);
+        rice = productRepository.save(rice);
+
+        Order placed = order(sita, "PLACED", "COD");
+        Order delivered = order(sita, "DELIVERED", "CARD");
+        Order ramsOrder = order(ram, "PLACED", "COD");
+        OrderItem item = new OrderItem();
+        item.setOrder(delivered);
+        item.setProduct(rice);
+        item.setQuantity(1);
+        orderItemRepository.save(item);
+
+        assertThat(search(OrderSpecifications.hasStatus(List.of("PLACED"))))
+                .containsExactly(ramsOrder.getId(), placed.getId());
+        assertThat(search(OrderSpecifications.customerMatches("sita")))
+                .containsExactly(delivered.getId(), placed.getId());
+        assertThat(search(OrderSpecifications.customerMatches("#" + ramsOrder.getId())))
+                .containsExactly(ramsOrder.getId());
+        assertThat(search(OrderSpecifications.fromStore(store.getId()))).containsExactly(delivered.getId());
+        assertThat(search(OrderSpecifications.paidWith("card"))).containsExactly(delivered.getId());
+        assertThat(search(OrderSpecifications.hasStatus(List.of("PLACED")).and(OrderSpecifications.before(ramsOrder.getId()))))
+                .containsExactly(placed.getId());
+        assertThat(search(OrderSpecifications.assigned(false)
+                .and(OrderSpecifications.notInStatus(List.of("DELIVERED", "CANCELLED")))))
+                .containsExactly(ramsOrder.getId(), placed.getId());
+        assertThat(search(OrderSpecifications.assigned(true))).isEmpty();
+    }
+
+    private List<Long> search(Specification<Order> spec) {
+        return orderRepository.findBy(spec.and(OrderSpecifications.fetchUsers()),
+                        q -> q.sortBy(OrderSpecifications.NEWEST_FIRST).all())
+                .stream().map(Order::getId).toList();
+    }
+
+    private User customer(String email, String name) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName(name);
+        user.setPhone("9833333333");
+        return userRepository.save(user);
+    }
+
+    private Order order(User user, String status, String paymentMethod) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setDeliveryAddress("Kathmandu");
+        order.setStatus(status);
+        order.setPaymentMethod(paymentMethod);
+        return orderRepository.save(order);
+    }
 }
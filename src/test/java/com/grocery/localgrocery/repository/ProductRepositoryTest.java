@@ -1,11 +1,15 @@
 package com.grocery.localgrocery.repository;
 
+import com.grocery.localgrocery.entity.Category;
 import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.repository.ProductSpecifications.SortKey;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,6 +21,12 @@ class ProductRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldSaveAndFindProduct() {
         Product product = new Product();
@@ -59,4 +69,87 @@ class ProductRepositoryTest {
 
         assertThat(productRepository.findById(saved.getId())).isEmpty();
     }
+
+    @Test
+    void shouldPageByPriceWithKeysetAndFilters() {
+        Category rice = categoryRepository.save(new Category("Rice"));
+        Category dairy = categoryRepository.save(new Category("Dairy"));
+        save("Basmati", 1850, rice);
+        save("Sona Masoori", 1250, rice);
+        save("Jeera Masino", 1250, rice);
+        save("Atta", 650, rice);
+        save("Milk", 120, dairy);
+
+        var spec = ProductSpecifications.inCategory(rice.getId())
+                .and(ProductSpecifications.priceAtLeast(1000.0));
+        List<Product> first = productRepository.findBy(spec, q -> q.sortBy(SortKey.PRICE.sort()).limit(2).all());
+        assertThat(first).extracting(Product::getName).containsExactly("Sona Masoori", "Jeera Masino");
+
+        Product last = first.get(1);
+        List<Product> second = productRepository.findBy(
+                spec.and(ProductSpecifications.after(SortKey.PRICE, last.getPrice(), last.getId())),
+                q -> q.sortBy(SortKey.PRICE.sort()).limit(2).all());
+        assertThat(second).extracting(Product::getName).containsExactly("Basmati");
+    }
+
+    @Test
+    void shouldPageByPopularityDescending() {
+        Product a = save("A", 5);
+        save("B", 9);
+        save("C", 5);
+
+        List<Product> first = productRepository.findBy(ProductSpecifications.inStore(null),
+                q -> q.sortBy(SortKey.POPULARITY.sort()).limit(2).all());
+        assertThat(first).extracting(Product::getName).containsExactly("B", "A");
+
+        List<Product> second = productRepository.findBy(
+                ProductSpecifications.after(SortKey.POPULARITY, a.getSalesCount(), a.getId()),
+                q -> q.sortBy(SortKey.POPULARITY.sort()).limit(2).all());
+        assertThat(second).extracting(Product::getName).containsExactly("C");
+    }
+
+    @Test
+    void shouldProjectSummariesWithForeignKeyIds() {
+        Category rice = categoryRepository.save(new Category("Rice"));
+        Product basmati = save("Basmati", 1850, rice);
+        basmati.setDescription("Long grain");
+        basmati.setWeightKg(5.0);
+        productRepository.save(basmati);
+        save("Loose item", 10, null);
+
+        List<ProductSummary> summaries = productRepository.findAllSummaries();
+
+        assertThat(summaries).hasSize(2);
+        assertThat(summaries.get(0)).isEqualTo(new ProductSummary(
+                basmati.getId(), "Basmati", 1850, 0, 5.0, null, null, null, rice.getId(), null));
+        assertThat(summaries.get(1).categoryId()).isNull();
+    }
+
+    @Test
+    void saveShouldNotWriteBackAStaleSalesCount() {
+        Product p = save("Ghee", 3);
+        jdbcTemplate.update("UPDATE products SET sales_count = sales_count + 2 WHERE id = ?", p.getId());
+
+        p.setPrice(1200);
+        productRepository.saveAndFlush(p);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT sales_count FROM products WHERE id = ?", Long.class, p.getId()))
+                .isEqualTo(5L);
+    }
+
+    private Product save(String name, long salesCount) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(10);
+        p.setSalesCount(salesCount);
+        return productRepository.save(p);
+    }
+
+    private Product save(String name, double price, Category category) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(price);
+        p.setCategory(category);
+        return productRepository.save(p);
+    }
 }
@@ -0,0 +1,156 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Counts change after commit, so the test runs outside a test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BestSellerTracker.class, OrderEventService.class})
+class BestSellerTrackerTest {
+
+    @Autowired
+    private BestSellerTracker tracker;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private User customer;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        User u = new User();
+        u.setEmail("top@test.com");
+        u.setPassword("pass");
+        u.setRole("CUSTOMER");
+        u.setName("Top");
+        u.setPhone("9800000000");
+        customer = userRepository.save(u);
+        for (String name : List.of("Tea", "Sugar", "Salt")) {
+            Product p = new Product();
+            p.setName(name);
+            products.add(productRepository.save(p));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("order_events", "sales_daily", "order_items", "orders", "products", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void seedThenPlacementsCancellationsAndRefundsShouldMoveTheRanking() {
+        Product tea = products.get(0), sugar = products.get(1), salt = products.get(2);
+        Order teaOrder = order(6, line(tea, 5));
+        order(0, line(sugar, 3), line(salt, 1));
+        tracker.load();
+
+        assertThat(tracker.top(BestSellerTracker.Window.ALL_TIME, 10))
+                .extracting(BestSellerTracker.Entry::productId, BestSellerTracker.Entry::units)
+                .containsExactly(tuple(tea.getId(), 5), tuple(sugar.getId(), 3), tuple(salt.getId(), 1));
+        assertThat(tracker.top(BestSellerTracker.Window.TODAY, 10))
+                .extracting(BestSellerTracker.Entry::productId).containsExactly(sugar.getId(), salt.getId());
+
+        // Placed after the load: salt overtakes everything
+        OrderItem saltLine = line(salt, 6);
+        Order placed = order(0, saltLine);
+        orderEventService.placed(placed);
+        assertThat(tracker.top(BestSellerTracker.Window.ALL_TIME, 1))
+                .containsExactly(new BestSellerTracker.Entry(salt.getId(), 7));
+
+        // Refunding that line, then cancelling the order with the tea
+        String before = saltLine.getReturnStatus();
+        saltLine.setReturnStatus("REFUNDED");
+        orderEventService.saveItem(saltLine, before, null);
+        // Re-read: the saved instance still has the placement time from before it was back-dated
+        teaOrder = orderRepository.findById(teaOrder.getId()).orElseThrow();
+        OrderEventService.Snapshot teaBefore = OrderEventService.Snapshot.of(teaOrder);
+        teaOrder.setStatus("CANCELLED");
+        orderEventService.save(teaOrder, teaBefore);
+
+        assertThat(tracker.top(BestSellerTracker.Window.ALL_TIME, 10))
+                .extracting(BestSellerTracker.Entry::productId, BestSellerTracker.Entry::units)
+                .containsExactly(tuple(sugar.getId(), 3), tuple(salt.getId(), 1));
+    }
+
+    @Test
+    void daysShouldLeaveTheWindowsAsTheyAge() {
+        Product tea = products.get(0);
+        order(6, line(tea, 5));
+        tracker.load();
+
+        assertThat(tracker.top(BestSellerTracker.Window.WEEK, 10, today)).hasSize(1);
+        assertThat(tracker.top(BestSellerTracker.Window.WEEK, 10, today.plusDays(1))).isEmpty();
+        assertThat(tracker.top(BestSellerTracker.Window.MONTH, 10, today.plusDays(1))).hasSize(1);
+        assertThat(tracker.top(BestSellerTracker.Window.MONTH, 10, today.plusDays(24))).isEmpty();
+        assertThat(tracker.top(BestSellerTracker.Window.ALL_TIME, 10, today.plusDays(24)))
+                .containsExactly(new BestSellerTracker.Entry(tea.getId(), 5));
+    }
+
+    // An order placed `daysAgo`
+    private Order order(int daysAgo, OrderItem... lines) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        o = orderRepository.save(o);
+        for (OrderItem line : lines) {
+            line.setOrder(o);
+            orderItemRepository.save(line);
+        }
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(today.minusDays(daysAgo).atTime(12, 0)), o.getId());
+        return o;
+    }
+
+    private static OrderItem line(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPriceAtPurchase(10);
+        return item;
+    }
+}
@@ -0,0 +1,115 @@
+package com.grocery.localgrocery.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({CatalogBulkService.class, ObjectMapper.class})
+class CatalogBulkServiceTest {
+
+    @Autowired
+    private CatalogBulkService bulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    @BeforeEach
+    void seed() {
+        categoryRepository.save(new Category("Pulses"));
+        storeRepository.save(new Store("Bhatbhateni", "Kathmandu"));
+    }
+
+    @Test
+    void csvImportShouldInsertValidRowsAndReportBadOnes() throws Exception {
+        String csv = """
+                name,price,stock,category,store,weightKg,description
+                Moong Daal 1kg,240,60,pulses,BHATBHATENI,1,"Split, husked"
+                ,100,5,Pulses,Bhatbhateni,,
+                Rajma 1kg,abc,40,Pulses,Bhatbhateni,,
+                Chana 1kg,210,55,Snacks,Bhatbhateni,,
+                "Masoor ""red"" Daal",220,70,Pulses,Bhatbhateni,,"two
+                lines"
+                Kurilo,300,5,Pulses,,,
+                Kurilo,300,5, ,Bhatbhateni,,
+                %s,10,1,Pulses,Bhatbhateni,,
+                """.formatted("x".repeat(256));
+
+        CatalogBulkService.ImportResult result = bulkService.importProducts(stream(csv), CatalogBulkService.Format.CSV);
+
+        assertThat(result.imported).isEqualTo(2);
+        assertThat(result.failed).isEqualTo(6);
+        assertThat(result.errors).extracting(e -> e.line).containsExactly(3L, 4L, 5L, 8L, 9L, 10L);
+        assertThat(result.errors).extracting(e -> e.message).endsWith(
+                "Unknown category: Snacks", "store is required", "category is required",
+                "name must be at most 255 characters");
+        verify(catalogService).refresh();
+
+        List<Product> products = productRepository.findAll();
+        products.sort(Comparator.comparing(Product::getName));
+        assertThat(products).extracting(Product::getName).containsExactly("Masoor \"red\" Daal", "Moong Daal 1kg");
+        assertThat(products.get(0).getDescription()).isEqualTo("two\nlines");
+        assertThat(products.get(0).getStore().getName()).isEqualTo("Bhatbhateni");
+        assertThat(products.get(1).getCategory().getName()).isEqualTo("Pulses");
+        assertThat(products.get(1).getDescription()).isEqualTo("Split, husked");
+    }
+
+    @Test
+    void jsonlImportShouldRoundTripThroughExport() throws Exception {
+        String jsonl = """
+                {"name":"Jimbu 25g","price":120,"stock":40,"category":"Pulses","store":"Bhatbhateni","weightKg":0.025}
+                not json
+                {"name":"Timur 50g","price":160,"stock":45,"category":"Pulses","store":"Bhatbhateni"}
+                {"name":"Jhol momo masala","price":90,"stock":10}
+                {"name":"Ghee","price":1200,"stock":4,"category":"Pulses","store":"Bhatbhateni","imageUrl":"/uploads/%s.jpg"}
+                """.formatted("g".repeat(250));
+
+        CatalogBulkService.ImportResult result = bulkService.importProducts(stream(jsonl), CatalogBulkService.Format.JSONL);
+        assertThat(result.imported).isEqualTo(2);
+        assertThat(result.errors).extracting(e -> e.line).containsExactly(2L, 4L, 5L);
+        assertThat(result.errors.get(2).message).isEqualTo("imageUrl must be at most 255 characters");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkService.exportProducts(out, CatalogBulkService.Format.CSV);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertThat(lines[0]).isEqualTo("id,name,price,stock,category,store,weightKg,description,imageUrl");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).endsWith(",Jimbu 25g,120.0,40,Pulses,Bhatbhateni,0.025,,");
+        assertThat(lines[2]).endsWith(",Timur 50g,160.0,45,Pulses,Bhatbhateni,0.0,,");
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
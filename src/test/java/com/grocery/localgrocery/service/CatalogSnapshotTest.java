@@ -0,0 +1,120 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+
+    private final Category rice = category(1L, "Rice");
+    private final Category spices = category(2L, "Spices");
+    private final Store bb = store(10L, "Bhatbhateni");
+    private final Store bigmart = store(11L, "Big Mart");
+
+    @Test
+    void shouldFilterByCategoryStoreAndBoth() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product(3L, "Jeera", spices, bb),
+                product(1L, "Basmati", rice, bb),
+                product(2L, "Atta", rice, bigmart)));
+
+        assertThat(snapshot.list(null, null)).extracting(Product::getName)
+                .containsExactly("Basmati", "Atta", "Jeera");
+        assertThat(snapshot.list(1L, null)).extracting(Product::getName)
+                .containsExactly("Basmati", "Atta");
+        assertThat(snapshot.list(null, 10L)).extracting(Product::getName)
+                .containsExactly("Basmati", "Jeera");
+        assertThat(snapshot.list(1L, 10L)).extracting(Product::getName)
+                .containsExactly("Basmati");
+        assertThat(snapshot.list(99L, null)).isEmpty();
+    }
+
+    @Test
+    void withProductShouldReplaceOrInsertWithoutTouchingOriginal() {
+        CatalogSnapshot original = CatalogSnapshot.of(List.of(product(1L, "Basmati", rice, bb)));
+
+        CatalogSnapshot moved = original.withProduct(product(1L, "Basmati", rice, bigmart));
+        CatalogSnapshot added = moved.withProduct(product(2L, "Jeera", spices, bigmart));
+
+        assertThat(original.list(null, 10L)).hasSize(1);
+        assertThat(moved.list(null, 10L)).isEmpty();
+        assertThat(moved.list(null, 11L)).hasSize(1);
+        assertThat(added.size()).isEqualTo(2);
+        assertThat(added.get(2L).getName()).isEqualTo("Jeera");
+        assertThat(added.list(null, 11L)).extracting(Product::getName).containsExactly("Basmati", "Jeera");
+    }
+
+    @Test
+    void withoutProductShouldDropItFromEveryIndex() {
+        CatalogSnapshot original = CatalogSnapshot.of(List.of(
+                product(1L, "Basmati", rice, bb),
+                product(2L, "Atta", rice, bigmart),
+                product(3L, "Jeera", spices, bb)));
+
+        CatalogSnapshot removed = original.withoutProduct(2L);
+
+        assertThat(removed.get(2L)).isNull();
+        assertThat(removed.get(3L).getName()).isEqualTo("Jeera");
+        assertThat(removed.list(1L, null)).extracting(Product::getName).containsExactly("Basmati");
+        assertThat(removed.list(null, 11L)).isEmpty();
+        assertThat(original.size()).isEqualTo(3);
+        assertThat(removed.withoutProduct(99L)).isSameAs(removed);
+    }
+
+    @Test
+    void withProductsShouldReplaceAndInsertInOneStep() {
+        CatalogSnapshot original = CatalogSnapshot.of(List.of(
+                product(1L, "Basmati", rice, bb),
+                product(3L, "Jeera", spices, bb)));
+
+        CatalogSnapshot updated = original.withProducts(List.of(
+                product(3L, "Jeera 100g", spices, bigmart),
+                product(2L, "Atta", rice, bigmart)));
+
+        assertThat(updated.all()).extracting(Product::getName).containsExactly("Basmati", "Atta", "Jeera 100g");
+        assertThat(updated.list(null, 11L)).extracting(Product::getName).containsExactly("Atta", "Jeera 100g");
+        assertThat(original.get(3L).getName()).isEqualTo("Jeera");
+    }
+
+    @Test
+    void withProductsShouldServeReplacedProductsThroughTheExistingIndexes() {
+        CatalogSnapshot original = CatalogSnapshot.of(List.of(
+                product(1L, "Basmati", rice, bb),
+                product(2L, "Atta", rice, bigmart)));
+        Product sold = product(2L, "Atta", rice, bigmart);
+        sold.setStock(4);
+
+        CatalogSnapshot updated = original.withProducts(List.of(sold));
+
+        assertThat(updated.list(1L, 11L)).containsExactly(sold);
+        assertThat(updated.get(2L).getStock()).isEqualTo(4);
+        assertThat(original.list(1L, 11L)).doesNotContain(sold);
+    }
+
+    private static Product product(Long id, String name, Category category, Store store) {
+        Product p = new Product();
+        ReflectionTestUtils.setField(p, "id", id);
+        p.setName(name);
+        p.setCategory(category);
+        p.setStore(store);
+        return p;
+    }
+
+    private static Category category(Long id, String name) {
+        Category c = new Category(name);
+        ReflectionTestUtils.setField(c, "id", id);
+        return c;
+    }
+
+    private static Store store(Long id, String name) {
+        Store s = new Store(name, "Kathmandu");
+        ReflectionTestUtils.setField(s, "id", id);
+        return s;
+    }
+}
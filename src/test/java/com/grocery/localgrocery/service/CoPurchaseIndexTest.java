@@ -0,0 +1,38 @@
+package com.grocery.localgrocery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoPurchaseIndexTest {
+
+    @Test
+    void shouldCountPairsSymmetricallyOncePerOrder() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.addBasket(List.of(1L, 2L, 2L, 3L));
+        index.addBasket(List.of(1L, 2L));
+
+        assertThat(index.count(1, 2)).isEqualTo(2);
+        assertThat(index.count(2, 1)).isEqualTo(2);
+        assertThat(index.count(2, 3)).isEqualTo(1);
+        assertThat(index.count(2, 2)).isZero();
+    }
+
+    @Test
+    void shouldRankByCombinedCountsAndSkipCartAndIneligible() {
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        index.addBasket(List.of(1L, 10L));
+        index.addBasket(List.of(1L, 10L));
+        index.addBasket(List.of(1L, 11L));
+        index.addBasket(List.of(2L, 11L));
+        index.addBasket(List.of(2L, 11L));
+        index.addBasket(List.of(1L, 2L, 12L));
+
+        // 11: 1 + 2 = 3, 10: 2, 12: 1 + 1 = 2 (tie broken by id)
+        assertThat(index.recommend(List.of(1L, 2L), 5, id -> true)).containsExactly(11L, 10L, 12L);
+        assertThat(index.recommend(List.of(1L, 2L), 2, id -> id != 11L)).containsExactly(10L, 12L);
+        assertThat(index.recommend(List.of(99L), 5, id -> true)).isEmpty();
+    }
+}
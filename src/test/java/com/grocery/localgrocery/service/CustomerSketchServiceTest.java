@@ -0,0 +1,169 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Sketches are updated after commit, so the test runs outside a test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CustomerSketchService.class, OrderEventService.class})
+class CustomerSketchServiceTest {
+
+    @Autowired
+    private CustomerSketchService customerSketchService;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private final List<User> customers = new ArrayList<>();
+    private Product milk;
+    private Product bread;
+
+    @BeforeEach
+    void seed() {
+        // The service outlives each test; drop the sketches earlier tests left in memory
+        customerSketchService.flush();
+        customerSketchService.rebuild(today.minusDays(1), today);
+        jdbcTemplate.update("DELETE FROM customer_sketches");
+        for (int i = 0; i < 3; i++) {
+            User u = new User();
+            u.setEmail("buyer" + i + "@test.com");
+            u.setPassword("pass");
+            u.setRole("CUSTOMER");
+            u.setName("Buyer " + i);
+            u.setPhone("9800000000");
+            customers.add(userRepository.save(u));
+        }
+        Category staples = new Category();
+        staples.setName("Staples");
+        staples = categoryRepository.save(staples);
+        milk = product("Milk 1L", store("Dairy Depot"), staples);
+        bread = product("Bread", store("Corner Bakery"), staples);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("customer_sketches", "order_events", "sales_daily", "order_items", "orders",
+                "products", "stores", "categories", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void placementsShouldCountEachCustomerOncePerStoreAndCategory() {
+        place(customers.get(0), milk, bread);
+        place(customers.get(0), milk);
+        place(customers.get(1), milk);
+        place(customers.get(2), bread);
+
+        // Counted before the flush from the live sketches, and the same after it
+        assertThat(customerSketchService.uniqueCustomers(today, today)).isEqualTo(3);
+        assertThat(customerSketchService.flush()).isEqualTo(4);
+        assertThat(customerSketchService.flush()).isZero();
+        assertThat(customerSketchService.active()).isEqualTo(new CustomerSketchService.Active(3, 3, 3));
+        assertThat(customerSketchService.byStore(today, today))
+                .extracting(CustomerSketchService.Share::name, CustomerSketchService.Share::customers)
+                .containsExactly(tuple("Dairy Depot", 2L), tuple("Corner Bakery", 2L));
+        assertThat(customerSketchService.byCategory(today, today))
+                .extracting(CustomerSketchService.Share::name, CustomerSketchService.Share::customers)
+                .containsExactly(tuple("Staples", 3L));
+        assertThat(customerSketchService.uniqueCustomers(today.minusDays(10), today.minusDays(1))).isZero();
+    }
+
+    @Test
+    void rebuildShouldMatchTheFlushedSketches() {
+        place(customers.get(0), milk, bread);
+        place(customers.get(1), bread);
+        customerSketchService.flush();
+        List<byte[]> flushed = sketches();
+
+        assertThat(customerSketchService.rebuild(today.minusDays(3), today)).isEqualTo(4);
+        assertThat(sketches()).containsExactlyElementsOf(flushed);
+        assertThat(customerSketchService.uniqueCustomers(today, today)).isEqualTo(2);
+    }
+
+    private List<byte[]> sketches() {
+        return jdbcTemplate.query("SELECT registers FROM customer_sketches ORDER BY store_id, category_id",
+                (rs, i) -> rs.getBytes(1));
+    }
+
+    private void place(User customer, Product... products) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        o = orderRepository.save(o);
+        for (Product p : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(o);
+            item.setProduct(p);
+            item.setQuantity(1);
+            item.setPriceAtPurchase(100);
+            orderItemRepository.save(item);
+        }
+        orderEventService.placed(o);
+    }
+
+    private Store store(String name) {
+        Store s = new Store();
+        s.setName(name);
+        return storeRepository.save(s);
+    }
+
+    private Product product(String name, Store store, Category category) {
+        Product p = new Product();
+        p.setName(name);
+        p.setStore(store);
+        p.setCategory(category);
+        return productRepository.save(p);
+    }
+}
@@ -0,0 +1,135 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({DashboardService.class, SalesRollupService.class})
+class DashboardServiceTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private Product rice;
+
+    @BeforeEach
+    void seed() {
+        rice = new Product();
+        rice.setName("Rice 5kg");
+        rice = productRepository.save(rice);
+    }
+
+    @Test
+    void growthAndReturnRateShouldComeFromThePeriods() {
+        User sita = customer("sita@test.com", now.minusDays(40));
+        User ram = customer("ram@test.com", now.minusDays(5));
+        User hari = customer("hari@test.com", now.minusDays(2));
+
+        // Previous period: one order of 200; this period: 300 today from two customers, and 100 earlier
+        order(sita, "200.00", now.minusDays(45), "NONE");
+        order(ram, "100.00", now.toLocalDate().atStartOfDay().minusDays(3), "NONE");
+        order(ram, "120.00", now.toLocalDate().atStartOfDay().plusMinutes(1), "REQUESTED");
+        order(hari, "180.00", now.toLocalDate().atStartOfDay().plusMinutes(2), "NONE");
+        // Before both periods, and cancelled: left out of the all-time net totals
+        order(sita, "70.00", now.minusDays(70), "NONE");
+        jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE total = 70.00");
+        salesRollupService.rebuild();
+        entityManager.clear();
+
+        DashboardService.Stats stats = dashboardService.compute(now);
+        assertThat(stats.totalRevenue).isEqualByComparingTo("600.00");
+        assertThat(stats.totalOrders).isEqualTo(5); // every order placed, the cancelled one too
+        assertThat(stats.totalCustomers).isEqualTo(3);
+        assertThat(stats.pendingReturns).isEqualTo(1);
+        assertThat(stats.todayStats.sales).isEqualByComparingTo("300.00");
+        assertThat(stats.todayStats.orders).isEqualTo(2);
+        assertThat(stats.todayStats.customers).isEqualTo(2);
+        assertThat(stats.revenueGrowth).isEqualTo(100.0);
+        assertThat(stats.orderGrowth).isEqualTo(200.0);
+        assertThat(stats.customerGrowth).isEqualTo(100.0);
+        assertThat(stats.returnRate).isEqualTo(33.3);
+    }
+
+    @Test
+    void emptyHistoryShouldHaveNoGrowthAndBeSharedUntilItExpires() {
+        DashboardService.Stats first = dashboardService.stats();
+        assertThat(first.totalRevenue).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(first.revenueGrowth).isNull();
+        assertThat(first.returnRate).isZero();
+
+        order(customer("late@test.com", now), "50.00", now, "NONE");
+        assertThat(dashboardService.stats()).isSameAs(first);
+    }
+
+    private User customer(String email, LocalDateTime createdAt) {
+        User u = new User();
+        u.setEmail(email);
+        u.setPassword("pass");
+        u.setRole("CUSTOMER");
+        u.setName(email);
+        u.setPhone("9800000000");
+        u.setCreatedAt(createdAt);
+        return userRepository.save(u);
+    }
+
+    private void order(User customer, String total, LocalDateTime createdAt, String returnStatus) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        o.setTotal(new BigDecimal(total));
+        o = orderRepository.save(o);
+        OrderItem item = new OrderItem();
+        item.setOrder(o);
+        item.setProduct(rice);
+        item.setQuantity(1);
+        item.setPriceAtPurchase(o.getTotal().doubleValue());
+        item.setReturnStatus(returnStatus);
+        orderItemRepository.save(item);
+        entityManager.flush();
+        // createdAt has no setter; orders are always stamped at construction
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), o.getId());
+    }
+}
@@ -0,0 +1,189 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.controller.OrderController.PlaceOrderRequest;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "app.flash-sale.flush-ms=3600000")
+@ActiveProfiles("test")
+@Import({OrderService.class, FlashSaleService.class, IdempotencyService.class, QuoteService.class, CatalogVersion.class,
+        OrderEventService.class})
+class FlashSaleServiceTest {
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    @MockBean
+    private PostCheckoutPipeline postCheckoutPipeline;
+
+    private User user;
+    private Product water;
+
+    @BeforeEach
+    void seed() {
+        user = new User();
+        user.setEmail("flash@test.com");
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName("Flash Buyer");
+        user.setPhone("9800000001");
+        user = userRepository.save(user);
+
+        water = new Product();
+        water.setName("Mineral Water 1L");
+        water.setPrice(25);
+        water.setStock(5);
+        water = productRepository.save(water);
+        when(catalogService.snapshot()).thenAnswer(i -> CatalogSnapshot.of(productRepository.findAll()));
+    }
+
+    @Test
+    void reservationsComeFromTheCounterAndAreWrittenBackOnFlush() {
+        assertThat(flashSaleService.enable(water.getId())).isEqualTo(5);
+
+        orderService.placeOrder(order(3));
+        assertThat(stockColumn()).isEqualTo(5); // not written through
+        assertThat(flashSaleService.active()).containsEntry(water.getId(), 2);
+
+        assertThatThrownBy(() -> orderService.placeOrder(order(3)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Not enough stock for: Mineral Water 1L");
+        assertThat(flashSaleService.counter(water.getId()).available()).isEqualTo(2);
+
+        assertThat(flashSaleService.flush()).isEqualTo(1);
+        assertThat(stockColumn()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT sales_count FROM products WHERE id = ?", Long.class, water.getId()))
+                .isEqualTo(3);
+        assertThat(flashSaleService.flush()).isZero();
+    }
+
+    @Test
+    void counterIsRebuiltFromStockMinusUnflushedItems() {
+        flashSaleService.enable(water.getId());
+        orderService.placeOrder(order(2));
+        orderService.placeOrder(order(1));
+
+        // A fresh instance stands in for a restart before the flusher ran
+        FlashSaleService restarted = new FlashSaleService(jdbcTemplate, transactionManager,
+                productRepository, catalogService, List.of(), 3_600_000);
+        assertThat(restarted.enable(water.getId())).isEqualTo(2);
+
+        restarted.disable(water.getId());
+        assertThat(stockColumn()).isEqualTo(2);
+        assertThat(restarted.active()).isEmpty();
+    }
+
+    @Test
+    void restartShouldApplyPendingItemsBeforeServing() {
+        flashSaleService.enable(water.getId());
+        orderService.placeOrder(order(2));
+        assertThat(stockColumn()).isEqualTo(5);
+
+        FlashSaleService restarted = new FlashSaleService(jdbcTemplate, transactionManager,
+                productRepository, catalogService, List.of(), 3_600_000);
+        restarted.restore();
+
+        // Ordinary checkouts read the column, so it must not still count the sold units
+        assertThat(stockColumn()).isEqualTo(3);
+        assertThat(restarted.flush()).isZero();
+    }
+
+    @Test
+    void failedOrderGivesItsReservationBack() {
+        flashSaleService.enable(water.getId());
+        Product chips = new Product();
+        chips.setName("Potato Chips");
+        chips.setPrice(60);
+        chips.setStock(3);
+        chips = productRepository.save(chips);
+        // Sold out in the database after this persistence context read it, so the conditional
+        // update for chips fails after water (lower id) was already reserved
+        jdbcTemplate.update("UPDATE products SET stock = 0 WHERE id = ?", chips.getId());
+
+        PlaceOrderRequest.Item chipsLine = new PlaceOrderRequest.Item();
+        chipsLine.productId = chips.getId();
+        chipsLine.quantity = 1;
+        PlaceOrderRequest req = order(2);
+        req.items = List.of(req.items.get(0), chipsLine);
+
+        assertThatThrownBy(() -> orderService.placeOrder(req))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Not enough stock for: Potato Chips");
+        assertThat(flashSaleService.counter(water.getId()).available()).isEqualTo(5);
+    }
+
+    @Test
+    void disablingWaitsForReservationsStillInFlight() {
+        flashSaleService.enable(water.getId());
+        orderService.placeOrder(order(1));
+        // A checkout that has reserved but not yet committed
+        FlashSaleService.Counter counter = flashSaleService.counter(water.getId());
+        assertThat(counter.tryReserve(2)).isTrue();
+
+        flashSaleService.disable(water.getId());
+        assertThat(flashSaleService.counter(water.getId())).isSameAs(counter);
+        assertThatThrownBy(() -> orderService.placeOrder(order(1)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("is being updated");
+
+        // It commits its line, then settles; only now does the database take over again
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, quantity, price_at_purchase, "
+                + "return_status, stock_applied) SELECT order_id, product_id, 2, price_at_purchase, 'NONE', FALSE "
+                + "FROM order_items WHERE product_id = ?", water.getId());
+        counter.settle();
+        flashSaleService.disable(water.getId());
+        assertThat(flashSaleService.counter(water.getId())).isNull();
+        assertThat(stockColumn()).isEqualTo(2);
+    }
+
+    private PlaceOrderRequest order(int quantity) {
+        PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+        item.productId = water.getId();
+        item.quantity = quantity;
+        PlaceOrderRequest req = new PlaceOrderRequest();
+        req.userId = user.getId();
+        req.deliveryAddress = "Kathmandu";
+        req.items = List.of(item);
+        return req;
+    }
+
+    private int stockColumn() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, water.getId());
+    }
+}
@@ -0,0 +1,58 @@
+package com.grocery.localgrocery.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesShouldStayWithinTheErrorBound() {
+        for (int n : new int[]{10, 1_000, 200_000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (long id = 1; id <= n; id++) {
+                hll.add(id);
+                hll.add(id); // repeats don't count
+            }
+            // Three standard errors
+            assertThat((double) hll.estimate()).as("n = %d", n).isCloseTo(n, within(n * 0.05 + 1));
+        }
+        assertThat(new HyperLogLog().estimate()).isZero();
+    }
+
+    @Test
+    void mergeShouldGiveTheSketchOfTheUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        HyperLogLog both = new HyperLogLog();
+        for (long id = 1; id <= 3_000; id++) {
+            (id % 2 == 0 ? monday : tuesday).add(id);
+            if (id <= 1_500) monday.add(id); // overlap
+            both.add(id);
+        }
+
+        HyperLogLog union = monday.copy();
+        union.merge(tuesday);
+        assertThat(union).isEqualTo(both);
+        assertThat(monday).isNotEqualTo(both);
+    }
+
+    @Test
+    void bytesShouldRoundTripSparseAndDense() {
+        HyperLogLog few = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) few.add(id);
+        byte[] sparse = few.toBytes();
+        assertThat(sparse.length).isLessThan(200);
+        assertThat(HyperLogLog.fromBytes(sparse)).isEqualTo(few);
+
+        HyperLogLog many = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) many.add(id * 31);
+        byte[] dense = many.toBytes();
+        assertThat(dense).hasSize(1 + HyperLogLog.REGISTERS * 6 / 8);
+        assertThat(HyperLogLog.fromBytes(dense)).isEqualTo(many);
+
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{9})).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,92 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CatalogService catalogService = mock(CatalogService.class);
+    private final ImageVariantService service =
+            new ImageVariantService(productRepository, jdbcTemplate, catalogService);
+
+    @Test
+    void writesDownscaledJpegVariantsBesideTheOriginal() throws Exception {
+        Path original = dir.resolve("abc.png");
+        ImageIO.write(new BufferedImage(1600, 800, BufferedImage.TYPE_INT_ARGB), "png", original.toFile());
+
+        Map<ImageVariantService.Variant, Path> files = service.writeVariants(original);
+
+        assertEquals(dir.resolve("abc_thumb.jpg"), files.get(ImageVariantService.Variant.THUMB));
+        BufferedImage thumb = ImageIO.read(files.get(ImageVariantService.Variant.THUMB).toFile());
+        assertEquals(120, thumb.getWidth());
+        assertEquals(60, thumb.getHeight());
+        BufferedImage card = ImageIO.read(files.get(ImageVariantService.Variant.CARD).toFile());
+        assertEquals(320, card.getWidth());
+        BufferedImage detail = ImageIO.read(files.get(ImageVariantService.Variant.DETAIL).toFile());
+        assertEquals(800, detail.getWidth());
+        assertTrue(Files.size(files.get(ImageVariantService.Variant.THUMB)) < Files.size(files.get(ImageVariantService.Variant.DETAIL)));
+    }
+
+    @Test
+    void neverUpscalesSmallImages() throws Exception {
+        Path original = dir.resolve("small.png");
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        BufferedImage detail = ImageIO.read(service.writeVariants(original).get(ImageVariantService.Variant.DETAIL).toFile());
+
+        assertEquals(200, detail.getWidth());
+        assertEquals(100, detail.getHeight());
+    }
+
+    @Test
+    void undecodableFilesProduceNoVariants() throws Exception {
+        Path original = dir.resolve("photo.webp");
+        Files.write(original, new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'});
+
+        assertTrue(service.writeVariants(original).isEmpty());
+    }
+
+    @Test
+    void recordingVariantsShouldWriteOnlyTheUrlColumns() {
+        Map<ImageVariantService.Variant, Path> files = Map.of(
+                ImageVariantService.Variant.THUMB, dir.resolve("abc_thumb.jpg"),
+                ImageVariantService.Variant.CARD, dir.resolve("abc_card.jpg"),
+                ImageVariantService.Variant.DETAIL, dir.resolve("abc_detail.jpg"));
+        Product product = new Product();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+
+        service.recordVariants(7L, "/uploads/products/abc.png", files);
+
+        verify(jdbcTemplate).update("UPDATE products SET thumbnail_url = ?, card_image_url = ?, "
+                        + "detail_image_url = ? WHERE id = ? AND image_url = ?",
+                "/uploads/products/abc_thumb.jpg", "/uploads/products/abc_card.jpg",
+                "/uploads/products/abc_detail.jpg", 7L, "/uploads/products/abc.png");
+        verify(productRepository, never()).save(any());
+        verify(catalogService).productSaved(product);
+    }
+}
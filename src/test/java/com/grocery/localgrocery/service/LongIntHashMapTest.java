@@ -0,0 +1,49 @@
+package com.grocery.localgrocery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntHashMapTest {
+
+    @Test
+    void shouldMatchHashMapThroughResizes() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000) - 100; // includes 0 and negatives
+            int delta = random.nextInt(10);
+            assertThat(map.addTo(key, delta)).isEqualTo(expected.merge(key, delta, Integer::sum));
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((k, v) -> assertThat(map.get(k)).isEqualTo(v));
+        assertThat(map.get(123_456L)).isZero();
+        assertThat(map.containsKey(123_456L)).isFalse();
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void putShouldOverwriteAndClearShouldEmpty() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(0L, 3);
+        map.put(42L, 1);
+        map.put(42L, 5);
+
+        assertThat(map.get(0L)).isEqualTo(3);
+        assertThat(map.get(42L)).isEqualTo(5);
+        assertThat(map.size()).isEqualTo(2);
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.containsKey(0L)).isFalse();
+    }
+}
@@ -0,0 +1,176 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderEventRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderEventService.class)
+class OrderEventServiceTest {
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Order order;
+
+    @BeforeEach
+    void seed() {
+        User user = new User();
+        user.setEmail("events@test.com");
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName("Events");
+        user.setPhone("9800000000");
+        user = userRepository.save(user);
+
+        order = new Order();
+        order.setUser(user);
+        order.setDeliveryAddress("Kathmandu");
+        order = orderRepository.save(order);
+        orderEventService.placed(order);
+    }
+
+    @Test
+    void saveShouldAppendOneEventPerChangedField() {
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
+        order.setStatus("CANCELLED");
+        order.setPaymentStatus("CANCELLED");
+        orderEventService.save(order, before);
+
+        // Saving without a status change adds nothing
+        order.setDeliveryNotes("Ring twice");
+        orderEventService.save(order, OrderEventService.Snapshot.of(order));
+
+        assertThat(orderEventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderEvent::getType, OrderEvent::getFromValue, OrderEvent::getToValue)
+                .containsExactly(
+                        tuple(OrderEvent.ORDER_STATUS, null, "PLACED"),
+                        tuple(OrderEvent.ORDER_STATUS, "PLACED", "CANCELLED"),
+                        tuple(OrderEvent.PAYMENT_STATUS, "PENDING", "CANCELLED"));
+    }
+
+    @Test
+    void refundShouldRecordReturnAndPaymentTogether() {
+        Product product = new Product();
+        product.setName("Ghee 1L");
+        product = productRepository.save(product);
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setPriceAtPurchase(1200);
+        item = orderItemRepository.save(item);
+
+        item.setReturnStatus("REFUNDED");
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
+        order.setPaymentStatus("REFUNDED");
+        orderEventService.saveItem(item, "NONE", before);
+
+        assertThat(orderEventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderEvent::getType, OrderEvent::getOrderItemId, OrderEvent::getToValue)
+                .containsExactly(
+                        tuple(OrderEvent.ORDER_STATUS, null, "PLACED"),
+                        tuple(OrderEvent.PAYMENT_STATUS, null, "REFUNDED"),
+                        tuple(OrderEvent.RETURN_STATUS, item.getId(), "REFUNDED"));
+    }
+
+    @Test
+    void readShouldWaitAtAGapUntilItHasBeenSeenForTheSettleTime() {
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(order);
+        order.setStatus("ASSIGNED");
+        orderEventService.save(order, before);
+        List<OrderEvent> committed = orderEventService.read(0, 10);
+        long last = committed.get(1).getId();
+
+        // last + 1 is still in flight in another transaction; last + 2 has committed. Its
+        // created_at is long past, as for a transaction that took a while to commit.
+        jdbcTemplate.update("INSERT INTO order_events (id, order_id, event_type, from_value, to_value, created_at) "
+                + "VALUES (?, ?, 'ORDER_STATUS', 'ASSIGNED', 'PICKED_UP', ?)",
+                last + 2, order.getId(), Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+
+        LocalDateTime seen = LocalDateTime.now();
+        assertThat(orderEventService.read(0, 10, seen)).hasSize(2);
+        assertThat(orderEventService.read(last, 10, seen.plusSeconds(30))).isEmpty();
+
+        // Once the gap has been waited on for the settle window it is a rolled-back id and is skipped
+        assertThat(orderEventService.read(last, 10, seen.plus(OrderEventService.SETTLE).plusSeconds(1)))
+                .extracting(OrderEvent::getId).containsExactly(last + 2);
+    }
+
+    @Test
+    void transitionFromAStaleStateShouldBeRejected() {
+        // Two requests loaded the order while it was PLACED; the customer's cancel commits first
+        OrderEventService.Snapshot placed = OrderEventService.Snapshot.of(order);
+        order.setStatus("CANCELLED");
+        orderEventService.save(order, placed);
+
+        entityManager.clear();
+        Order loadedEarlier = orderRepository.findById(order.getId()).orElseThrow();
+        loadedEarlier.setStatus("ASSIGNED");
+        assertThatThrownBy(() -> orderEventService.save(loadedEarlier, placed))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        entityManager.clear();
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo("CANCELLED");
+        assertThat(orderEventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderEvent::getFromValue, OrderEvent::getToValue)
+                .containsExactly(tuple(null, "PLACED"), tuple("PLACED", "CANCELLED"));
+    }
+
+    @Test
+    void consumerOffsetShouldOnlyMoveForward() {
+        assertThat(orderEventService.offset("reports")).isZero();
+        assertThat(orderEventService.commit("reports", 40)).isEqualTo(40);
+        assertThat(orderEventService.commit("reports", 25)).isEqualTo(40);
+        assertThat(orderEventService.commit("reports", 41)).isEqualTo(41);
+        assertThat(orderEventService.offset("notifications")).isZero();
+    }
+}
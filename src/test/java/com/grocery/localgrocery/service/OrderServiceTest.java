@@ -0,0 +1,262 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.controller.OrderController.PlaceOrderRequest;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.IdempotencyKeyRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderService.class, FlashSaleService.class, IdempotencyService.class, QuoteService.class, CatalogVersion.class,
+        OrderEventService.class})
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @MockBean
+    private CatalogService catalogService;
+
+    @MockBean
+    private PostCheckoutPipeline postCheckoutPipeline;
+
+    private User user;
+    private Product rice;
+    private Product daal;
+
+    @BeforeEach
+    void seed() {
+        user = new User();
+        user.setEmail("buyer@test.com");
+        user.setPassword("pass");
+        user.setRole("CUSTOMER");
+        user.setName("Buyer");
+        user.setPhone("9800000000");
+        user = userRepository.save(user);
+
+        rice = productRepository.save(product("Basmati Rice 5kg", 900, 10, 5));
+        daal = productRepository.save(product("Moong Daal 1kg", 240, 3, 1));
+        when(catalogService.snapshot()).thenAnswer(i -> CatalogSnapshot.of(productRepository.findAll()));
+    }
+
+    @Test
+    void placeOrderShouldWriteItemsAndDecrementStock() {
+        Order order = orderService.placeOrder(request(line(rice, 2), line(daal, 1), line(rice, 1)));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(order.getId()).isNotNull();
+        // 3 x 900 + 240 = 2940; 16kg -> 100 + 15 * 50
+        assertThat(order.getSubtotal()).isEqualByComparingTo(BigDecimal.valueOf(2940));
+        assertThat(order.getShippingFee()).isEqualByComparingTo(BigDecimal.valueOf(850));
+
+        assertThat(orderItemRepository.findAll())
+                .extracting(i -> i.getProduct().getName(), i -> i.getQuantity(), i -> i.getPriceAtPurchase())
+                .containsExactlyInAnyOrder(
+                        tuple("Basmati Rice 5kg", 3, 900.0),
+                        tuple("Moong Daal 1kg", 1, 240.0));
+        assertThat(productRepository.findById(rice.getId()).orElseThrow().getStock()).isEqualTo(7);
+        assertThat(productRepository.findById(daal.getId()).orElseThrow().getSalesCount()).isEqualTo(1);
+
+        verify(catalogService).stockChanged(argThat((Collection<Product> saved) -> saved.size() == 2));
+        verify(postCheckoutPipeline).orderPlaced(eq(order.getId()), argThat((Collection<Long> ids) ->
+                List.copyOf(ids).equals(List.of(rice.getId(), daal.getId()))));
+    }
+
+    @Test
+    void placedOrderShouldSurviveAFailingFollowUp() {
+        doThrow(new IllegalStateException("queue gone")).when(postCheckoutPipeline).orderPlaced(any(), any());
+
+        Order order = orderService.placeOrder(request(line(rice, 1)));
+
+        assertThat(order.getId()).isNotNull();
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void placeOrderShouldRejectWholeCartWhenOneLineIsShort() {
+        assertThatThrownBy(() -> orderService.placeOrder(request(line(rice, 1), line(daal, 4))))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                    assertThat(e.getReason()).isEqualTo("Not enough stock for: Moong Daal 1kg");
+                });
+        entityManager.clear();
+
+        assertThat(orderRepository.count()).isZero();
+        assertThat(orderItemRepository.count()).isZero();
+        assertThat(productRepository.findById(rice.getId()).orElseThrow().getStock()).isEqualTo(10);
+        verify(catalogService, never()).stockChanged(any());
+        verifyNoInteractions(postCheckoutPipeline);
+    }
+
+    @Test
+    void placeOrderShouldNotOversellWhenStockChangedAfterItWasRead() {
+        // Another checkout takes the last units behind this persistence context's back
+        jdbcTemplate.update("UPDATE products SET stock = 0 WHERE id = ?", daal.getId());
+        assertThat(productRepository.findById(daal.getId()).orElseThrow().getStock()).isEqualTo(3);
+
+        assertThatThrownBy(() -> orderService.placeOrder(request(line(rice, 1), line(daal, 1))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getReason()).isEqualTo("Not enough stock for: Moong Daal 1kg"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, daal.getId()))
+                .isZero();
+        verify(catalogService, never()).stockChanged(any());
+        verifyNoInteractions(postCheckoutPipeline);
+    }
+
+    @Test
+    void placeOrderShouldChargeTheServerQuoteAndApplyPromo() {
+        QuoteService.Quote quote = orderService.quote(List.of(line(rice, 1)), "family40");
+        PlaceOrderRequest req = request(line(rice, 1));
+        req.promoCode = "family40";
+        Order order = orderService.placeOrder(req);
+
+        // 900 + 300 shipping (5kg) + 117 tax - 360 discount
+        assertThat(quote.total).isEqualTo(957.0);
+        assertThat(order.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(quote.total));
+        assertThat(order.getPromoCode()).isEqualTo("FAMILY40");
+    }
+
+    @Test
+    void placeOrderShouldRejectUnknownProduct() {
+        PlaceOrderRequest.Item missing = new PlaceOrderRequest.Item();
+        missing.productId = 999L;
+        missing.quantity = 1;
+
+        assertThatThrownBy(() -> orderService.placeOrder(request(line(rice, 1), missing)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThat(orderRepository.count()).isZero();
+    }
+
+    @Test
+    void repeatedIdempotencyKeyShouldReturnTheFirstOrder() {
+        Order first = orderService.placeOrder(request(line(rice, 2)), "checkout-1");
+        Order retry = orderService.placeOrder(request(line(rice, 2)), "checkout-1");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(retry).isSameAs(first);
+        assertThat(orderRepository.count()).isEqualTo(1);
+        assertThat(productRepository.findById(rice.getId()).orElseThrow().getStock()).isEqualTo(8);
+        verify(catalogService, times(1)).stockChanged(any());
+
+        // Past the in-memory cache (e.g. after a restart) the key is found in idempotency_keys
+        IdempotencyService restarted = new IdempotencyService(idempotencyKeyRepository, orderRepository, jdbcTemplate, 24);
+        String hash = IdempotencyService.fingerprint(Map.of(rice.getId(), 2), " Kathmandu", null);
+        assertThat(restarted.replay("checkout-1", user.getId(), hash).getId()).isEqualTo(first.getId());
+        assertThat(restarted.replay("checkout-2", user.getId(), hash)).isNull();
+    }
+
+    @Test
+    void idempotencyKeyShouldBelongToOneRequest() {
+        Order first = orderService.placeOrder(request(line(rice, 1), line(rice, 1)), "cart-key");
+        // The same cart written differently is the same request
+        assertThat(orderService.placeOrder(request(line(rice, 2)), "cart-key")).isSameAs(first);
+
+        PlaceOrderRequest moreRice = request(line(rice, 3));
+        PlaceOrderRequest elsewhere = request(line(rice, 2));
+        elsewhere.deliveryAddress = "Pokhara";
+        PlaceOrderRequest withPromo = request(line(rice, 2));
+        withPromo.promoCode = "SAVE10";
+        for (PlaceOrderRequest changed : List.of(moreRice, elsewhere, withPromo)) {
+            assertThatThrownBy(() -> orderService.placeOrder(changed, "cart-key"))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        }
+
+        // Also once the key is only known from idempotency_keys
+        entityManager.flush();
+        IdempotencyService restarted = new IdempotencyService(idempotencyKeyRepository, orderRepository, jdbcTemplate, 24);
+        String otherCart = IdempotencyService.fingerprint(Map.of(rice.getId(), 3), "Kathmandu", null);
+        assertThatThrownBy(() -> restarted.replay("cart-key", user.getId(), otherCart))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(orderRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void idempotencyKeyShouldBelongToOneUser() {
+        orderService.placeOrder(request(line(rice, 1)), "shared-key");
+
+        PlaceOrderRequest other = request(line(rice, 1));
+        other.userId = user.getId() + 1;
+        assertThatThrownBy(() -> orderService.placeOrder(other, "shared-key"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+
+    private PlaceOrderRequest request(PlaceOrderRequest.Item... items) {
+        PlaceOrderRequest req = new PlaceOrderRequest();
+        req.userId = user.getId();
+        req.deliveryAddress = "Kathmandu";
+        req.items = new ArrayList<>(List.of(items));
+        return req;
+    }
+
+    private static PlaceOrderRequest.Item line(Product p, int quantity) {
+        PlaceOrderRequest.Item item = new PlaceOrderRequest.Item();
+        item.productId = p.getId();
+        item.quantity = quantity;
+        return item;
+    }
+
+    private static Product product(String name, double price, int stock, double weightKg) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(price);
+        p.setStock(stock);
+        p.setWeightKg(weightKg);
+        return p;
+    }
+}
@@ -0,0 +1,111 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Counters move after commit, so the test runs outside a test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderStatusCounters.class, OrderEventService.class})
+class OrderStatusCountersTest {
+
+    @Autowired
+    private OrderStatusCounters counters;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User customer;
+
+    @BeforeEach
+    void seed() {
+        User u = new User();
+        u.setEmail("counters@test.com");
+        u.setPassword("pass");
+        u.setRole("CUSTOMER");
+        u.setName("Counters");
+        u.setPhone("9800000000");
+        customer = userRepository.save(u);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (String table : List.of("order_events", "sales_daily", "orders", "users")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void transitionsShouldMoveTheCountersAfterCommit() {
+        order("PLACED");
+        order("PAYMENT_RECEIVED");
+        order("DELIVERED");
+        counters.load();
+        assertThat(counters.counts()).containsExactly(Map.entry("PLACED", 1L), Map.entry("ASSIGNED", 0L),
+                Map.entry("PICKED_UP", 0L), Map.entry("PAYMENT_RECEIVED", 1L), Map.entry("DELIVERED", 1L),
+                Map.entry("CANCELLED", 0L));
+
+        Order placed = order(null);
+        orderEventService.placed(placed);
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(placed);
+        placed.setStatus("CANCELLED");
+        orderEventService.save(placed, before);
+
+        assertThat(counters.counts()).containsEntry("PLACED", 1L).containsEntry("CANCELLED", 1L);
+        assertThat(counters.check().drift).isEmpty();
+    }
+
+    @Test
+    void driftSeenTwiceShouldBeReportedAndCorrected() {
+        Order order = order("PLACED");
+        counters.load();
+        // A write that bypassed OrderEventService
+        jdbcTemplate.update("UPDATE orders SET status = 'DELIVERED' WHERE id = ?", order.getId());
+
+        OrderStatusCounters.Check first = counters.check();
+        assertThat(first.drift).containsExactly(Map.entry("DELIVERED", 1L), Map.entry("PLACED", -1L));
+        assertThat(first.corrected).isFalse();
+        assertThat(counters.counts()).containsEntry("PLACED", 1L);
+
+        assertThat(counters.check().corrected).isTrue();
+        assertThat(counters.counts()).containsEntry("PLACED", 0L).containsEntry("DELIVERED", 1L);
+        assertThat(counters.check().drift).isEmpty();
+        assertThat(counters.lastCheck().drift).isEmpty();
+    }
+
+    // Saved directly, without an event; null keeps the entity's default status
+    private Order order(String status) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        if (status != null) o.setStatus(status);
+        return orderRepository.save(o);
+    }
+}
@@ -0,0 +1,115 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+// The pipeline writes from its own threads, so the test runs outside a test transaction
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostCheckoutPipelineTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RecommendationService recommendationService = mock(RecommendationService.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private PostCheckoutPipeline pipeline;
+
+    @AfterEach
+    void cleanUp() {
+        if (pipeline != null) pipeline.shutdown();
+        jdbcTemplate.update("DELETE FROM post_checkout_tasks");
+    }
+
+    @Test
+    void tasksShouldRunOnWorkersAndBeCounted() {
+        pipeline = pipeline(2, 100);
+        pipeline.orderPlaced(1L, List.of(3L, 4L));
+
+        verify(recommendationService, timeout(2000)).orderPlaced(List.of(3L, 4L));
+        // The worker counts the task just after the handler returns
+        eventually(() -> pipeline.stats().get(PostCheckoutPipeline.RECOMMENDATIONS).completed == 1);
+        PostCheckoutPipeline.TaskStats stats = pipeline.stats().get(PostCheckoutPipeline.RECOMMENDATIONS);
+        assertThat(stats.submitted).isEqualTo(1);
+        assertThat(stats.failed).isZero();
+        assertThat(stats.spilled).isZero();
+        assertThat(pipeline.stats().get(PostCheckoutPipeline.CONFIRMATION_EMAIL).submitted).isZero();
+    }
+
+    @Test
+    void fullQueueAndShutdownShouldSpillToTheTableAndRunAfterRestart() {
+        // No workers: the first task fills the queue, the second overflows
+        pipeline = pipeline(0, 1);
+        pipeline.orderPlaced(1L, List.of(3L));
+        pipeline.orderPlaced(2L, List.of(4L));
+        assertThat(pipeline.queued()).isEqualTo(1);
+        assertThat(pipeline.stats().get(PostCheckoutPipeline.RECOMMENDATIONS).spilled).isEqualTo(1);
+
+        pipeline.shutdown();
+        assertThat(pipeline.stored()).isEqualTo(Map.of("pending", 2, "failed", 0));
+
+        pipeline = pipeline(1, 100);
+        assertThat(pipeline.sweep()).isEqualTo(2);
+        verify(recommendationService, timeout(2000)).orderPlaced(List.of(3L));
+        verify(recommendationService, timeout(2000)).orderPlaced(List.of(4L));
+        verifyStoredEventually(0);
+    }
+
+    @Test
+    void failedTaskShouldBeRetriedFromTheTable() {
+        doThrow(new IllegalStateException("index busy")).doNothing()
+                .when(recommendationService).orderPlaced(any());
+        pipeline = pipeline(0, 100);
+        pipeline.run(new PostCheckoutPipeline.Task(PostCheckoutPipeline.RECOMMENDATIONS, 1L, "3", 0, null, System.nanoTime()));
+
+        assertThat(jdbcTemplate.queryForMap("SELECT attempts, last_error FROM post_checkout_tasks"))
+                .containsEntry("ATTEMPTS", 1)
+                .containsEntry("LAST_ERROR", "index busy");
+        // Not due yet
+        assertThat(pipeline.sweep()).isZero();
+
+        jdbcTemplate.update("UPDATE post_checkout_tasks SET next_attempt_at = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP)");
+        pipeline.shutdown();
+        pipeline = pipeline(1, 100);
+        assertThat(pipeline.sweep()).isEqualTo(1);
+        verify(recommendationService, timeout(2000).times(2)).orderPlaced(List.of(3L));
+        verifyStoredEventually(0);
+    }
+
+    private PostCheckoutPipeline pipeline(int workers, int capacity) {
+        return new PostCheckoutPipeline(recommendationService, emailService, orderRepository, jdbcTemplate,
+                workers, capacity, false, 3_600_000);
+    }
+
+    private void verifyStoredEventually(int rows) {
+        eventually(() -> count() == rows);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_checkout_tasks", Integer.class);
+    }
+
+    private static void eventually(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private final Category pulses = new Category("Daal & Pulses");
+    private final Category spices = new Category("Spices & Masala");
+    private final Store bb = new Store("Bhatbhateni Supermarket", "Kathmandu");
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1L, "Masoor Daal 1kg", pulses, null),
+                product(2L, "Cumin (Jeera) 200g", spices, null),
+                product(3L, "Basmati Rice 5kg", null, "Goes well with daal"),
+                product(4L, "Moong Daal 1kg", pulses, null),
+                product(5L, "Timur (Sichuan Pepper) 50g", spices, null)));
+    }
+
+    @Test
+    void shouldMatchRomanizationVariants() {
+        assertThat(index.search("dal", 10)).startsWith(1L, 4L).contains(3L);
+        assertThat(index.search("jira", 10)).containsExactly(2L);
+        assertThat(index.search("mung dal", 10)).first().isEqualTo(4L);
+    }
+
+    @Test
+    void shouldMatchPrefixesAndTypos() {
+        assertThat(index.search("basm", 10)).containsExactly(3L);
+        assertThat(index.search("basmti", 10)).containsExactly(3L);
+        assertThat(index.search("sichuan pepr", 10)).containsExactly(5L);
+    }
+
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        List<Long> ids = index.search("daal", 10);
+        assertThat(ids).containsExactlyInAnyOrder(1L, 3L, 4L);
+        assertThat(ids).last().isEqualTo(3L);
+    }
+
+    @Test
+    void shouldSearchCategoryAndStoreNames() {
+        index.index(product(6L, "Mustard Oil 1L", null, null));
+        Product withStore = product(7L, "Ghee 500ml", null, null);
+        withStore.setStore(bb);
+        index.index(withStore);
+
+        assertThat(index.search("bhatbhateni", 10)).containsExactly(7L);
+        assertThat(index.search("masala", 10)).containsExactlyInAnyOrder(2L, 5L);
+    }
+
+    @Test
+    void reindexShouldDropStaleTerms() {
+        index.index(product(3L, "Jasmine Rice 5kg", null, null));
+
+        assertThat(index.search("basmati", 10)).isEmpty();
+        assertThat(index.search("jasmine", 10)).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void foldShouldNormaliseCommonVariants() {
+        assertThat(ProductSearchIndex.fold("daal")).isEqualTo(ProductSearchIndex.fold("dal"));
+        assertThat(ProductSearchIndex.fold("jeera")).isEqualTo(ProductSearchIndex.fold("jira"));
+        assertThat(ProductSearchIndex.fold("bhujia")).isEqualTo(ProductSearchIndex.fold("bujia"));
+        assertThat(ProductSearchIndex.fold("noodles")).isEqualTo(ProductSearchIndex.fold("noodle"));
+        assertThat(ProductSearchIndex.fold("grass")).isEqualTo("gras");
+        assertThat(ProductSearchIndex.fold("500")).isEqualTo("500");
+    }
+
+    private static Product product(Long id, String name, Category category, String description) {
+        Product p = new Product();
+        ReflectionTestUtils.setField(p, "id", id);
+        p.setName(name);
+        p.setCategory(category);
+        p.setDescription(description);
+        return p;
+    }
+}
@@ -0,0 +1,106 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+class QuoteServiceTest {
+
+    private final CatalogService catalogService = mock(CatalogService.class);
+    private final QuoteService quoteService = new QuoteService(catalogService);
+
+    private final Product rice = product(1L, "Basmati Rice 5kg", 900, 5);
+    private final Product daal = product(2L, "Moong Daal 1kg", 240, 1);
+
+    @BeforeEach
+    void catalog() {
+        when(catalogService.snapshot()).thenReturn(CatalogSnapshot.of(List.of(rice, daal)));
+    }
+
+    @Test
+    void shouldPriceCartWithShippingTaxAndPromo() {
+        QuoteService.Quote quote = quoteService.quote(cart(1L, 3, 2L, 1), " dashain10 ");
+
+        // 3 x 900 + 240 = 2940; 16kg -> 100 + 15 * 50
+        assertThat(quote.subtotal).isEqualTo(2940.0);
+        assertThat(quote.totalWeightKg).isEqualTo(16.0);
+        assertThat(quote.shippingFee).isEqualTo(850.0);
+        assertThat(quote.tax).isEqualTo(2940 * 0.13);
+        assertThat(quote.promoCode).isEqualTo("DASHAIN10");
+        assertThat(quote.discount).isEqualTo(294.0);
+        assertThat(quote.total).isEqualTo(2940 + 850 + 2940 * 0.13 - 294);
+        assertThat(quote.lines).extracting(l -> l.name, l -> l.lineTotal)
+                .containsExactly(tuple("Basmati Rice 5kg", 2700.0),
+                        tuple("Moong Daal 1kg", 240.0));
+
+        QuoteService.Quote invalid = quoteService.quote(cart(1L, 1), "NOTACODE");
+        assertThat(invalid.promoValid).isFalse();
+        assertThat(invalid.promoCode).isNull();
+        assertThat(invalid.discount).isZero();
+    }
+
+    @Test
+    void shouldReuseQuoteUntilPricesChange() {
+        QuoteService.Quote first = quoteService.quote(cart(1L, 2, 2L, 1), null);
+        assertThat(first.subtotal).isEqualTo(2040.0);
+
+        // Still priced from the cache while the pricing version stands (same cart in another
+        // line order); stock is not cached, so a sell-out shows at once
+        rice.setPrice(1000);
+        daal.setStock(0);
+        QuoteService.Quote cached = quoteService.quote(cart(2L, 1, 1L, 2), null);
+        assertThat(cached.subtotal).isEqualTo(2040.0);
+        assertThat(cached.lines).extracting(l -> l.inStock).containsExactly(true, false);
+        assertThat(first.lines).extracting(l -> l.inStock).containsExactly(true, true);
+
+        when(catalogService.pricingVersion()).thenReturn(1L);
+        QuoteService.Quote repriced = quoteService.quote(cart(1L, 2, 2L, 1), null);
+        assertThat(repriced.subtotal).isEqualTo(2240.0);
+        assertThat(repriced.pricingVersion).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldRejectUnknownProduct() {
+        assertThatThrownBy(() -> quoteService.quote(cart(1L, 1, 99L, 1), null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void shippingFeeShouldGrowPerStartedKilogram() {
+        assertThat(QuoteService.shippingFee(0)).isZero();
+        assertThat(QuoteService.shippingFee(0.5)).isEqualTo(100.0);
+        assertThat(QuoteService.shippingFee(1)).isEqualTo(100.0);
+        assertThat(QuoteService.shippingFee(2.2)).isEqualTo(200.0);
+    }
+
+    private static Map<Long, Integer> cart(Object... idsAndQuantities) {
+        Map<Long, Integer> cart = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            cart.put((Long) idsAndQuantities[i], (Integer) idsAndQuantities[i + 1]);
+        }
+        return cart;
+    }
+
+    private static Product product(Long id, String name, double price, double weightKg) {
+        Product p = new Product();
+        ReflectionTestUtils.setField(p, "id", id);
+        p.setName(name);
+        p.setPrice(price);
+        p.setStock(10);
+        p.setWeightKg(weightKg);
+        return p;
+    }
+}
@@ -0,0 +1,194 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderEvent;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.OrderEventRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.ReturnSummary;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ReturnService.class, OrderEventService.class})
+class ReturnServiceTest {
+
+    @Autowired
+    private ReturnService returnService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 10, 1, 9, 0);
+    private User sita;
+    private User ram;
+    private Product ghee;
+
+    @BeforeEach
+    void seed() {
+        sita = userRepository.save(user("sita@test.com", "Sita"));
+        ram = userRepository.save(user("ram@test.com", "Ram"));
+        ghee = new Product();
+        ghee.setName("Ghee 1L");
+        ghee = productRepository.save(ghee);
+    }
+
+    @Test
+    void refundBatchShouldMoveEveryLineAndPayOnceAnOrder() {
+        Order order = order(sita, "COMPLETED");
+        OrderItem a = line(order, "REQUESTED", start);
+        OrderItem b = line(order, "APPROVED", start.plusMinutes(1));
+        OrderItem c = line(order(ram, "COMPLETED"), "REQUESTED", start.plusMinutes(2));
+        entityManager.flush();
+
+        assertThat(returnService.process(List.of(a.getId(), b.getId(), c.getId()), "REFUNDED")).isEqualTo(3);
+        entityManager.clear();
+
+        assertThat(orderItemRepository.findAllById(List.of(a.getId(), b.getId(), c.getId())))
+                .allSatisfy(i -> {
+                    assertThat(i.getReturnStatus()).isEqualTo("REFUNDED");
+                    assertThat(i.getReturnProcessedAt()).isNotNull();
+                });
+        assertThat(orderRepository.findById(order.getId()).orElseThrow().getPaymentStatus()).isEqualTo("REFUNDED");
+        assertThat(orderEventRepository.findByOrderIdOrderByIdAsc(order.getId()))
+                .extracting(OrderEvent::getType, OrderEvent::getFromValue, OrderEvent::getToValue)
+                .containsExactly(
+                        tuple(OrderEvent.RETURN_STATUS, "REQUESTED", "REFUNDED"),
+                        tuple(OrderEvent.RETURN_STATUS, "APPROVED", "REFUNDED"),
+                        tuple(OrderEvent.PAYMENT_STATUS, "COMPLETED", "REFUNDED"));
+    }
+
+    @Test
+    void oneInvalidLineShouldLeaveTheWholeBatchUntouched() {
+        Order order = order(sita, "COMPLETED");
+        OrderItem requested = line(order, "REQUESTED", start);
+        OrderItem rejected = line(order, "REJECTED", start.plusMinutes(1));
+        entityManager.flush();
+
+        assertThatThrownBy(() -> returnService.process(List.of(requested.getId(), rejected.getId()), "APPROVED"))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                    assertThat(e.getReason()).contains(String.valueOf(rejected.getId()));
+                });
+        assertThatThrownBy(() -> returnService.process(List.of(requested.getId(), 999_999L), "APPROVED"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        entityManager.clear();
+
+        assertThat(orderItemRepository.findById(requested.getId()).orElseThrow().getReturnStatus()).isEqualTo("REQUESTED");
+        assertThat(orderEventRepository.count()).isZero();
+    }
+
+    @Test
+    void returnQueueShouldFilterAndSeekOldestFirst() {
+        Order sitaOrder = order(sita, "COMPLETED");
+        OrderItem first = line(sitaOrder, "REQUESTED", start);
+        OrderItem sameTime = line(sitaOrder, "REQUESTED", start);
+        OrderItem later = line(sitaOrder, "APPROVED", start.plusDays(1));
+        line(order(ram, "COMPLETED"), "REQUESTED", start.plusHours(1));
+        line(sitaOrder, "NONE", null);
+        entityManager.flush();
+
+        List<String> open = List.of("REQUESTED", "APPROVED");
+        List<ReturnSummary> page1 = orderItemRepository.findReturnQueue(open, null, null, null, "sit%",
+                null, null, Limit.of(2));
+        assertThat(page1).extracting(ReturnSummary::id).containsExactly(first.getId(), sameTime.getId());
+        assertThat(page1.get(0).customerName()).isEqualTo("Sita");
+
+        ReturnSummary last = page1.get(1);
+        assertThat(orderItemRepository.findReturnQueue(open, null, null, null, "sit%",
+                last.returnRequestedAt(), last.id(), Limit.of(2)))
+                .extracting(ReturnSummary::id).containsExactly(later.getId());
+
+        assertThat(orderItemRepository.findReturnQueue(List.of("REQUESTED"), start.plusMinutes(30), start.plusDays(1),
+                ram.getId(), null, null, null, Limit.of(10)))
+                .extracting(ReturnSummary::customerEmail).containsExactly("ram@test.com");
+    }
+
+    @Test
+    void returnQueueShouldPagePastLinesWithoutARequestTime() {
+        Order order = order(sita, "COMPLETED");
+        OrderItem legacyA = line(order, "REQUESTED", null);
+        OrderItem legacyB = line(order, "REQUESTED", null);
+        OrderItem dated = line(order, "REQUESTED", start);
+        entityManager.flush();
+
+        List<String> open = List.of("REQUESTED");
+        List<ReturnSummary> page1 = orderItemRepository.findReturnQueue(open, null, null, null, null,
+                null, null, Limit.of(1));
+        assertThat(page1).extracting(ReturnSummary::id).containsExactly(legacyA.getId());
+        assertThat(page1.get(0).returnRequestedAt()).isNull();
+
+        assertThat(orderItemRepository.findReturnQueue(open, null, null, null, null,
+                null, legacyA.getId(), Limit.of(10)))
+                .extracting(ReturnSummary::id).containsExactly(legacyB.getId(), dated.getId());
+        assertThat(orderItemRepository.findReturnQueue(open, null, null, null, null,
+                null, legacyB.getId(), Limit.of(10)))
+                .extracting(ReturnSummary::id).containsExactly(dated.getId());
+    }
+
+    private Order order(User customer, String paymentStatus) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        o.setPaymentStatus(paymentStatus);
+        return orderRepository.save(o);
+    }
+
+    private OrderItem line(Order order, String returnStatus, LocalDateTime requestedAt) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(ghee);
+        item.setQuantity(1);
+        item.setPriceAtPurchase(1200);
+        item.setReturnStatus(returnStatus);
+        item.setReturnRequestedAt(requestedAt);
+        return orderItemRepository.save(item);
+    }
+
+    private static User user(String email, String name) {
+        User u = new User();
+        u.setEmail(email);
+        u.setPassword("pass");
+        u.setRole("CUSTOMER");
+        u.setName(name);
+        u.setPhone("9800000000");
+        return u;
+    }
+}
@@ -0,0 +1,215 @@
+package com.grocery.localgrocery.service;
+
+import com.grocery.localgrocery.entity.Category;
+import com.grocery.localgrocery.entity.Order;
+import com.grocery.localgrocery.entity.OrderItem;
+import com.grocery.localgrocery.entity.Product;
+import com.grocery.localgrocery.entity.Store;
+import com.grocery.localgrocery.entity.User;
+import com.grocery.localgrocery.repository.CategoryRepository;
+import com.grocery.localgrocery.repository.OrderItemRepository;
+import com.grocery.localgrocery.repository.OrderRepository;
+import com.grocery.localgrocery.repository.ProductRepository;
+import com.grocery.localgrocery.repository.StoreRepository;
+import com.grocery.localgrocery.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({SalesRollupService.class, OrderEventService.class})
+class SalesRollupServiceTest {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderEventService orderEventService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDate today = LocalDate.now();
+    private User customer;
+    private Store dairy;
+    private Store bakery;
+    private Product milk;
+    private Product bread;
+
+    @BeforeEach
+    void seed() {
+        User u = new User();
+        u.setEmail("rollup@test.com");
+        u.setPassword("pass");
+        u.setRole("CUSTOMER");
+        u.setName("Rollup");
+        u.setPhone("9800000000");
+        customer = userRepository.save(u);
+
+        Category staples = new Category();
+        staples.setName("Staples");
+        staples = categoryRepository.save(staples);
+        dairy = store("Dairy Depot");
+        bakery = store("Corner Bakery");
+        milk = product("Milk 1L", dairy, staples);
+        bread = product("Bread", bakery, staples);
+    }
+
+    @Test
+    void placementCancellationAndRefundShouldKeepTheRollupNet() {
+        OrderItem breadLine = line(bread, 1, 50);
+        place("260.00", line(milk, 2, 100), breadLine);
+        Order second = place("110.00", line(milk, 1, 100));
+
+        assertDay("370.00", 2, 4);
+        assertThat(salesRollupService.byStore(today, today))
+                .extracting(SalesRollupService.Share::name, s -> s.revenue().toPlainString(),
+                        SalesRollupService.Share::orders, SalesRollupService.Share::items)
+                .containsExactly(tuple("Dairy Depot", "300.00", 2L, 3L), tuple("Corner Bakery", "50.00", 1L, 1L));
+        assertThat(salesRollupService.byCategory(today, today))
+                .extracting(SalesRollupService.Share::name, s -> s.revenue().toPlainString(),
+                        SalesRollupService.Share::orders, SalesRollupService.Share::items)
+                .containsExactly(tuple("Staples", "350.00", 2L, 4L));
+
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(second);
+        second.setStatus("CANCELLED");
+        orderEventService.save(second, before);
+        assertDay("260.00", 1, 3);
+
+        String returnBefore = breadLine.getReturnStatus();
+        breadLine.setReturnStatus("REFUNDED");
+        breadLine.setRefundAmount(45.0);
+        orderEventService.saveItem(breadLine, returnBefore, null);
+        assertDay("215.00", 1, 2);
+    }
+
+    @Test
+    void rebuildShouldMatchTheIncrementalRollup() {
+        place("260.00", line(milk, 2, 100), line(bread, 1, 50));
+        Order second = place("110.00", line(milk, 1, 100));
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(second);
+        second.setStatus("CANCELLED");
+        orderEventService.save(second, before);
+
+        List<SalesRollupService.DayTotals> daily = salesRollupService.daily(today, today);
+        List<SalesRollupService.Share> stores = salesRollupService.byStore(today, today);
+        List<SalesRollupService.Share> categories = salesRollupService.byCategory(today, today);
+
+        jdbcTemplate.update("UPDATE sales_daily SET revenue = 0, order_count = 0, item_count = 0");
+        assertThat(salesRollupService.rebuild(today.minusDays(10), today)).isEqualTo(11);
+
+        assertThat(salesRollupService.daily(today, today)).isEqualTo(daily);
+        assertThat(salesRollupService.byStore(today, today)).isEqualTo(stores);
+        assertThat(salesRollupService.byCategory(today, today)).isEqualTo(categories);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_daily WHERE slot <> 0", Integer.class)).isZero();
+    }
+
+    @Test
+    void revenueShouldMatchOrdersWhileTheFirstBuildRuns() {
+        OrderItem breadLine = line(bread, 1, 50);
+        place("260.00", line(milk, 2, 100), breadLine);
+        Order second = place("110.00", line(milk, 1, 100));
+        OrderEventService.Snapshot before = OrderEventService.Snapshot.of(second);
+        second.setStatus("CANCELLED");
+        orderEventService.save(second, before);
+        String returnBefore = breadLine.getReturnStatus();
+        breadLine.setReturnStatus("REFUNDED");
+        breadLine.setRefundAmount(45.0);
+        orderEventService.saveItem(breadLine, returnBefore, null);
+        entityManager.flush();
+
+        assertThat(salesRollupService.revenue(null, null)).isEqualByComparingTo("215.00");
+        assertThat(salesRollupService.revenue(today.plusDays(1), null)).isEqualByComparingTo("0");
+
+        jdbcTemplate.update("DELETE FROM sales_daily");
+        Object rebuilder = ReflectionTestUtils.getField(salesRollupService, "rebuilder");
+        ReflectionTestUtils.setField(rebuilder, "building", true);
+        assertThat(salesRollupService.revenue(null, null)).isEqualByComparingTo("215.00");
+        assertThat(salesRollupService.revenue(today, today)).isEqualByComparingTo("215.00");
+        assertThat(salesRollupService.revenue(null, today.minusDays(1))).isEqualByComparingTo("0");
+
+        salesRollupService.rebuild();
+        assertThat(salesRollupService.revenue(null, null)).isEqualByComparingTo("215.00");
+        assertThat(salesRollupService.daily(today, today)).hasSize(1);
+    }
+
+    private void assertDay(String revenue, long orders, long items) {
+        assertThat(salesRollupService.daily(today, today)).singleElement().satisfies(d -> {
+            assertThat(d.revenue()).isEqualByComparingTo(revenue);
+            assertThat(d.orders()).isEqualTo(orders);
+            assertThat(d.items()).isEqualTo(items);
+        });
+    }
+
+    private Order place(String total, OrderItem... lines) {
+        Order o = new Order();
+        o.setUser(customer);
+        o.setDeliveryAddress("Kathmandu");
+        o.setTotal(new BigDecimal(total));
+        o = orderRepository.save(o);
+        for (OrderItem line : lines) {
+            line.setOrder(o);
+            orderItemRepository.save(line);
+        }
+        entityManager.flush();
+        orderEventService.placed(o);
+        return o;
+    }
+
+    private static OrderItem line(Product product, int quantity, double price) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPriceAtPurchase(price);
+        return item;
+    }
+
+    private Store store(String name) {
+        Store s = new Store();
+        s.setName(name);
+        return storeRepository.save(s);
+    }
+
+    private Product product(String name, Store store, Category category) {
+        Product p = new Product();
+        p.setName(name);
+        p.setStore(store);
+        p.setCategory(category);
+        return productRepository.save(p);
+    }
+}